@@ -97,4 +97,8 @@ public interface AssemblerConfigurationSource
     boolean isIgnorePermissions();
     
     String getEncoding();
+
+    int getArchiverThreads();
+
+    int getGzipThreads();
 }
@@ -25,6 +25,7 @@ import org.apache.maven.plugin.assembly.format.AssemblyFormattingException;
 import org.apache.maven.plugin.assembly.model.Assembly;
 
 import java.io.File;
+import java.util.List;
 
 /**
  * @version $Id$
@@ -35,4 +36,14 @@ public interface AssemblyArchiver
 
     File createArchive( Assembly assembly, String fullName, String format, AssemblerConfigurationSource configSource )
         throws ArchiveCreationException, AssemblyFormattingException, InvalidAssemblerConfigurationException;
+
+    /**
+     * Creates the archives of the assembly in each of the given formats, processing the assembly descriptor once.
+     *
+     * @return the archive files, in the order of the formats
+     * @since 2.4
+     */
+    List<File> createArchives( Assembly assembly, String fullName, List<String> formats,
+                               AssemblerConfigurationSource configSource )
+        throws ArchiveCreationException, AssemblyFormattingException, InvalidAssemblerConfigurationException;
 }
@@ -28,6 +28,11 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.maven.plugin.DebugConfigurationListener;
 import org.apache.maven.plugin.assembly.AssemblerConfigurationSource;
@@ -35,6 +40,7 @@ import org.apache.maven.plugin.assembly.AssemblyContext;
 import org.apache.maven.plugin.assembly.DefaultAssemblyContext;
 import org.apache.maven.plugin.assembly.InvalidAssemblerConfigurationException;
 import org.apache.maven.plugin.assembly.archive.archiver.AssemblyProxyArchiver;
+import org.apache.maven.plugin.assembly.archive.archiver.MultiFormatArchiver;
 import org.apache.maven.plugin.assembly.archive.phase.AssemblyArchiverPhase;
 import org.apache.maven.plugin.assembly.artifact.DependencyResolutionException;
 import org.apache.maven.plugin.assembly.artifact.DependencyResolver;
@@ -46,6 +52,7 @@ import org.apache.maven.plugin.assembly.model.Assembly;
 import org.apache.maven.plugin.assembly.model.ContainerDescriptorHandlerConfig;
 import org.apache.maven.plugin.assembly.utils.AssemblyFileUtils;
 import org.apache.maven.plugin.assembly.utils.AssemblyFormatUtils;
+import org.apache.maven.plugin.assembly.utils.ParallelGzipCompressor;
 import org.codehaus.plexus.PlexusConstants;
 import org.codehaus.plexus.PlexusContainer;
 import org.codehaus.plexus.archiver.ArchiveFinalizer;
@@ -137,31 +144,13 @@ public class DefaultAssemblyArchiver
     {
         validate( assembly );
 
-        String filename = fullName;
-        if ( !configSource.isIgnoreDirFormatExtensions() || !format.startsWith( "dir" ) )
-        {
-            filename += "." + format;
-        }
-
         AssemblyFileUtils.verifyTempDirectoryAvailability( configSource.getTemporaryRootDirectory(), getLogger() );
 
-        final File outputDirectory = configSource.getOutputDirectory();
-
-        final File destFile = new File( outputDirectory, filename );
+        final File destFile = getDestFile( fullName, format, configSource );
 
         try
         {
-            final String finalName = configSource.getFinalName();
-            final String specifiedBasedir = assembly.getBaseDirectory();
-
-            String basedir = finalName;
-
-            if ( specifiedBasedir != null )
-            {
-                basedir =
-                    AssemblyFormatUtils.getOutputDirectory( specifiedBasedir, configSource.getProject(), null,
-                                                            finalName, configSource );
-            }
+            final String basedir = getBasedir( assembly, configSource );
 
             final List<ContainerDescriptorHandler> containerHandlers =
                 selectContainerDescriptorHandlers( assembly.getContainerDescriptorHandlers(), configSource );
@@ -169,7 +158,8 @@ public class DefaultAssemblyArchiver
             final Archiver archiver =
                 createArchiver( format, assembly.isIncludeBaseDirectory(), basedir, configSource, containerHandlers );
 
-            archiver.setDestFile( destFile );
+            final File archiveFile = getArchiveFile( destFile, format, configSource );
+            archiver.setDestFile( archiveFile );
 
             final AssemblyContext context = new DefaultAssemblyContext();
 
@@ -183,6 +173,120 @@ public class DefaultAssemblyArchiver
             }
 
             archiver.createArchive();
+
+            compress( archiveFile, destFile, configSource );
+        }
+        catch ( final ArchiverException e )
+        {
+            throw new ArchiveCreationException( "Error creating assembly archive " + assembly.getId() + ": "
+                + e.getMessage(), e );
+        }
+        catch ( final IOException e )
+        {
+            throw new ArchiveCreationException( "Error creating assembly archive " + assembly.getId() + ": "
+                + e.getMessage(), e );
+        }
+        catch ( final NoSuchArchiverException e )
+        {
+            throw new ArchiveCreationException( "Unable to obtain archiver for extension '" + format
+                + "', for assembly: '" + assembly.getId() + "'", e );
+        }
+        catch ( final DependencyResolutionException e )
+        {
+            throw new ArchiveCreationException( "Unable to resolve dependencies for assembly '" + assembly.getId()
+                + "'", e );
+        }
+
+        return destFile;
+    }
+
+    /**
+     * Create the assembly archives for several formats. The dependencies are resolved and the
+     * {@link AssemblyArchiverPhase} instances are executed once, against a {@link MultiFormatArchiver} feeding the
+     * {@link Archiver} of each format; the archives are then written on up to
+     * {@link AssemblerConfigurationSource#getArchiverThreads()} threads.
+     * <p/>
+     * Falls back to {@link #createArchive(Assembly, String, String, AssemblerConfigurationSource)} for each format
+     * when there is a single format, when the main project artifact may be replaced by one of the archives
+     * (MASSEMBLY-282), since each format then needs to see its own destination file, or when container descriptor
+     * handlers are configured, since the same handler instances would otherwise aggregate every descriptor once per
+     * format.
+     */
+    public List<File> createArchives( final Assembly assembly, final String fullName, final List<String> formats,
+                                      final AssemblerConfigurationSource configSource )
+        throws ArchiveCreationException, AssemblyFormattingException, InvalidAssemblerConfigurationException
+    {
+        final List<File> destFiles = new ArrayList<File>();
+        for ( final String format : formats )
+        {
+            destFiles.add( getDestFile( fullName, format, configSource ) );
+        }
+
+        File projectFile = null;
+        if ( ( configSource.getProject() != null ) && ( configSource.getProject().getArtifact() != null ) )
+        {
+            projectFile = configSource.getProject().getArtifact().getFile();
+        }
+
+        final List<ContainerDescriptorHandlerConfig> handlerConfigs = assembly.getContainerDescriptorHandlers();
+
+        if ( formats.size() < 2 || ( ( projectFile != null ) && destFiles.contains( projectFile ) )
+            || ( ( handlerConfigs != null ) && !handlerConfigs.isEmpty() ) )
+        {
+            final List<File> result = new ArrayList<File>();
+            for ( final String format : formats )
+            {
+                result.add( createArchive( assembly, fullName, format, configSource ) );
+            }
+            return result;
+        }
+
+        validate( assembly );
+
+        AssemblyFileUtils.verifyTempDirectoryAvailability( configSource.getTemporaryRootDirectory(), getLogger() );
+
+        String format = formats.get( 0 );
+        try
+        {
+            final String basedir = getBasedir( assembly, configSource );
+
+            final List<Archiver> archivers = new ArrayList<Archiver>();
+            final List<File> archiveFiles = new ArrayList<File>();
+            for ( int i = 0; i < formats.size(); i++ )
+            {
+                format = formats.get( i );
+
+                final List<ContainerDescriptorHandler> containerHandlers =
+                    selectContainerDescriptorHandlers( assembly.getContainerDescriptorHandlers(), configSource );
+
+                final Archiver archiver =
+                    createArchiver( format, assembly.isIncludeBaseDirectory(), basedir, configSource,
+                                    containerHandlers );
+
+                final File archiveFile = getArchiveFile( destFiles.get( i ), format, configSource );
+                archiver.setDestFile( archiveFile );
+                archivers.add( archiver );
+                archiveFiles.add( archiveFile );
+            }
+
+            final AssemblyContext context = new DefaultAssemblyContext();
+
+            dependencyResolver.resolve( assembly, configSource, context );
+
+            final Archiver archiver = MultiFormatArchiver.newInstance( archivers );
+            for ( final Iterator<AssemblyArchiverPhase> phaseIterator = assemblyPhases.iterator(); phaseIterator.hasNext(); )
+            {
+                final AssemblyArchiverPhase phase = phaseIterator.next();
+
+                phase.execute( assembly, archiver, configSource, context );
+            }
+
+            writeArchives( archivers, configSource.getArchiverThreads() );
+
+            for ( int i = 0; i < formats.size(); i++ )
+            {
+                compress( archiveFiles.get( i ), destFiles.get( i ), configSource );
+            }
         }
         catch ( final ArchiverException e )
         {
@@ -205,9 +309,150 @@ public class DefaultAssemblyArchiver
                 + "'", e );
         }
 
+        return destFiles;
+    }
+
+    private void writeArchives( final List<Archiver> archivers, final int threads )
+        throws ArchiverException, IOException
+    {
+        if ( threads <= 1 )
+        {
+            for ( final Archiver archiver : archivers )
+            {
+                archiver.createArchive();
+            }
+            return;
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool( Math.min( threads, archivers.size() ) );
+        try
+        {
+            final List<Future<Object>> futures = new ArrayList<Future<Object>>();
+            for ( final Archiver archiver : archivers )
+            {
+                futures.add( executor.submit( new Callable<Object>()
+                {
+                    public Object call()
+                        throws Exception
+                    {
+                        archiver.createArchive();
+                        return null;
+                    }
+                } ) );
+            }
+
+            for ( final Future<Object> future : futures )
+            {
+                try
+                {
+                    future.get();
+                }
+                catch ( final InterruptedException e )
+                {
+                    Thread.currentThread().interrupt();
+                    throw new ArchiverException( "Interrupted while writing the assembly archives", e );
+                }
+                catch ( final ExecutionException e )
+                {
+                    final Throwable cause = e.getCause();
+                    if ( cause instanceof ArchiverException )
+                    {
+                        throw (ArchiverException) cause;
+                    }
+                    if ( cause instanceof IOException )
+                    {
+                        throw (IOException) cause;
+                    }
+                    if ( cause instanceof RuntimeException )
+                    {
+                        throw (RuntimeException) cause;
+                    }
+                    if ( cause instanceof Error )
+                    {
+                        throw (Error) cause;
+                    }
+                    throw new ArchiverException( cause.getMessage(), cause );
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    private File getDestFile( final String fullName, final String format,
+                              final AssemblerConfigurationSource configSource )
+    {
+        String filename = fullName;
+        if ( !configSource.isIgnoreDirFormatExtensions() || !format.startsWith( "dir" ) )
+        {
+            filename += "." + format;
+        }
+
+        return new File( configSource.getOutputDirectory(), filename );
+    }
+
+    /**
+     * Specify whether the tar file of the given format is to be gzipped by {@link ParallelGzipCompressor} rather than
+     * by the tar archiver.
+     */
+    private boolean isParallelGzip( final String format, final AssemblerConfigurationSource configSource )
+    {
+        return "tar.gz".equals( format ) && configSource.getGzipThreads() > 1;
+    }
+
+    /**
+     * Returns the file the archiver writes: the destination file, or an uncompressed tar file in the temporary
+     * directory when it is gzipped afterwards.
+     */
+    private File getArchiveFile( final File destFile, final String format,
+                                 final AssemblerConfigurationSource configSource )
+    {
+        if ( isParallelGzip( format, configSource ) )
+        {
+            return new File( configSource.getTemporaryRootDirectory(), destFile.getName() + ".tar" );
+        }
         return destFile;
     }
 
+    private void compress( final File archiveFile, final File destFile,
+                           final AssemblerConfigurationSource configSource )
+        throws IOException
+    {
+        // nothing to do for the other formats, or during a dry run
+        if ( archiveFile.equals( destFile ) || !archiveFile.exists() )
+        {
+            return;
+        }
+
+        getLogger().debug( "Compressing " + archiveFile + " to " + destFile + " with "
+            + configSource.getGzipThreads() + " threads" );
+        ParallelGzipCompressor.compress( archiveFile, destFile, configSource.getGzipThreads() );
+        if ( !archiveFile.delete() )
+        {
+            archiveFile.deleteOnExit();
+        }
+    }
+
+    private String getBasedir( final Assembly assembly, final AssemblerConfigurationSource configSource )
+        throws AssemblyFormattingException
+    {
+        final String finalName = configSource.getFinalName();
+        final String specifiedBasedir = assembly.getBaseDirectory();
+
+        String basedir = finalName;
+
+        if ( specifiedBasedir != null )
+        {
+            basedir =
+                AssemblyFormatUtils.getOutputDirectory( specifiedBasedir, configSource.getProject(), null,
+                                                        finalName, configSource );
+        }
+
+        return basedir;
+    }
+
     private void validate( final Assembly assembly )
         throws InvalidAssemblerConfigurationException
     {
@@ -292,7 +537,9 @@ public class DefaultAssemblyArchiver
         Archiver archiver;
         if ( format.startsWith( "tar" ) )
         {
-            archiver = createTarArchiver( format, configSource.getTarLongFileMode() );
+            // gzipped afterwards in parallel, see getArchiveFile()
+            final String tarFormat = isParallelGzip( format, configSource ) ? "tar" : format;
+            archiver = createTarArchiver( tarFormat, configSource.getTarLongFileMode() );
         }
         else if ( "war".equals( format ) )
         {
@@ -41,6 +41,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -70,7 +71,11 @@ public class AssemblyProxyArchiver
 
     private FileSelector[] selectors;
 
-    private final ThreadLocal<Boolean> inPublicApi = new ThreadLocal<Boolean>();
+    /**
+     * Set while a public method delegates, so that files coming back through this archiver are not selected twice. The
+     * archiver is only ever used by the thread building the archive, so a plain field does instead of a thread-local.
+     */
+    private boolean inPublicApi;
 
     private final Logger logger;
 
@@ -78,7 +83,10 @@ public class AssemblyProxyArchiver
 
     private boolean forced;
 
-    private final Set<String> seenPaths = new HashSet<String>();
+    /**
+     * Prefixes each archive file has been added under, indexed by the archive file.
+     */
+    private final Map<File, Set<String>> seenArchives = new HashMap<File, Set<String>>();
 
     private final String assemblyWorkPath;
 
@@ -153,14 +161,13 @@ public class AssemblyProxyArchiver
                                     final String[] excludes )
         throws ArchiverException
     {
-        final String archiveKey = getArchiveKey( archiveFile, prefix );
-        if ( seenPaths.contains( archiveKey ) )
+        if ( isSeen( archiveFile, prefix ) )
         {
             warn( "Archive: " + archiveFile + " has already been added. Skipping." );
             return;
         }
 
-        inPublicApi.set( Boolean.TRUE );
+        inPublicApi = true;
         try
         {
             final DefaultArchivedFileSet fs = new DefaultArchivedFileSet();
@@ -180,18 +187,39 @@ public class AssemblyProxyArchiver
             else
             {
                 delegate.addArchivedFileSet( fs );
-                seenPaths.add( archiveKey );
+                markSeen( archiveFile, prefix );
             }
         }
         finally
         {
-            inPublicApi.set( null );
+            inPublicApi = false;
+        }
+    }
+
+    private boolean isSeen( final File archiveFile, final String prefix )
+    {
+        final Set<String> prefixes = seenArchives.get( getArchiveKey( archiveFile ) );
+        return ( prefixes != null ) && prefixes.contains( prefix );
+    }
+
+    private void markSeen( final File archiveFile, final String prefix )
+    {
+        final File key = getArchiveKey( archiveFile );
+
+        Set<String> prefixes = seenArchives.get( key );
+        if ( prefixes == null )
+        {
+            prefixes = new HashSet<String>( 2 );
+            seenArchives.put( key, prefixes );
         }
+
+        prefixes.add( prefix );
     }
 
-    private String getArchiveKey( final File archiveFile, final String prefix )
+    private File getArchiveKey( final File archiveFile )
     {
-        return archiveFile.getAbsolutePath() + ":" + prefix;
+        // artifact files are absolute already; only relative ones need resolving to match them.
+        return archiveFile.isAbsolute() ? archiveFile : archiveFile.getAbsoluteFile();
     }
 
     private void debug( final String message )
@@ -213,14 +241,13 @@ public class AssemblyProxyArchiver
     public void addArchivedFileSet( final File archiveFile, final String prefix )
         throws ArchiverException
     {
-        final String archiveKey = getArchiveKey( archiveFile, prefix );
-        if ( seenPaths.contains( archiveKey ) )
+        if ( isSeen( archiveFile, prefix ) )
         {
             warn( "Archive: " + archiveFile + " has already been added. Skipping." );
             return;
         }
 
-        inPublicApi.set( Boolean.TRUE );
+        inPublicApi = true;
         try
         {
             final DefaultArchivedFileSet fs = new DefaultArchivedFileSet();
@@ -238,26 +265,25 @@ public class AssemblyProxyArchiver
             else
             {
                 delegate.addArchivedFileSet( fs );
-                seenPaths.add( archiveKey );
+                markSeen( archiveFile, prefix );
             }
         }
         finally
         {
-            inPublicApi.set( null );
+            inPublicApi = false;
         }
     }
 
     public void addArchivedFileSet( final File archiveFile, final String[] includes, final String[] excludes )
         throws ArchiverException
     {
-        final String archiveKey = getArchiveKey( archiveFile, "" );
-        if ( seenPaths.contains( archiveKey ) )
+        if ( isSeen( archiveFile, "" ) )
         {
             warn( "Archive: " + archiveFile + " has already been added. Skipping." );
             return;
         }
 
-        inPublicApi.set( Boolean.TRUE );
+        inPublicApi = true;
         try
         {
             final DefaultArchivedFileSet fs = new DefaultArchivedFileSet();
@@ -277,26 +303,25 @@ public class AssemblyProxyArchiver
             else
             {
                 delegate.addArchivedFileSet( fs );
-                seenPaths.add( archiveKey );
+                markSeen( archiveFile, "" );
             }
         }
         finally
         {
-            inPublicApi.set( null );
+            inPublicApi = false;
         }
     }
 
     public void addArchivedFileSet( final File archiveFile )
         throws ArchiverException
     {
-        final String archiveKey = getArchiveKey( archiveFile, "" );
-        if ( seenPaths.contains( archiveKey ) )
+        if ( isSeen( archiveFile, "" ) )
         {
             warn( "Archive: " + archiveFile + " has already been added. Skipping." );
             return;
         }
 
-        inPublicApi.set( Boolean.TRUE );
+        inPublicApi = true;
         try
         {
             final DefaultArchivedFileSet fs = new DefaultArchivedFileSet();
@@ -314,12 +339,12 @@ public class AssemblyProxyArchiver
             else
             {
                 delegate.addArchivedFileSet( fs );
-                seenPaths.add( archiveKey );
+                markSeen( archiveFile, "" );
             }
         }
         finally
         {
-            inPublicApi.set( null );
+            inPublicApi = false;
         }
     }
 
@@ -327,7 +352,7 @@ public class AssemblyProxyArchiver
                               final String[] excludes )
         throws ArchiverException
     {
-        inPublicApi.set( Boolean.TRUE );
+        inPublicApi = true;
         try
         {
             final DefaultFileSet fs = new DefaultFileSet();
@@ -351,14 +376,14 @@ public class AssemblyProxyArchiver
         }
         finally
         {
-            inPublicApi.set( null );
+            inPublicApi = false;
         }
     }
 
     public void addDirectory( final File directory, final String prefix )
         throws ArchiverException
     {
-        inPublicApi.set( Boolean.TRUE );
+        inPublicApi = true;
         try
         {
             final DefaultFileSet fs = new DefaultFileSet();
@@ -380,14 +405,14 @@ public class AssemblyProxyArchiver
         }
         finally
         {
-            inPublicApi.set( null );
+            inPublicApi = false;
         }
     }
 
     public void addDirectory( final File directory, final String[] includes, final String[] excludes )
         throws ArchiverException
     {
-        inPublicApi.set( Boolean.TRUE );
+        inPublicApi = true;
         try
         {
             final DefaultFileSet fs = new DefaultFileSet();
@@ -411,14 +436,14 @@ public class AssemblyProxyArchiver
         }
         finally
         {
-            inPublicApi.set( null );
+            inPublicApi = false;
         }
     }
 
     public void addDirectory( final File directory )
         throws ArchiverException
     {
-        inPublicApi.set( Boolean.TRUE );
+        inPublicApi = true;
         try
         {
             final DefaultFileSet fs = new DefaultFileSet();
@@ -440,7 +465,7 @@ public class AssemblyProxyArchiver
         }
         finally
         {
-            inPublicApi.set( null );
+            inPublicApi = false;
         }
     }
 
@@ -449,7 +474,7 @@ public class AssemblyProxyArchiver
     {
         if ( acceptFile( inputFile ) )
         {
-            inPublicApi.set( Boolean.TRUE );
+            inPublicApi = true;
             try
             {
                 debug( "Adding file: " + inputFile + " to archive location: " + rootPrefix + destFileName );
@@ -465,7 +490,7 @@ public class AssemblyProxyArchiver
             }
             finally
             {
-                inPublicApi.set( null );
+                inPublicApi = false;
             }
         }
     }
@@ -475,7 +500,7 @@ public class AssemblyProxyArchiver
     {
         if ( acceptFile( inputFile ) )
         {
-            inPublicApi.set( Boolean.TRUE );
+            inPublicApi = true;
             try
             {
                 debug( "Adding file: " + inputFile + " to archive location: " + rootPrefix + destFileName );
@@ -491,7 +516,7 @@ public class AssemblyProxyArchiver
             }
             finally
             {
-                inPublicApi.set( null );
+                inPublicApi = false;
             }
         }
     }
@@ -499,7 +524,7 @@ public class AssemblyProxyArchiver
     public void createArchive()
         throws ArchiverException, IOException
     {
-        inPublicApi.set( Boolean.TRUE );
+        inPublicApi = true;
         try
         {
             if ( dryRun )
@@ -514,144 +539,144 @@ public class AssemblyProxyArchiver
         }
         finally
         {
-            inPublicApi.set( null );
+            inPublicApi = false;
         }
     }
 
     public int getDefaultDirectoryMode()
     {
-        inPublicApi.set( Boolean.TRUE );
+        inPublicApi = true;
         try
         {
             return delegate.getDefaultDirectoryMode();
         }
         finally
         {
-            inPublicApi.set( null );
+            inPublicApi = false;
         }
     }
 
     public int getDefaultFileMode()
     {
-        inPublicApi.set( Boolean.TRUE );
+        inPublicApi = true;
         try
         {
             return delegate.getDefaultFileMode();
         }
         finally
         {
-            inPublicApi.set( null );
+            inPublicApi = false;
         }
     }
 
     public File getDestFile()
     {
-        inPublicApi.set( Boolean.TRUE );
+        inPublicApi = true;
         try
         {
             return delegate.getDestFile();
         }
         finally
         {
-            inPublicApi.set( null );
+            inPublicApi = false;
         }
     }
 
     @SuppressWarnings( { "rawtypes", "deprecation" } )
     public Map getFiles()
     {
-        inPublicApi.set( Boolean.TRUE );
+        inPublicApi = true;
         try
         {
             return delegate.getFiles();
         }
         finally
         {
-            inPublicApi.set( null );
+            inPublicApi = false;
         }
     }
 
     public boolean getIncludeEmptyDirs()
     {
-        inPublicApi.set( Boolean.TRUE );
+        inPublicApi = true;
         try
         {
             return delegate.getIncludeEmptyDirs();
         }
         finally
         {
-            inPublicApi.set( null );
+            inPublicApi = false;
         }
     }
 
     public boolean isForced()
     {
-        inPublicApi.set( Boolean.TRUE );
+        inPublicApi = true;
         try
         {
             return delegate.isForced();
         }
         finally
         {
-            inPublicApi.set( null );
+            inPublicApi = false;
         }
     }
 
     public boolean isSupportingForced()
     {
-        inPublicApi.set( Boolean.TRUE );
+        inPublicApi = true;
         try
         {
             return delegate.isSupportingForced();
         }
         finally
         {
-            inPublicApi.set( null );
+            inPublicApi = false;
         }
     }
 
     public void setDefaultDirectoryMode( final int mode )
     {
-        inPublicApi.set( Boolean.TRUE );
+        inPublicApi = true;
         try
         {
             delegate.setDefaultDirectoryMode( mode );
         }
         finally
         {
-            inPublicApi.set( null );
+            inPublicApi = false;
         }
     }
 
     public void setDefaultFileMode( final int mode )
     {
-        inPublicApi.set( Boolean.TRUE );
+        inPublicApi = true;
         try
         {
             delegate.setDefaultFileMode( mode );
         }
         finally
         {
-            inPublicApi.set( null );
+            inPublicApi = false;
         }
     }
 
     public void setDestFile( final File destFile )
     {
-        inPublicApi.set( Boolean.TRUE );
+        inPublicApi = true;
         try
         {
             delegate.setDestFile( destFile );
         }
         finally
         {
-            inPublicApi.set( null );
+            inPublicApi = false;
         }
     }
 
     public void setForced( final boolean forced )
     {
-        inPublicApi.set( Boolean.TRUE );
+        inPublicApi = true;
         try
         {
             this.forced = forced;
@@ -659,20 +684,20 @@ public class AssemblyProxyArchiver
         }
         finally
         {
-            inPublicApi.set( null );
+            inPublicApi = false;
         }
     }
 
     public void setIncludeEmptyDirs( final boolean includeEmptyDirs )
     {
-        inPublicApi.set( Boolean.TRUE );
+        inPublicApi = true;
         try
         {
             delegate.setIncludeEmptyDirs( includeEmptyDirs );
         }
         finally
         {
-            inPublicApi.set( null );
+            inPublicApi = false;
         }
     }
 
@@ -684,14 +709,13 @@ public class AssemblyProxyArchiver
     public void addArchivedFileSet( final ArchivedFileSet fileSet )
         throws ArchiverException
     {
-        final String archiveKey = getArchiveKey( fileSet.getArchive(), "" );
-        if ( seenPaths.contains( archiveKey ) )
+        if ( isSeen( fileSet.getArchive(), "" ) )
         {
             warn( "Archive: " + fileSet.getArchive() + " has already been added. Skipping." );
             return;
         }
 
-        inPublicApi.set( Boolean.TRUE );
+        inPublicApi = true;
         try
         {
             final PrefixedArchivedFileSet fs = new PrefixedArchivedFileSet( fileSet, rootPrefix, selectors );
@@ -705,19 +729,19 @@ public class AssemblyProxyArchiver
             else
             {
                 delegate.addArchivedFileSet( fs );
-                seenPaths.add( archiveKey );
+                markSeen( fileSet.getArchive(), "" );
             }
         }
         finally
         {
-            inPublicApi.set( null );
+            inPublicApi = false;
         }
     }
 
     public void addFileSet( final FileSet fileSet )
         throws ArchiverException
     {
-        inPublicApi.set( Boolean.TRUE );
+        inPublicApi = true;
         try
         {
             final PrefixedFileSet fs = new PrefixedFileSet( fileSet, rootPrefix, selectors );
@@ -735,7 +759,7 @@ public class AssemblyProxyArchiver
         }
         finally
         {
-            inPublicApi.set( null );
+            inPublicApi = false;
         }
     }
 
@@ -810,7 +834,7 @@ public class AssemblyProxyArchiver
     private boolean acceptFile( final File inputFile )
         throws ArchiverException
     {
-        if ( Boolean.TRUE != inPublicApi.get() )
+        if ( !inPublicApi )
         {
             if ( selectors != null )
             {
@@ -845,9 +869,16 @@ public class AssemblyProxyArchiver
 
         private final File inputFile;
 
+        // every selector of the chain asks, so the file is only looked up once.
+        private final boolean file;
+
+        private final boolean directory;
+
         DefaultFileInfo( final File inputFile )
         {
             this.inputFile = inputFile;
+            file = inputFile.isFile();
+            directory = !file && inputFile.isDirectory();
         }
 
         public InputStream getContents()
@@ -863,12 +894,12 @@ public class AssemblyProxyArchiver
 
         public boolean isDirectory()
         {
-            return inputFile.isDirectory();
+            return directory;
         }
 
         public boolean isFile()
         {
-            return inputFile.isFile();
+            return file;
         }
 
     }
@@ -876,28 +907,28 @@ public class AssemblyProxyArchiver
     public void addResource( final PlexusIoResource resource, final String destFileName, final int permissions )
         throws ArchiverException
     {
-        inPublicApi.set( Boolean.TRUE );
+        inPublicApi = true;
         try
         {
             delegate.addResource( resource, destFileName, permissions );
         }
         finally
         {
-            inPublicApi.set( null );
+            inPublicApi = false;
         }
     }
 
     public void addResources( final PlexusIoResourceCollection resources )
         throws ArchiverException
     {
-        inPublicApi.set( Boolean.TRUE );
+        inPublicApi = true;
         try
         {
             delegate.addResources( resources );
         }
         finally
         {
-            inPublicApi.set( null );
+            inPublicApi = false;
         }
     }
 
@@ -914,14 +945,14 @@ public class AssemblyProxyArchiver
 
     public void setDuplicateBehavior( final String duplicate )
     {
-        inPublicApi.set( Boolean.TRUE );
+        inPublicApi = true;
         try
         {
             delegate.setDuplicateBehavior( duplicate );
         }
         finally
         {
-            inPublicApi.set( null );
+            inPublicApi = false;
         }
     }
 
@@ -947,27 +978,27 @@ public class AssemblyProxyArchiver
 
     public void setDirectoryMode( final int mode )
     {
-        inPublicApi.set( Boolean.TRUE );
+        inPublicApi = true;
         try
         {
             delegate.setDirectoryMode( mode );
         }
         finally
         {
-            inPublicApi.set( null );
+            inPublicApi = false;
         }
     }
 
     public void setFileMode( final int mode )
     {
-        inPublicApi.set( Boolean.TRUE );
+        inPublicApi = true;
         try
         {
             delegate.setFileMode( mode );
         }
         finally
         {
-            inPublicApi.set( null );
+            inPublicApi = false;
         }
     }
 
@@ -0,0 +1,107 @@
+package org.apache.maven.plugin.assembly.archive.archiver;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.codehaus.plexus.archiver.Archiver;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fans the calls of the assembly phases out to the archivers of several formats, so that the assembly descriptor is
+ * processed once for all the formats:
+ * <ul>
+ * <li>methods without a return value, such as the additions and the mode setters, are called on every archiver, in
+ * order</li>
+ * <li>methods with a return value, such as the mode getters, are answered by the first archiver, since the archivers
+ * of an assembly are configured alike</li>
+ * </ul>
+ * The archives themselves are still created through each archiver.
+ *
+ * @version $Id$
+ * @since 2.4
+ */
+public final class MultiFormatArchiver
+    implements InvocationHandler
+{
+
+    private final List<Archiver> delegates;
+
+    private MultiFormatArchiver( final List<Archiver> delegates )
+    {
+        this.delegates = new ArrayList<Archiver>( delegates );
+    }
+
+    /**
+     * Creates an archiver forwarding to the specified archivers.
+     *
+     * @param delegates the archivers of the formats, at least one
+     * @return the archiver to hand to the assembly phases
+     */
+    public static Archiver newInstance( final List<Archiver> delegates )
+    {
+        if ( delegates.isEmpty() )
+        {
+            throw new IllegalArgumentException( "At least one archiver is required." );
+        }
+
+        return (Archiver) Proxy.newProxyInstance( Archiver.class.getClassLoader(), new Class[] { Archiver.class },
+                                                  new MultiFormatArchiver( delegates ) );
+    }
+
+    public Object invoke( final Object proxy, final Method method, final Object[] args )
+        throws Throwable
+    {
+        if ( method.getDeclaringClass() == Object.class )
+        {
+            if ( "equals".equals( method.getName() ) )
+            {
+                return Boolean.valueOf( proxy == args[0] );
+            }
+            if ( "hashCode".equals( method.getName() ) )
+            {
+                return Integer.valueOf( System.identityHashCode( proxy ) );
+            }
+            return "MultiFormatArchiver" + delegates;
+        }
+
+        try
+        {
+            if ( method.getReturnType() != Void.TYPE )
+            {
+                return method.invoke( delegates.get( 0 ), args );
+            }
+
+            for ( final Archiver delegate : delegates )
+            {
+                method.invoke( delegate, args );
+            }
+            return null;
+        }
+        catch ( final InvocationTargetException e )
+        {
+            throw e.getCause();
+        }
+    }
+}
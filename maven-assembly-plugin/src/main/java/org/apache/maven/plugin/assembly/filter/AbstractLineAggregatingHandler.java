@@ -127,12 +127,12 @@ public abstract class AbstractLineAggregatingHandler
             return true;
         }
 
-        String name = fileInfo.getName();
-        name = AssemblyFileUtils.normalizePath( name );
-        name = name.replace( File.separatorChar, '/' );
-
         if ( fileInfo.isFile() && fileMatches( fileInfo ) )
         {
+            String name = fileInfo.getName();
+            name = AssemblyFileUtils.normalizePath( name );
+            name = name.replace( File.separatorChar, '/' );
+
             name = getOutputPathPrefix( fileInfo ) + new File( name ).getName();
 
             List<String> lines = catalog.get( name );
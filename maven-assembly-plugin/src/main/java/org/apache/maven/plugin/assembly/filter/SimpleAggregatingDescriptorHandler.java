@@ -41,6 +41,7 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
+import java.util.regex.Pattern;
 
 /**
  * @version $Id$
@@ -61,6 +62,9 @@ public class SimpleAggregatingDescriptorHandler
 
     private boolean overrideFilterAction;
 
+    // compiled once from filePattern, rather than for every entry offered to the handler.
+    private Pattern compiledFilePattern;
+
     private final StringWriter aggregateWriter = new StringWriter();
 
     private final List<String> filenames = new ArrayList<String>();
@@ -154,12 +158,17 @@ public class SimpleAggregatingDescriptorHandler
             return true;
         }
 
+        if ( !fileInfo.isFile() )
+        {
+            return true;
+        }
+
         String name = fileInfo.getName();
         name = AssemblyFileUtils.normalizePath( name );
 
         name = name.replace( File.separatorChar, '/' );
 
-        if ( fileInfo.isFile() && name.matches( filePattern ) )
+        if ( getCompiledFilePattern().matcher( name ).matches() )
         {
             readProperties( fileInfo );
             filenames.add( name );
@@ -179,6 +188,16 @@ public class SimpleAggregatingDescriptorHandler
         }
     }
 
+    private Pattern getCompiledFilePattern()
+    {
+        if ( compiledFilePattern == null || !compiledFilePattern.pattern().equals( filePattern ) )
+        {
+            compiledFilePattern = Pattern.compile( filePattern );
+        }
+
+        return compiledFilePattern;
+    }
+
     private void readProperties( final FileInfo fileInfo ) throws IOException
     {
         final StringWriter writer = new StringWriter();
@@ -350,6 +350,38 @@ public abstract class AbstractAssemblyMojo
     @Parameter( property = "assembly.ignorePermissions", defaultValue = "false" )
     private boolean ignorePermissions;
 
+    /**
+     * <p>
+     * The number of threads used to write the archives of an assembly with several formats. The assembly descriptor
+     * is processed once for all the formats; only the writing of the archives happens in parallel.
+     * </p>
+     * <p>
+     * <b>NOTE:</b> Assemblies using <code>containerDescriptorHandlers</code> are still processed and written one
+     * format after the other, since the handlers are shared between the formats.
+     * </p>
+     *
+     * @since 2.4
+     */
+    @Parameter( property = "assembly.archiverThreads", defaultValue = "1" )
+    private int archiverThreads;
+
+    /**
+     * <p>
+     * The number of threads used to compress the <code>tar.gz</code> format. With more than one thread, the tar file
+     * is written uncompressed to the temporary directory first, then split in blocks which are gzipped in parallel
+     * and concatenated into a single gzip file.
+     * </p>
+     * <p>
+     * <b>NOTE:</b> The gzip file then consists of several gzip members, which <code>gzip</code> and Java 7 or later
+     * read as one stream, but which older <code>java.util.zip.GZIPInputStream</code> implementations stop reading
+     * after the first block.
+     * </p>
+     *
+     * @since 2.4
+     */
+    @Parameter( property = "assembly.gzipThreads", defaultValue = "1" )
+    private int gzipThreads;
+
     /**
      * Create the binary distribution.
      * 
@@ -408,9 +440,12 @@ public abstract class AbstractAssemblyMojo
                     throw new MojoFailureException( "No formats specified in the execution parameters or the assembly descriptor.");
                 }
 
-                for ( final String format : effectiveFormats )
+                final List<File> destFiles =
+                    assemblyArchiver.createArchives( assembly, fullName, effectiveFormats, this );
+                for ( int i = 0; i < effectiveFormats.size(); i++ )
                 {
-                    final File destFile = assemblyArchiver.createArchive( assembly, fullName, format, this );
+                    final String format = effectiveFormats.get( i );
+                    final File destFile = destFiles.get( i );
 
                     final MavenProject project = getProject();
                     final String classifier = getClassifier();
@@ -832,4 +867,14 @@ public abstract class AbstractAssemblyMojo
     public String getEncoding() {
     	return encoding;
     }
+
+    public int getArchiverThreads()
+    {
+        return archiverThreads;
+    }
+
+    public int getGzipThreads()
+    {
+        return gzipThreads;
+    }
 }
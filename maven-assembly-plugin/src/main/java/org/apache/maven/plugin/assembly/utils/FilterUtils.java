@@ -112,6 +112,9 @@ public final class FilterUtils
             }
         }
 
+        // the pattern filters are created for every call, that is for every dependency set, rather than compiled once
+        // and shared: they record which of their patterns matched, for the statistics reported below and for strict
+        // filtering, so an instance must only see the artifacts of one set.
         if ( !includes.isEmpty() )
         {
             final ArtifactFilter includeFilter = new PatternIncludesArtifactFilter( includes, actTransitively );
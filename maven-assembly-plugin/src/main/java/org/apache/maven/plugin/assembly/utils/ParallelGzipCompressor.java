@@ -0,0 +1,195 @@
+package org.apache.maven.plugin.assembly.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.codehaus.plexus.util.IOUtil;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzips a file on several threads. The file is split in blocks which are compressed independently, each one into a
+ * complete gzip member, and the members are written in order. A series of members is a valid gzip file (RFC 1952,
+ * section 2.2), decompressed as the concatenation of the blocks.
+ *
+ * @version $Id$
+ * @since 2.4
+ */
+public final class ParallelGzipCompressor
+{
+
+    /**
+     * The size of the blocks compressed independently.
+     */
+    static final int BLOCK_SIZE = 1024 * 1024;
+
+    private ParallelGzipCompressor()
+    {
+    }
+
+    /**
+     * Gzips the source file into the target file.
+     *
+     * @param source  the file to compress
+     * @param target  the gzip file to write
+     * @param threads the number of threads to compress with
+     * @throws IOException if the source could not be read or the target written
+     */
+    public static void compress( final File source, final File target, final int threads )
+        throws IOException
+    {
+        final ExecutorService executor = Executors.newFixedThreadPool( Math.max( 1, threads ) );
+        InputStream in = null;
+        OutputStream out = null;
+        try
+        {
+            in = new FileInputStream( source );
+            out = new BufferedOutputStream( new FileOutputStream( target ) );
+
+            // bounds the memory used to the blocks being compressed and the ones waiting to be written
+            final int maxPending = Math.max( 1, threads ) * 2;
+            final LinkedList<Future<byte[]>> pending = new LinkedList<Future<byte[]>>();
+            boolean empty = true;
+
+            byte[] block = new byte[BLOCK_SIZE];
+            int length = readBlock( in, block );
+            while ( length > 0 )
+            {
+                empty = false;
+                pending.add( executor.submit( new BlockCompression( block, length ) ) );
+                if ( pending.size() >= maxPending )
+                {
+                    out.write( get( pending.removeFirst() ) );
+                }
+
+                block = new byte[BLOCK_SIZE];
+                length = readBlock( in, block );
+            }
+
+            if ( empty )
+            {
+                // an empty file still needs a member to be a valid gzip file
+                out.write( new BlockCompression( block, 0 ).call() );
+            }
+
+            while ( !pending.isEmpty() )
+            {
+                out.write( get( pending.removeFirst() ) );
+            }
+
+            out.close();
+            out = null;
+        }
+        finally
+        {
+            executor.shutdownNow();
+            IOUtil.close( in );
+            IOUtil.close( out );
+        }
+    }
+
+    private static int readBlock( final InputStream in, final byte[] block )
+        throws IOException
+    {
+        int length = 0;
+        while ( length < block.length )
+        {
+            final int read = in.read( block, length, block.length - length );
+            if ( read < 0 )
+            {
+                break;
+            }
+            length += read;
+        }
+        return length;
+    }
+
+    private static byte[] get( final Future<byte[]> future )
+        throws IOException
+    {
+        try
+        {
+            return future.get();
+        }
+        catch ( final InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException( "Interrupted while compressing" );
+        }
+        catch ( final ExecutionException e )
+        {
+            final Throwable cause = e.getCause();
+            if ( cause instanceof IOException )
+            {
+                throw (IOException) cause;
+            }
+            if ( cause instanceof RuntimeException )
+            {
+                throw (RuntimeException) cause;
+            }
+            if ( cause instanceof Error )
+            {
+                throw (Error) cause;
+            }
+            final IOException error = new IOException( "Failed to compress: " + cause.getMessage() );
+            error.initCause( cause );
+            throw error;
+        }
+    }
+
+    private static final class BlockCompression
+        implements Callable<byte[]>
+    {
+
+        private final byte[] block;
+
+        private final int length;
+
+        BlockCompression( final byte[] block, final int length )
+        {
+            this.block = block;
+            this.length = length;
+        }
+
+        public byte[] call()
+            throws IOException
+        {
+            final ByteArrayOutputStream member = new ByteArrayOutputStream( length / 2 + 64 );
+            final GZIPOutputStream gzip = new GZIPOutputStream( member );
+            gzip.write( block, 0, length );
+            gzip.close();
+            return member.toByteArray();
+        }
+    }
+}
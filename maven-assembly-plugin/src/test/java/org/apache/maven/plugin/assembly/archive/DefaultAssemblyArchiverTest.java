@@ -22,6 +22,7 @@ package org.apache.maven.plugin.assembly.archive;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import org.apache.maven.artifact.repository.ArtifactRepository;
@@ -30,17 +31,24 @@ import org.apache.maven.plugin.assembly.AssemblerConfigurationSource;
 import org.apache.maven.plugin.assembly.AssemblyContext;
 import org.apache.maven.plugin.assembly.DefaultAssemblyContext;
 import org.apache.maven.plugin.assembly.InvalidAssemblerConfigurationException;
+import org.apache.maven.plugin.assembly.archive.archiver.AssemblyProxyArchiver;
 import org.apache.maven.plugin.assembly.archive.phase.AssemblyArchiverPhase;
 import org.apache.maven.plugin.assembly.artifact.DependencyResolutionException;
 import org.apache.maven.plugin.assembly.artifact.DependencyResolver;
+import org.apache.maven.plugin.assembly.filter.ContainerDescriptorHandler;
+import org.apache.maven.plugin.assembly.filter.SimpleAggregatingDescriptorHandler;
 import org.apache.maven.plugin.assembly.format.AssemblyFormattingException;
 import org.apache.maven.plugin.assembly.model.Assembly;
+import org.apache.maven.plugin.assembly.model.ContainerDescriptorHandlerConfig;
 import org.apache.maven.plugin.assembly.testutils.MockManager;
 import org.apache.maven.plugin.assembly.testutils.TestFileManager;
+import org.apache.maven.plugin.assembly.testutils.TrackingArchiverStub;
 import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.DefaultPlexusContainer;
 import org.codehaus.plexus.PlexusContainer;
 import org.codehaus.plexus.PlexusContainerException;
+import org.codehaus.plexus.archiver.ArchiveEntry;
+import org.codehaus.plexus.archiver.ArchiveFinalizer;
 import org.codehaus.plexus.archiver.ArchivedFileSet;
 import org.codehaus.plexus.archiver.Archiver;
 import org.codehaus.plexus.archiver.ArchiverException;
@@ -58,6 +66,7 @@ import org.codehaus.plexus.components.io.resources.PlexusIoResourceCollection;
 import org.codehaus.plexus.logging.Logger;
 import org.codehaus.plexus.logging.console.ConsoleLogger;
 import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.ReflectionUtils;
 import org.easymock.MockControl;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -66,9 +75,11 @@ import org.junit.Test;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 import junit.framework.Assert;
 
@@ -218,6 +229,115 @@ public class DefaultAssemblyArchiverTest
         mm.verifyAll();
     }
 
+    @Test
+    public void testCreateArchives_ContainerDescriptorHandlersAggregateOncePerArchive()
+        throws Exception
+    {
+        final MockManager mm = new MockManager();
+
+        final MockAndControlForAssemblyArchiver macMgr = new MockAndControlForAssemblyArchiver( mm );
+
+        final MockControl csControl = MockControl.createNiceControl( AssemblerConfigurationSource.class );
+        mm.add( csControl );
+
+        final AssemblerConfigurationSource configSource = (AssemblerConfigurationSource) csControl.getMock();
+
+        final File tempDir = fileManager.createTempDir();
+        FileUtils.deleteDirectory( tempDir );
+
+        configSource.getTemporaryRootDirectory();
+        csControl.setReturnValue( tempDir, MockControl.ZERO_OR_MORE );
+
+        configSource.getOutputDirectory();
+        csControl.setReturnValue( fileManager.createTempDir(), MockControl.ZERO_OR_MORE );
+
+        configSource.getFinalName();
+        csControl.setReturnValue( "finalName", MockControl.ZERO_OR_MORE );
+
+        configSource.getArchiverThreads();
+        csControl.setReturnValue( 2, MockControl.ZERO_OR_MORE );
+
+        macMgr.dependencyResolver.resolve( null, null, null );
+        macMgr.dependencyResolverControl.setMatcher( MockControl.ALWAYS_MATCHER );
+        macMgr.dependencyResolverControl.setVoidCallable( MockControl.ZERO_OR_MORE );
+
+        mm.replayAll();
+
+        final File descriptor = fileManager.createFile( fileManager.createTempDir(), "plugin.properties", "key=value" );
+
+        final List<Archiver> phaseArchivers = new ArrayList<Archiver>();
+        final AssemblyArchiverPhase phase = new AssemblyArchiverPhase()
+        {
+            public void execute( final Assembly assembly, final Archiver archiver,
+                                 final AssemblerConfigurationSource configSource, final AssemblyContext context )
+                throws ArchiveCreationException
+            {
+                phaseArchivers.add( archiver );
+                try
+                {
+                    archiver.addFile( descriptor, "META-INF/plugin.properties" );
+                }
+                catch ( final ArchiverException e )
+                {
+                    throw new ArchiveCreationException( e.getMessage(), e );
+                }
+            }
+        };
+
+        final List<FinalizingArchiverStub> trackers = new ArrayList<FinalizingArchiverStub>();
+        final DefaultAssemblyArchiver subject =
+            new DefaultAssemblyArchiver( macMgr.archiverManager, macMgr.dependencyResolver,
+                                         Collections.singletonList( phase ) )
+            {
+                @Override
+                protected Archiver createArchiver( final String format, final boolean includeBaseDir,
+                                                   final String finalName,
+                                                   final AssemblerConfigurationSource configSource,
+                                                   final List<ContainerDescriptorHandler> containerHandlers )
+                {
+                    final FinalizingArchiverStub tracker = new FinalizingArchiverStub();
+                    trackers.add( tracker );
+                    return new AssemblyProxyArchiver( "", tracker, containerHandlers, null, null, new File( "." ),
+                                                      getLogger(), false );
+                }
+            };
+        subject.setContainer( container );
+        subject.enableLogging( new ConsoleLogger( Logger.LEVEL_DEBUG, "test" ) );
+
+        final SimpleAggregatingDescriptorHandler handler = new SimpleAggregatingDescriptorHandler();
+        handler.setFilePattern( ".*plugin\\.properties" );
+        handler.setOutputPath( "META-INF/plugin.properties" );
+        ReflectionUtils.setVariableValueInObject( subject, "containerDescriptorHandlers",
+                                                  Collections.singletonMap( "file-aggregator", handler ) );
+
+        final ContainerDescriptorHandlerConfig handlerConfig = new ContainerDescriptorHandlerConfig();
+        handlerConfig.setHandlerName( "file-aggregator" );
+
+        final Assembly assembly = new Assembly();
+        assembly.setId( "id" );
+        assembly.addContainerDescriptorHandler( handlerConfig );
+
+        subject.createArchives( assembly, "full-name", Arrays.asList( "zip", "jar" ), configSource );
+
+        // the descriptor is processed once per format, each archive seeing it once rather than once per format
+        assertEquals( 2, trackers.size() );
+        assertEquals( 2, phaseArchivers.size() );
+        assertFalse( phaseArchivers.get( 0 ) == phaseArchivers.get( 1 ) );
+
+        final FinalizingArchiverStub first = trackers.get( 0 );
+        assertTrue( first.created );
+        assertEquals( 1, first.added.size() );
+        assertEquals( "META-INF/plugin.properties", first.added.get( 0 ).destination );
+        final String aggregated = FileUtils.fileRead( (File) first.added.get( 0 ).resource );
+        assertEquals( aggregated.indexOf( "key=value" ), aggregated.lastIndexOf( "key=value" ) );
+        assertTrue( aggregated.indexOf( "key=value" ) > 0 );
+
+        assertTrue( trackers.get( 1 ).created );
+        assertEquals( 1, trackers.get( 1 ).added.size() );
+
+        mm.verifyAll();
+    }
+
     @Test
     public void testCreateArchiver_ShouldConfigureArchiver()
         throws NoSuchArchiverException, ArchiverException
@@ -757,6 +877,65 @@ public class DefaultAssemblyArchiverTest
         }
     }
 
+    /**
+     * Runs the finalizers of the archive, such as the container descriptor handlers, when the archive is created.
+     */
+    private static final class FinalizingArchiverStub
+        extends TrackingArchiverStub
+        implements FinalizerEnabled
+    {
+
+        private final List<ArchiveFinalizer> finalizers = new ArrayList<ArchiveFinalizer>();
+
+        public void addArchiveFinalizer( final ArchiveFinalizer finalizer )
+        {
+            finalizers.add( finalizer );
+        }
+
+        public void setArchiveFinalizers( final List<ArchiveFinalizer> archiveFinalizers )
+        {
+            finalizers.clear();
+            finalizers.addAll( archiveFinalizers );
+        }
+
+        @Override
+        public ResourceIterator getResources()
+            throws ArchiverException
+        {
+            return new ResourceIterator()
+            {
+
+                public boolean hasNext()
+                    throws ArchiverException
+                {
+                    return false;
+                }
+
+                public ArchiveEntry next()
+                    throws ArchiverException
+                {
+                    throw new NoSuchElementException();
+                }
+
+                public void remove()
+                {
+                    throw new NoSuchElementException();
+                }
+            };
+        }
+
+        @Override
+        public void createArchive()
+            throws ArchiverException, IOException
+        {
+            for ( final ArchiveFinalizer finalizer : finalizers )
+            {
+                finalizer.finalizeArchiveCreation( this );
+            }
+            super.createArchive();
+        }
+    }
+
     private static final class TestTarArchiver
         extends TarArchiver
     {
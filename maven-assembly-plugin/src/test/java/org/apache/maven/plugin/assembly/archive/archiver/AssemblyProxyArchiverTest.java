@@ -176,6 +176,28 @@ public class AssemblyProxyArchiverTest
         assertEquals( 1, counter.getCount() );
     }
 
+    @Test
+    public void addArchivedFileSet_SkipArchiveAlreadyAddedWithSamePrefix()
+        throws IOException, ArchiverException
+    {
+        final TrackingArchiverStub tracker = new TrackingArchiverStub();
+        final AssemblyProxyArchiver archiver =
+            new AssemblyProxyArchiver( "", tracker, null, null, null, new File( "." ), logger, false );
+
+        final File archive = fileManager.createTempFile();
+
+        archiver.addArchivedFileSet( archive, "lib/" );
+        archiver.addArchivedFileSet( archive.getAbsoluteFile(), "lib/" );
+        assertEquals( 1, tracker.added.size() );
+
+        archiver.addArchivedFileSet( archive, "other/" );
+        archiver.addArchivedFileSet( archive );
+        assertEquals( 3, tracker.added.size() );
+
+        archiver.addArchivedFileSet( archive );
+        assertEquals( 3, tracker.added.size() );
+    }
+
     private static final class CounterSelector
         implements FileSelector
     {
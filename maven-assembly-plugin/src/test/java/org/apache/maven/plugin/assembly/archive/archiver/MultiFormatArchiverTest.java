@@ -0,0 +1,130 @@
+package org.apache.maven.plugin.assembly.archive.archiver;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.apache.maven.plugin.assembly.testutils.TrackingArchiverStub;
+import org.codehaus.plexus.archiver.Archiver;
+import org.codehaus.plexus.archiver.ArchiverException;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class MultiFormatArchiverTest
+{
+
+    @Test
+    public void addFile_ForwardedToEveryArchiver()
+        throws ArchiverException
+    {
+        final TrackingArchiverStub zip = new TrackingArchiverStub();
+        final TrackingArchiverStub tar = new TrackingArchiverStub();
+        final Archiver archiver = MultiFormatArchiver.newInstance( archivers( zip, tar ) );
+
+        final File file = new File( "README.txt" );
+        archiver.addFile( file, "docs/README.txt" );
+
+        assertEquals( 1, zip.added.size() );
+        assertEquals( "docs/README.txt", zip.added.get( 0 ).destination );
+        assertEquals( 1, tar.added.size() );
+        assertEquals( "docs/README.txt", tar.added.get( 0 ).destination );
+    }
+
+    @Test
+    public void getDestFile_AnsweredByFirstArchiver()
+    {
+        final TrackingArchiverStub zip = new TrackingArchiverStub();
+        final TrackingArchiverStub tar = new TrackingArchiverStub();
+        zip.setDestFile( new File( "dist.zip" ) );
+        tar.setDestFile( new File( "dist.tar.gz" ) );
+
+        final Archiver archiver = MultiFormatArchiver.newInstance( archivers( zip, tar ) );
+
+        assertEquals( new File( "dist.zip" ), archiver.getDestFile() );
+    }
+
+    @Test
+    public void createArchive_ForwardedToEveryArchiver()
+        throws ArchiverException, IOException
+    {
+        final TrackingArchiverStub zip = new TrackingArchiverStub();
+        final TrackingArchiverStub tar = new TrackingArchiverStub();
+        final Archiver archiver = MultiFormatArchiver.newInstance( archivers( zip, tar ) );
+
+        archiver.createArchive();
+
+        assertTrue( zip.created );
+        assertTrue( tar.created );
+    }
+
+    @Test
+    public void addFile_ExceptionOfArchiverRethrown()
+    {
+        final TrackingArchiverStub zip = new TrackingArchiverStub()
+        {
+            @Override
+            public void addFile( final File inputFile, final String destFileName )
+                throws ArchiverException
+            {
+                throw new ArchiverException( "duplicate entry" );
+            }
+        };
+        final TrackingArchiverStub tar = new TrackingArchiverStub();
+        final Archiver archiver = MultiFormatArchiver.newInstance( archivers( zip, tar ) );
+
+        try
+        {
+            archiver.addFile( new File( "README.txt" ), "README.txt" );
+            fail( "Should have rethrown the exception of the archiver" );
+        }
+        catch ( final ArchiverException e )
+        {
+            assertEquals( "duplicate entry", e.getMessage() );
+        }
+        assertTrue( tar.added.isEmpty() );
+    }
+
+    @Test
+    public void equals_IdentityOfProxy()
+    {
+        final Archiver archiver = MultiFormatArchiver.newInstance( archivers( new TrackingArchiverStub() ) );
+
+        assertTrue( archiver.equals( archiver ) );
+        assertFalse( archiver.equals( MultiFormatArchiver.newInstance( archivers( new TrackingArchiverStub() ) ) ) );
+        assertEquals( System.identityHashCode( archiver ), archiver.hashCode() );
+    }
+
+    private static List<Archiver> archivers( final Archiver... archivers )
+    {
+        final List<Archiver> result = new ArrayList<Archiver>();
+        for ( final Archiver archiver : archivers )
+        {
+            result.add( archiver );
+        }
+        return result;
+    }
+}
@@ -206,4 +206,14 @@ public class ConfigSourceStub
     	return null;
     }
 
+    public int getArchiverThreads()
+    {
+        return 1;
+    }
+
+    public int getGzipThreads()
+    {
+        return 1;
+    }
+
 }
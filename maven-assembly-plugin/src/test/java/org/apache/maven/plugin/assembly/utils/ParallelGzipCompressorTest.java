@@ -0,0 +1,142 @@
+package org.apache.maven.plugin.assembly.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import junit.framework.TestCase;
+
+import org.apache.maven.plugin.assembly.testutils.TestFileManager;
+import org.codehaus.plexus.util.IOUtil;
+
+public class ParallelGzipCompressorTest
+    extends TestCase
+{
+
+    private TestFileManager fileManager = new TestFileManager( "parallel-gzip.test.", "" );
+
+    public void tearDown()
+        throws IOException
+    {
+        fileManager.cleanUp();
+    }
+
+    public void testCompress_ShouldDecompressToSourceOverSeveralBlocks()
+        throws IOException
+    {
+        // compressible content, spanning several blocks and ending with a partial one
+        final byte[] content = new byte[ParallelGzipCompressor.BLOCK_SIZE * 3 + 12345];
+        final Random random = new Random( 42 );
+        for ( int i = 0; i < content.length; i++ )
+        {
+            content[i] = (byte) ( 'a' + random.nextInt( 4 ) );
+        }
+
+        final File source = write( content );
+        final File target = fileManager.createTempFile();
+
+        ParallelGzipCompressor.compress( source, target, 3 );
+
+        assertTrue( target.length() < content.length );
+        assertTrue( Arrays.equals( content, gunzip( target ) ) );
+    }
+
+    public void testCompress_ShouldWriteValidGzipForEmptySource()
+        throws IOException
+    {
+        final File source = write( new byte[0] );
+        final File target = fileManager.createTempFile();
+
+        ParallelGzipCompressor.compress( source, target, 2 );
+
+        assertEquals( 0, gunzip( target ).length );
+    }
+
+    public void testCompress_ShouldBeRepeatable()
+        throws IOException
+    {
+        final byte[] content = new byte[ParallelGzipCompressor.BLOCK_SIZE + 1];
+        Arrays.fill( content, (byte) 'x' );
+
+        final File source = write( content );
+        final File first = fileManager.createTempFile();
+        final File second = fileManager.createTempFile();
+
+        ParallelGzipCompressor.compress( source, first, 1 );
+        ParallelGzipCompressor.compress( source, second, 4 );
+
+        assertTrue( Arrays.equals( read( first ), read( second ) ) );
+    }
+
+    private File write( final byte[] content )
+        throws IOException
+    {
+        final File file = fileManager.createTempFile();
+        final OutputStream out = new FileOutputStream( file );
+        try
+        {
+            out.write( content );
+        }
+        finally
+        {
+            IOUtil.close( out );
+        }
+        return file;
+    }
+
+    private byte[] read( final File file )
+        throws IOException
+    {
+        final InputStream in = new FileInputStream( file );
+        try
+        {
+            return IOUtil.toByteArray( in );
+        }
+        finally
+        {
+            IOUtil.close( in );
+        }
+    }
+
+    private byte[] gunzip( final File file )
+        throws IOException
+    {
+        final InputStream in = new GZIPInputStream( new FileInputStream( file ) );
+        try
+        {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            IOUtil.copy( in, out );
+            return out.toByteArray();
+        }
+        finally
+        {
+            IOUtil.close( in );
+        }
+    }
+}
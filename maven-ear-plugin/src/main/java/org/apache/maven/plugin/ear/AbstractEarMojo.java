@@ -20,7 +20,10 @@ package org.apache.maven.plugin.ear;
  */
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -31,6 +34,7 @@ import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugin.ear.util.ArtifactTypeMappingService;
 import org.apache.maven.plugin.ear.util.JavaEEVersion;
+import org.apache.maven.plugin.ear.util.ModuleDigests;
 import org.apache.maven.plugins.annotations.Component;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
@@ -131,8 +135,29 @@ public abstract class AbstractEarMojo
     @Parameter
     private String mainArtifactId = "none";
 
+    /**
+     * Whether to record the digest of the modules and of the generated
+     * deployment descriptors, so that a later build only copies the ones
+     * that changed. Combine it with <tt>&lt;archive&gt;&lt;forced&gt;false&lt;/forced&gt;&lt;/archive&gt;</tt>
+     * to keep the EAR file as is when nothing changed.
+     *
+     * @since 2.8
+     */
+    @Parameter( property = "maven.ear.useDigests", defaultValue = "false" )
+    private boolean useDigests;
+
+    /**
+     * The directory where the digests are recorded.
+     *
+     * @since 2.8
+     */
+    @Parameter( defaultValue = "${project.build.directory}/ear-digests" )
+    private File digestDirectory;
+
     private List<EarModule> earModules;
 
+    private List<JarModule> jarModules;
+
     private List<EarModule> allModules;
 
     private JbossConfiguration jbossConfiguration;
@@ -175,6 +200,7 @@ public abstract class AbstractEarMojo
 
         getLog().debug( "Resolving ear modules ..." );
         allModules = new ArrayList<EarModule>();
+        final Set<Artifact> registeredArtifacts = new HashSet<Artifact>();
         try
         {
             if ( modules != null && modules.length > 0 )
@@ -189,6 +215,7 @@ public abstract class AbstractEarMojo
                     module.setEarExecutionContext( earExecutionContext );
                     module.resolveArtifact( project.getArtifacts() );
                     allModules.add( module );
+                    registeredArtifacts.add( module.getArtifact() );
                 }
             }
 
@@ -206,13 +233,14 @@ public abstract class AbstractEarMojo
                 // Artifact is not yet registered and it has neither test, nor a
                 // provided scope, not is it optional
                 ScopeArtifactFilter filter = new ScopeArtifactFilter( Artifact.SCOPE_RUNTIME );
-                if ( !isArtifactRegistered( artifact, allModules ) && !artifact.isOptional()
+                if ( !registeredArtifacts.contains( artifact ) && !artifact.isOptional()
                     && filter.include( artifact ) )
                 {
                     EarModule module = EarModuleFactory.newEarModule( artifact, javaEEVersion, defaultLibBundleDir,
                                                                       includeLibInApplicationXml, typeMappingService );
                     module.setEarExecutionContext( earExecutionContext );
                     allModules.add( module );
+                    registeredArtifacts.add( artifact );
                 }
             }
         }
@@ -222,7 +250,8 @@ public abstract class AbstractEarMojo
         }
 
         // Now we have everything let's built modules which have not been excluded
-        earModules = new ArrayList<EarModule>();
+        final List<EarModule> includedModules = new ArrayList<EarModule>();
+        final List<JarModule> includedJarModules = new ArrayList<JarModule>();
         for ( EarModule earModule :  allModules )
         {
             if ( earModule.isExcluded() )
@@ -231,10 +260,16 @@ public abstract class AbstractEarMojo
             }
             else
             {
-                earModules.add( earModule );
+                includedModules.add( earModule );
+                if ( earModule instanceof JarModule )
+                {
+                    includedJarModules.add( (JarModule) earModule );
+                }
             }
         }
-
+        // Shared as is by the packaging steps and the descriptor writers
+        earModules = Collections.unmodifiableList( includedModules );
+        jarModules = Collections.unmodifiableList( includedJarModules );
     }
 
     protected List<EarModule> getModules()
@@ -246,6 +281,22 @@ public abstract class AbstractEarMojo
         return earModules;
     }
 
+    /**
+     * Returns the {@link JarModule}s of {@link #getModules()}, in the same
+     * order.
+     *
+     * @return the jar modules
+     * @since 2.8
+     */
+    protected List<JarModule> getJarModules()
+    {
+        if ( jarModules == null )
+        {
+            throw new IllegalStateException( "Ear modules have not been initialized" );
+        }
+        return jarModules;
+    }
+
     protected MavenProject getProject()
     {
         return project;
@@ -261,16 +312,54 @@ public abstract class AbstractEarMojo
         return jbossConfiguration;
     }
 
-    private static boolean isArtifactRegistered( Artifact a, List<EarModule> currentList )
+    /**
+     * Reads the digests recorded by the previous build.
+     *
+     * @param name the name of the digest file
+     * @return the digests, or <tt>null</tt> if digests are not used
+     * @throws MojoExecutionException if the digests could not be read
+     */
+    protected ModuleDigests loadDigests( String name )
+        throws MojoExecutionException
+    {
+        if ( !useDigests )
+        {
+            return null;
+        }
+        final File file = new File( digestDirectory, name );
+        try
+        {
+            return ModuleDigests.load( file );
+        }
+        catch ( IOException e )
+        {
+            throw new MojoExecutionException( "Could not read digests [" + file.getAbsolutePath() + "]", e );
+        }
+    }
+
+    /**
+     * Saves the digests recorded by this build.
+     *
+     * @param digests the digests, may be <tt>null</tt>
+     * @param name    the name of the digest file
+     * @throws MojoExecutionException if the digests could not be saved
+     */
+    protected void saveDigests( ModuleDigests digests, String name )
+        throws MojoExecutionException
     {
-        for( EarModule em : currentList )
+        if ( digests == null )
         {
-            if ( em.getArtifact().equals( a ) )
-            {
-                return true;
-            }
+            return;
+        }
+        final File file = new File( digestDirectory, name );
+        try
+        {
+            digests.save( file );
+        }
+        catch ( IOException e )
+        {
+            throw new MojoExecutionException( "Could not write digests [" + file.getAbsolutePath() + "]", e );
         }
-        return false;
     }
 
     /**
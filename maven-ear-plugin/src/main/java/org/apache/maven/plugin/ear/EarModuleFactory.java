@@ -25,7 +25,9 @@ import org.apache.maven.plugin.ear.util.JavaEEVersion;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Builds an {@link EarModule} based on an <tt>Artifact</tt>.
@@ -37,6 +39,8 @@ public final class EarModuleFactory
 {
     public static final List<String> standardArtifactTypes;
 
+    private static final Set<String> standardArtifactTypesSet;
+
     static
     {
         List<String> temp = new ArrayList<String>();
@@ -52,6 +56,7 @@ public final class EarModuleFactory
         temp.add( "wsr" );
         temp.add( "har" );
         standardArtifactTypes = Collections.unmodifiableList( temp );
+        standardArtifactTypesSet = new HashSet<String>( temp );
     }
 
     /**
@@ -153,7 +158,7 @@ public final class EarModuleFactory
      */
     public static boolean isStandardArtifactType( final String type )
     {
-        return standardArtifactTypes.contains( type );
+        return standardArtifactTypesSet.contains( type );
     }
 
 }
@@ -26,6 +26,7 @@ import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugin.ear.util.EarMavenArchiver;
 import org.apache.maven.plugin.ear.util.JavaEEVersion;
+import org.apache.maven.plugin.ear.util.ModuleDigests;
 import org.apache.maven.plugins.annotations.Component;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
@@ -45,20 +46,40 @@ import org.codehaus.plexus.archiver.jar.Manifest.Attribute;
 import org.codehaus.plexus.archiver.jar.ManifestException;
 import org.codehaus.plexus.archiver.manager.ArchiverManager;
 import org.codehaus.plexus.archiver.manager.NoSuchArchiverException;
-import org.codehaus.plexus.archiver.zip.ZipArchiver;
-import org.codehaus.plexus.archiver.zip.ZipUnArchiver;
 import org.codehaus.plexus.util.DirectoryScanner;
 import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.IOUtil;
 import org.codehaus.plexus.util.StringUtils;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileReader;
+import java.io.FileOutputStream;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
 
 /**
  * Builds J2EE Enterprise Archive (EAR) files.
@@ -73,6 +94,7 @@ public class EarMojo
 {
     private static final String[] EMPTY_STRING_ARRAY = { };
 
+    private static final String MANIFEST_ENTRY = "META-INF/MANIFEST.MF";
 
     /**
      * Single directory for extra files to include in the EAR.
@@ -211,22 +233,19 @@ public class EarMojo
     private boolean skinnyWars;
 
     /**
-     * The Jar archiver.
-     */
-    @Component( role = Archiver.class, hint = "jar" )
-    private JarArchiver jarArchiver;
-
-    /**
-     * The Zip archiver.
+     * The number of threads to copy and unpack the modules with. The modules
+     * are copied one after the other by default.
+     *
+     * @since 2.8
      */
-    @Component( role = Archiver.class, hint = "zip" )
-    private ZipArchiver zipArchiver;
+    @Parameter( property = "maven.ear.moduleThreads", defaultValue = "1" )
+    private int moduleThreads = 1;
 
     /**
-     * The Zip Un archiver.
+     * The Jar archiver.
      */
-    @Component( role = UnArchiver.class, hint = "zip" )
-    private ZipUnArchiver zipUnArchiver;
+    @Component( role = Archiver.class, hint = "jar" )
+    private JarArchiver jarArchiver;
 
     /**
      * The archive configuration to use.
@@ -291,70 +310,10 @@ public class EarMojo
         }
 
         // Copy modules
+        final ModuleDigests digests = loadDigests( "modules.txt" );
         try
         {
-            for ( EarModule module : getModules() )
-            {
-                if ( module instanceof JavaModule )
-                {
-                    getLog().warn( "JavaModule is deprecated (" + module + "), please use JarModule instead." );
-                }
-                if ( module instanceof Ejb3Module )
-                {
-                    getLog().warn( "Ejb3Module is deprecated (" + module + "), please use EjbModule instead." );
-                }
-                final File sourceFile = module.getArtifact().getFile();
-                final File destinationFile = buildDestinationFile( getWorkDirectory(), module.getUri() );
-                if ( !sourceFile.isFile() )
-                {
-                    throw new MojoExecutionException(
-                        "Cannot copy a directory: " + sourceFile.getAbsolutePath() + "; Did you package/install " +
-                            module.getArtifact() + "?" );
-                }
-
-                if ( destinationFile.getCanonicalPath().equals( sourceFile.getCanonicalPath() ) )
-                {
-                    getLog().info(
-                        "Skipping artifact [" + module + "], as it already exists at [" + module.getUri() + "]" );
-                    continue;
-                }
-
-                // If the module is within the unpack list, make sure that no unpack wasn't forced (null or true)
-                // If the module is not in the unpack list, it should be true
-                if ( ( unpackTypesList.contains( module.getType() ) &&
-                    ( module.shouldUnpack() == null || module.shouldUnpack().booleanValue() ) ) ||
-                    ( module.shouldUnpack() != null && module.shouldUnpack().booleanValue() ) )
-                {
-                    getLog().info( "Copying artifact [" + module + "] to [" + module.getUri() + "] (unpacked)" );
-                    // Make sure that the destination is a directory to avoid plexus nasty stuff :)
-                    destinationFile.mkdirs();
-                    unpack( sourceFile, destinationFile );
-
-                    if ( skinnyWars && module.changeManifestClasspath() )
-                    {
-                        changeManifestClasspath( module, destinationFile );
-                    }
-                }
-                else
-                {
-                    if ( sourceFile.lastModified() > destinationFile.lastModified() )
-                    {
-                        getLog().info( "Copying artifact [" + module + "] to [" + module.getUri() + "]" );
-                        FileUtils.copyFile( sourceFile, destinationFile );
-
-                        if ( skinnyWars && module.changeManifestClasspath() )
-                        {
-                            changeManifestClasspath( module, destinationFile );
-                        }
-                    }
-                    else
-                    {
-                        getLog().debug(
-                            "Skipping artifact [" + module + "], as it is already up to date at [" + module.getUri() +
-                                "]" );
-                    }
-                }
-            }
+            copyModules( unpackTypesList, digests );
         }
         catch ( IOException e )
         {
@@ -368,6 +327,7 @@ public class EarMojo
         {
             throw new MojoExecutionException( "No Archiver found for EAR modules", e );
         }
+        saveDigests( digests, "modules.txt" );
 
         // Copy source files
         try
@@ -442,6 +402,221 @@ public class EarMojo
         }
     }
 
+    /**
+     * Copies the modules to the work directory, on <tt>moduleThreads</tt>
+     * threads.
+     *
+     * @param unpackTypesList the types of the modules to unpack
+     * @param digests         the digests of the modules, or <tt>null</tt>
+     */
+    void copyModules( final List<String> unpackTypesList, final ModuleDigests digests )
+        throws IOException, ArchiverException, NoSuchArchiverException, MojoExecutionException,
+        MojoFailureException
+    {
+        if ( moduleThreads <= 1 )
+        {
+            for ( EarModule module : getModules() )
+            {
+                copyModule( module, unpackTypesList, digests );
+            }
+            return;
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool( moduleThreads );
+        try
+        {
+            final List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for ( final EarModule module : getModules() )
+            {
+                futures.add( executor.submit( new Callable<Void>()
+                {
+                    public Void call()
+                        throws Exception
+                    {
+                        copyModule( module, unpackTypesList, digests );
+                        return null;
+                    }
+                } ) );
+            }
+            for ( Future<Void> future : futures )
+            {
+                try
+                {
+                    future.get();
+                }
+                catch ( InterruptedException e )
+                {
+                    Thread.currentThread().interrupt();
+                    throw new MojoExecutionException( "Interrupted while copying EAR modules", e );
+                }
+                catch ( ExecutionException e )
+                {
+                    final Throwable cause = e.getCause();
+                    if ( cause instanceof IOException )
+                    {
+                        throw (IOException) cause;
+                    }
+                    if ( cause instanceof ArchiverException )
+                    {
+                        throw (ArchiverException) cause;
+                    }
+                    if ( cause instanceof NoSuchArchiverException )
+                    {
+                        throw (NoSuchArchiverException) cause;
+                    }
+                    if ( cause instanceof MojoExecutionException )
+                    {
+                        throw (MojoExecutionException) cause;
+                    }
+                    if ( cause instanceof MojoFailureException )
+                    {
+                        throw (MojoFailureException) cause;
+                    }
+                    if ( cause instanceof RuntimeException )
+                    {
+                        throw (RuntimeException) cause;
+                    }
+                    throw new MojoExecutionException( "Error copying EAR modules", cause );
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Copies or unpacks the specified module to the work directory.
+     *
+     * @param module          the module
+     * @param unpackTypesList the types of the modules to unpack
+     * @param digests         the digests of the modules, or <tt>null</tt> to compare timestamps
+     */
+    private void copyModule( EarModule module, List<String> unpackTypesList, ModuleDigests digests )
+        throws IOException, ArchiverException, NoSuchArchiverException, MojoExecutionException,
+        MojoFailureException
+    {
+        if ( module instanceof JavaModule )
+        {
+            getLog().warn( "JavaModule is deprecated (" + module + "), please use JarModule instead." );
+        }
+        if ( module instanceof Ejb3Module )
+        {
+            getLog().warn( "Ejb3Module is deprecated (" + module + "), please use EjbModule instead." );
+        }
+        final File sourceFile = module.getArtifact().getFile();
+        final File destinationFile = buildDestinationFile( getWorkDirectory(), module.getUri() );
+        if ( !sourceFile.isFile() )
+        {
+            throw new MojoExecutionException(
+                "Cannot copy a directory: " + sourceFile.getAbsolutePath() + "; Did you package/install " +
+                    module.getArtifact() + "?" );
+        }
+
+        if ( destinationFile.getCanonicalPath().equals( sourceFile.getCanonicalPath() ) )
+        {
+            getLog().info(
+                "Skipping artifact [" + module + "], as it already exists at [" + module.getUri() + "]" );
+            return;
+        }
+
+        // If the module is within the unpack list, make sure that no unpack wasn't forced (null or true)
+        // If the module is not in the unpack list, it should be true
+        final boolean unpack = ( unpackTypesList.contains( module.getType() ) &&
+            ( module.shouldUnpack() == null || module.shouldUnpack().booleanValue() ) ) ||
+            ( module.shouldUnpack() != null && module.shouldUnpack().booleanValue() );
+        final boolean changeManifestClasspath = skinnyWars && module.changeManifestClasspath();
+        String digest = null;
+        if ( digests != null )
+        {
+            digest = ModuleDigests.digest( sourceFile );
+            if ( unpack )
+            {
+                digest = digest + "-unpacked";
+            }
+            if ( changeManifestClasspath )
+            {
+                digest = digest + "-" + getClassPathDigest( module );
+            }
+            if ( digests.isUpToDate( module.getUri(), destinationFile, digest ) )
+            {
+                getLog().debug(
+                    "Skipping artifact [" + module + "], as it is already up to date at [" + module.getUri() + "]" );
+                digests.record( module.getUri(), destinationFile, digest );
+                return;
+            }
+        }
+
+        if ( unpack )
+        {
+            getLog().info( "Copying artifact [" + module + "] to [" + module.getUri() + "] (unpacked)" );
+            // The module may have been copied as is by a previous build
+            if ( destinationFile.isFile() && !destinationFile.delete() )
+            {
+                throw new MojoExecutionException( "Could not delete " + destinationFile.getAbsolutePath() );
+            }
+            // Make sure that the destination is a directory to avoid plexus nasty stuff :)
+            destinationFile.mkdirs();
+            unpack( sourceFile, destinationFile );
+
+            if ( changeManifestClasspath )
+            {
+                changeManifestClasspath( module, destinationFile );
+            }
+        }
+        else
+        {
+            if ( digests != null || sourceFile.lastModified() > destinationFile.lastModified() )
+            {
+                getLog().info( "Copying artifact [" + module + "] to [" + module.getUri() + "]" );
+                // The module may have been unpacked by a previous build
+                if ( destinationFile.isDirectory() )
+                {
+                    FileUtils.deleteDirectory( destinationFile );
+                }
+                FileUtils.copyFile( sourceFile, destinationFile );
+
+                if ( changeManifestClasspath )
+                {
+                    changeManifestClasspath( module, destinationFile );
+                }
+            }
+            else
+            {
+                getLog().debug(
+                    "Skipping artifact [" + module + "], as it is already up to date at [" + module.getUri() +
+                        "]" );
+            }
+        }
+
+        if ( digests != null )
+        {
+            digests.record( module.getUri(), destinationFile, digest );
+        }
+    }
+
+    /**
+     * Returns the digest of what the rewritten manifest of a skinny module
+     * depends on, that is the libraries of the EAR and their location.
+     *
+     * @param module the module
+     * @return the digest
+     */
+    private String getClassPathDigest( EarModule module )
+    {
+        final StringBuilder sb = new StringBuilder();
+        for ( String library : getSkinnyLibraries( module ) )
+        {
+            sb.append( library ).append( '\n' );
+        }
+        for ( JarModule jm : getJarModules() )
+        {
+            sb.append( jm.getBundleFileName() ).append( ' ' ).append( jm.getUri() ).append( '\n' );
+        }
+        return ModuleDigests.digest( sb.toString() );
+    }
+
     public String getApplicationXml()
     {
         return applicationXml;
@@ -662,130 +837,298 @@ public class EarMojo
         return filterWrappers;
     }
 
-    private void changeManifestClasspath( EarModule module, File original )
+    void changeManifestClasspath( EarModule module, File original )
         throws MojoFailureException
     {
         try
         {
-            File workDirectory;
-
             // Handle the case that the destination might be a directory (project-038)
             if ( original.isFile() )
             {
-                // Create a temporary work directory
-                workDirectory =
-                    new File( new File( generatedDescriptorLocation, "temp" ), module.getArtifact().getArtifactId() );
-                workDirectory.mkdirs();
-                getLog().debug( "Created a temporary work directory: " + workDirectory.getAbsolutePath() );
-
-                // Unpack the archive to a temporary work directory
-                zipUnArchiver.setSourceFile( original );
-                zipUnArchiver.setDestDirectory( workDirectory );
-                zipUnArchiver.extract();
+                rewriteManifestClasspath( module, original );
             }
             else
             {
-                workDirectory = original;
+                changeManifestClasspathInDirectory( module, original );
             }
+        }
+        catch ( ManifestException e )
+        {
+            throw new MojoFailureException( e.getMessage() );
+        }
+        catch ( ZipException e )
+        {
+            throw new MojoFailureException( e.getMessage() );
+        }
+        catch ( IOException e )
+        {
+            throw new MojoFailureException( e.getMessage() );
+        }
+    }
 
-            // Create a META-INF/MANIFEST.MF file if it doesn't exist (project-038)
-            File metaInfDirectory = new File( workDirectory, "META-INF" );
-            boolean newMetaInfCreated = metaInfDirectory.mkdirs();
-            if ( newMetaInfCreated )
+    private void changeManifestClasspathInDirectory( EarModule module, File workDirectory )
+        throws IOException, ManifestException
+    {
+        // Create a META-INF/MANIFEST.MF file if it doesn't exist (project-038)
+        File metaInfDirectory = new File( workDirectory, "META-INF" );
+        boolean newMetaInfCreated = metaInfDirectory.mkdirs();
+        if ( newMetaInfCreated )
+        {
+            getLog().debug( "This project did not have a META-INF directory before, so a new directory was created." );
+        }
+        File manifestFile = new File( metaInfDirectory, "MANIFEST.MF" );
+        boolean newManifestCreated = manifestFile.createNewFile();
+        if ( newManifestCreated )
+        {
+            getLog().debug(
+                "This project did not have a META-INF/MANIFEST.MF file before, so a new file was created." );
+        }
+
+        // Read the manifest from disk
+        Manifest mf = readManifest( new FileInputStream( manifestFile ) );
+        updateClassPath( mf );
+
+        // Remove the skinny libraries
+        if ( module.getLibDir() != null )
+        {
+            for ( String entry : getSkinnyLibraries( module ) )
             {
-                getLog().debug(
-                    "This project did not have a META-INF directory before, so a new directory was created." );
+                File artifact = new File( workDirectory, entry );
+                if ( artifact.exists() && !artifact.delete() )
+                {
+                    getLog().error( "Could not delete '" + artifact + "'" );
+                }
             }
-            File manifestFile = new File( metaInfDirectory, "MANIFEST.MF" );
-            boolean newManifestCreated = manifestFile.createNewFile();
-            if ( newManifestCreated )
+        }
+
+        // Write the manifest to disk
+        PrintWriter pw = new PrintWriter( new OutputStreamWriter( new FileOutputStream( manifestFile ), "UTF-8" ) );
+        try
+        {
+            mf.write( pw );
+        }
+        finally
+        {
+            pw.close();
+        }
+    }
+
+    /**
+     * Reads and closes the specified manifest, which is encoded in UTF-8
+     * whether it comes from an archive or from an unpacked module.
+     *
+     * @param in the manifest
+     * @return the manifest
+     */
+    private static Manifest readManifest( InputStream in )
+        throws IOException, ManifestException
+    {
+        try
+        {
+            return new Manifest( new InputStreamReader( in, "UTF-8" ) );
+        }
+        finally
+        {
+            IOUtil.close( in );
+        }
+    }
+
+    /**
+     * Rewrites the manifest of the specified module archive without unpacking
+     * it: the entries are streamed to a new archive, leaving out the libraries
+     * of the EAR and replacing the manifest, which is then renamed over the
+     * original archive.
+     *
+     * @param module   the module
+     * @param original the archive of the module in the work directory
+     */
+    private void rewriteManifestClasspath( EarModule module, File original )
+        throws IOException, ManifestException
+    {
+        final Set<String> skinnyLibraries = new HashSet<String>( getSkinnyLibraries( module ) );
+        final File rewritten = new File( original.getPath() + ".tmp" );
+
+        final ZipFile zipFile = new ZipFile( original );
+        ZipOutputStream out = null;
+        try
+        {
+            out = new ZipOutputStream( new BufferedOutputStream( new FileOutputStream( rewritten ) ) );
+
+            if ( zipFile.getEntry( MANIFEST_ENTRY ) == null )
             {
                 getLog().debug(
                     "This project did not have a META-INF/MANIFEST.MF file before, so a new file was created." );
+                writeManifest( out, new Manifest( new StringReader( "" ) ) );
             }
 
-            // Read the manifest from disk
-            Manifest mf = new Manifest( new FileReader( manifestFile ) );
-            Attribute classPath = mf.getMainSection().getAttribute( "Class-Path" );
-            List<String> classPathElements = new ArrayList<String>();
-
-            if ( classPath != null )
+            final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while ( entries.hasMoreElements() )
             {
-                classPathElements.addAll( Arrays.asList( classPath.getValue().split( " " ) ) );
+                final ZipEntry entry = entries.nextElement();
+                if ( skinnyLibraries.contains( entry.getName() ) )
+                {
+                    continue;
+                }
+                if ( MANIFEST_ENTRY.equals( entry.getName() ) )
+                {
+                    writeManifest( out, readManifest( zipFile.getInputStream( entry ) ) );
+                }
+                else
+                {
+                    copyEntry( zipFile, entry, out );
+                }
             }
-            else
+            out.close();
+            out = null;
+        }
+        finally
+        {
+            IOUtil.close( out );
+            zipFile.close();
+        }
+
+        if ( !original.delete() )
+        {
+            getLog().error( "Could not delete original artifact file " + original );
+        }
+        if ( !rewritten.renameTo( original ) )
+        {
+            FileUtils.copyFile( rewritten, original );
+            rewritten.delete();
+        }
+    }
+
+    private void writeManifest( ZipOutputStream out, Manifest mf )
+        throws IOException, ManifestException
+    {
+        updateClassPath( mf );
+        out.putNextEntry( new ZipEntry( MANIFEST_ENTRY ) );
+        final PrintWriter pw = new PrintWriter( new OutputStreamWriter( out, "UTF-8" ) );
+        mf.write( pw );
+        // Flush only, closing the writer would close the archive
+        pw.flush();
+        out.closeEntry();
+    }
+
+    private static void copyEntry( ZipFile zipFile, ZipEntry entry, ZipOutputStream out )
+        throws IOException
+    {
+        final ZipEntry copy = new ZipEntry( entry.getName() );
+        copy.setTime( entry.getTime() );
+        copy.setExtra( entry.getExtra() );
+        copy.setComment( entry.getComment() );
+        if ( entry.getMethod() == ZipEntry.STORED )
+        {
+            copy.setMethod( ZipEntry.STORED );
+            copy.setSize( entry.getSize() );
+            copy.setCompressedSize( entry.getSize() );
+            copy.setCrc( entry.getCrc() );
+        }
+        out.putNextEntry( copy );
+        if ( !entry.isDirectory() )
+        {
+            final InputStream in = zipFile.getInputStream( entry );
+            try
             {
-                classPath = new Attribute( "Class-Path", "" );
-                mf.getMainSection().addConfiguredAttribute( classPath );
+                IOUtil.copy( in, out );
             }
-
-            // Modify the classpath entries in the manifest
-            for ( EarModule o : getModules() )
+            finally
             {
-                if ( o instanceof JarModule )
-                {
-                    JarModule jm = (JarModule) o;
+                IOUtil.close( in );
+            }
+        }
+        out.closeEntry();
+    }
 
-                    if ( module.getLibDir() != null )
-                    {
-                        File artifact =
-                            new File( new File( workDirectory, module.getLibDir() ), jm.getBundleFileName() );
-
-                        if ( artifact.exists() )
-                        {
-                            if ( !artifact.delete() )
-                            {
-                                getLog().error( "Could not delete '" + artifact + "'" );
-                            }
-                        }
-                    }
+    /**
+     * Replaces the libraries of the EAR in the <tt>Class-Path</tt> of the
+     * specified manifest with their location in the EAR.
+     *
+     * @param mf the manifest of a module
+     */
+    private void updateClassPath( Manifest mf )
+        throws ManifestException
+    {
+        Attribute classPath = mf.getMainSection().getAttribute( "Class-Path" );
+        List<String> classPathElements = new ArrayList<String>();
 
-                    if ( classPathElements.contains( jm.getBundleFileName() ) )
-                    {
-                        classPathElements.set( classPathElements.indexOf( jm.getBundleFileName() ), jm.getUri() );
-                    }
-                    else
-                    {
-                        classPathElements.add( jm.getUri() );
-                    }
-                }
-            }
-            classPath.setValue( StringUtils.join( classPathElements.iterator(), " " ) );
+        if ( classPath != null )
+        {
+            classPathElements.addAll( Arrays.asList( classPath.getValue().split( " " ) ) );
+        }
+        else
+        {
+            classPath = new Attribute( "Class-Path", "" );
+            mf.getMainSection().addConfiguredAttribute( classPath );
+        }
 
-            // Write the manifest to disk
-            PrintWriter pw = new PrintWriter( manifestFile );
-            mf.write( pw );
-            pw.close();
+        // Index the positions of the entries, rather than searching the list for each library
+        final Map<String, SortedSet<Integer>> positions = new HashMap<String, SortedSet<Integer>>();
+        for ( int i = 0; i < classPathElements.size(); i++ )
+        {
+            addPosition( positions, classPathElements.get( i ), i );
+        }
 
-            if ( original.isFile() )
+        // Modify the classpath entries in the manifest
+        for ( JarModule jm : getJarModules() )
+        {
+            final SortedSet<Integer> bundlePositions = positions.get( jm.getBundleFileName() );
+            if ( bundlePositions != null && !bundlePositions.isEmpty() )
             {
-                // Pack up the archive again from the work directory
-                if ( !original.delete() )
-                {
-                    getLog().error( "Could not delete original artifact file " + original );
-                }
-
-                getLog().debug( "Zipping module" );
-                zipArchiver.setDestFile( original );
-                zipArchiver.addDirectory( workDirectory );
-                zipArchiver.createArchive();
+                final Integer index = bundlePositions.first();
+                bundlePositions.remove( index );
+                classPathElements.set( index.intValue(), jm.getUri() );
+                addPosition( positions, jm.getUri(), index.intValue() );
+            }
+            else
+            {
+                classPathElements.add( jm.getUri() );
+                addPosition( positions, jm.getUri(), classPathElements.size() - 1 );
             }
         }
-        catch ( ManifestException e )
+        classPath.setValue( StringUtils.join( classPathElements.iterator(), " " ) );
+    }
+
+    private static void addPosition( Map<String, SortedSet<Integer>> positions, String element, int index )
+    {
+        SortedSet<Integer> elementPositions = positions.get( element );
+        if ( elementPositions == null )
         {
-            throw new MojoFailureException( e.getMessage() );
+            elementPositions = new TreeSet<Integer>();
+            positions.put( element, elementPositions );
         }
-        catch ( ZipException e )
+        elementPositions.add( Integer.valueOf( index ) );
+    }
+
+    /**
+     * Returns the paths of the libraries of the EAR in the library directory
+     * of the specified module, relative to the root of the module.
+     *
+     * @param module the module
+     * @return the paths, separated by slashes
+     */
+    private List<String> getSkinnyLibraries( EarModule module )
+    {
+        final List<String> result = new ArrayList<String>();
+        if ( module.getLibDir() == null )
         {
-            throw new MojoFailureException( e.getMessage() );
+            return result;
         }
-        catch ( IOException e )
+
+        String libDir = module.getLibDir().replace( '\\', '/' );
+        while ( libDir.startsWith( "/" ) )
         {
-            throw new MojoFailureException( e.getMessage() );
+            libDir = libDir.substring( 1 );
         }
-        catch ( ArchiverException e )
+        if ( libDir.length() > 0 && !libDir.endsWith( "/" ) )
         {
-            throw new MojoFailureException( e.getMessage() );
+            libDir = libDir + "/";
+        }
+
+        for ( JarModule jm : getJarModules() )
+        {
+            result.add( libDir + jm.getBundleFileName() );
         }
+        return result;
     }
 }
@@ -22,6 +22,7 @@ package org.apache.maven.plugin.ear;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugin.ear.util.JavaEEVersion;
+import org.apache.maven.plugin.ear.util.ModuleDigests;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
@@ -107,6 +108,8 @@ public class GenerateApplicationXmlMojo
         // Initializes ear modules
         super.execute();
 
+        final ModuleDigests digests = loadDigests( "descriptors.txt" );
+
         // Handle application.xml
         if ( !generateApplicationXml.booleanValue() )
         {
@@ -129,8 +132,7 @@ public class GenerateApplicationXmlMojo
 
             try
             {
-                FileUtils.copyFileToDirectory( new File( generatedDescriptorLocation, "application.xml" ),
-                                               new File( getWorkDirectory(), "META-INF" ) );
+                copyDescriptor( "application.xml", digests );
             }
             catch ( IOException e )
             {
@@ -142,7 +144,6 @@ public class GenerateApplicationXmlMojo
         if ( getJbossConfiguration() == null )
         {
             getLog().debug( "Generation of jboss-app.xml is disabled" );
-            return;
         }
         else
         {
@@ -159,14 +160,47 @@ public class GenerateApplicationXmlMojo
 
             try
             {
-                FileUtils.copyFileToDirectory( new File( generatedDescriptorLocation, "jboss-app.xml" ),
-                                               new File( getWorkDirectory(), "META-INF" ) );
+                copyDescriptor( "jboss-app.xml", digests );
             }
             catch ( IOException e )
             {
                 throw new MojoExecutionException( "Unable to copy jboss-app.xml to final destination", e );
             }
         }
+
+        saveDigests( digests, "descriptors.txt" );
+    }
+
+    /**
+     * Copies a generated deployment descriptor to the working directory,
+     * unless the digests show that the working directory already has it.
+     *
+     * @param name    the name of the descriptor
+     * @param digests the digests, or <tt>null</tt> to always copy the descriptor
+     */
+    private void copyDescriptor( String name, ModuleDigests digests )
+        throws IOException
+    {
+        final File descriptor = new File( generatedDescriptorLocation, name );
+        final File metaInfDir = new File( getWorkDirectory(), META_INF );
+        if ( digests == null )
+        {
+            FileUtils.copyFileToDirectory( descriptor, metaInfDir );
+            return;
+        }
+
+        final String path = META_INF + "/" + name;
+        final String digest = ModuleDigests.digest( descriptor );
+        final File target = new File( metaInfDir, name );
+        if ( digests.isUpToDate( path, target, digest ) )
+        {
+            getLog().debug( "Skipping " + name + ", as it is already up to date" );
+        }
+        else
+        {
+            FileUtils.copyFileToDirectory( descriptor, metaInfDir );
+        }
+        digests.record( path, target, digest );
     }
 
     /**
@@ -19,6 +19,11 @@ package org.apache.maven.plugin.ear.util;
  * under the License.
  */
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -32,7 +37,10 @@ import org.apache.maven.artifact.Artifact;
  */
 public class ArtifactRepository
 {
-    private final Set<Artifact> artifacts;
+    /**
+     * The artifacts, indexed by <tt>groupId:artifactId</tt>.
+     */
+    private final Map<String, List<Artifact>> artifacts;
 
     private final String mainArtifactId;
 
@@ -48,7 +56,18 @@ public class ArtifactRepository
     public ArtifactRepository( Set<Artifact> artifacts, String mainArtifactId,
                                ArtifactTypeMappingService artifactTypeMappingService )
     {
-        this.artifacts = artifacts;
+        this.artifacts = new HashMap<String, List<Artifact>>();
+        for ( Artifact a : artifacts )
+        {
+            final String key = getKey( a.getGroupId(), a.getArtifactId() );
+            List<Artifact> candidates = this.artifacts.get( key );
+            if ( candidates == null )
+            {
+                candidates = new ArrayList<Artifact>( 1 );
+                this.artifacts.put( key, candidates );
+            }
+            candidates.add( a );
+        }
         this.mainArtifactId = mainArtifactId;
         this.artifactTypeMappingService = artifactTypeMappingService;
     }
@@ -131,12 +150,15 @@ public class ArtifactRepository
     public Set<Artifact> getArtifacts( String groupId, String artifactId, String type )
     {
         final Set<Artifact> result = new TreeSet<Artifact>();
-        for ( Artifact a : artifacts )
+        List<Artifact> candidates = artifacts.get( getKey( groupId, artifactId ) );
+        if ( candidates == null )
+        {
+            candidates = Collections.emptyList();
+        }
+        for ( Artifact a : candidates )
         {
-            // If the groupId, the artifactId and if the
-            // artifact's type is known, then we have found a candidate.
-            if ( a.getGroupId().equals( groupId ) && a.getArtifactId().equals( artifactId )
-                && artifactTypeMappingService.isMappedToType( type, a.getType() ) )
+            // If the artifact's type is known, then we have found a candidate.
+            if ( artifactTypeMappingService.isMappedToType( type, a.getType() ) )
             {
                 result.add( a );
 
@@ -144,4 +166,9 @@ public class ArtifactRepository
         }
         return result;
     }
+
+    private static String getKey( String groupId, String artifactId )
+    {
+        return groupId + ":" + artifactId;
+    }
 }
\ No newline at end of file
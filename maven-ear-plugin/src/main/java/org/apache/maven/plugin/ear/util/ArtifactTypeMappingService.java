@@ -19,10 +19,10 @@ package org.apache.maven.plugin.ear.util;
  * under the License.
  */
 
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.maven.plugin.ear.EarModuleFactory;
 import org.apache.maven.plugin.ear.EarPluginException;
@@ -44,15 +44,15 @@ public class ArtifactTypeMappingService
 
     static final String MAPPING_ATTRIBUTE = "mapping";
 
-    // A standard type to a list of customType
-    private final Map<String, List<String>> typeMappings;
+    // A standard type to a set of customType
+    private final Map<String, Set<String>> typeMappings;
 
     // The user-defined mapping for direct access
     private final Map<String, String> customMappings;
 
     public ArtifactTypeMappingService()
     {
-        this.typeMappings = new HashMap<String, List<String>>();
+        this.typeMappings = new HashMap<String, Set<String>>();
         this.customMappings = new HashMap<String, String>();
         init();
     }
@@ -101,7 +101,7 @@ public class ArtifactTypeMappingService
                 customMappings.put( customType, mapping );
 
                 // Register the custom mapping to its standard type
-                List<String> typeMapping = typeMappings.get( mapping );
+                Set<String> typeMapping = typeMappings.get( mapping );
                 typeMapping.add( customType );
             }
         }
@@ -123,7 +123,7 @@ public class ArtifactTypeMappingService
                 "Artifact type[" + standardType + "] is not a standard Ear artifact type["
                     + EarModuleFactory.getStandardArtifactTypes() + "]" );
         }
-        final List<String> typeMappings = this.typeMappings.get( standardType );
+        final Set<String> typeMappings = this.typeMappings.get( standardType );
         return typeMappings.contains( customType );
 
     }
@@ -143,7 +143,7 @@ public class ArtifactTypeMappingService
         {
             throw new IllegalStateException( "custom type could not be null." );
         }
-        else if ( EarModuleFactory.getStandardArtifactTypes().contains( type ) )
+        else if ( EarModuleFactory.isStandardArtifactType( type ) )
         {
             return type;
         }
@@ -168,7 +168,7 @@ public class ArtifactTypeMappingService
         // Initialize the mapping with the standard artifact types
         for ( String type : EarModuleFactory.getStandardArtifactTypes() )
         {
-            List<String> typeMapping = new ArrayList<String>();
+            Set<String> typeMapping = new HashSet<String>();
             typeMapping.add( type );
             this.typeMappings.put( type, typeMapping );
         }
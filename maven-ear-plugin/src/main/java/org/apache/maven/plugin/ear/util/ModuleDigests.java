@@ -0,0 +1,273 @@
+package org.apache.maven.plugin.ear.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.codehaus.plexus.util.IOUtil;
+import org.codehaus.plexus.util.ReaderFactory;
+import org.codehaus.plexus.util.WriterFactory;
+
+/**
+ * Records the SHA-1 digest of the modules and of the deployment descriptors
+ * put in the EAR working directory, so that a later build only copies what
+ * actually changed.
+ * <p/>
+ * Each line of the digest file holds the size of the file in the working
+ * directory (<tt>-1</tt> for an unpacked module), the digest of its source
+ * and its path in the EAR, separated by a space. Only the paths recorded
+ * by the last build are saved.
+ *
+ * @version $Id$
+ * @since 2.8
+ */
+public class ModuleDigests
+{
+
+    private static final int BUFFER_SIZE = 65536;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Map<String, Entry> previous;
+
+    private final Map<String, Entry> current = new TreeMap<String, Entry>();
+
+    private ModuleDigests( Map<String, Entry> previous )
+    {
+        this.previous = previous;
+    }
+
+    /**
+     * Reads the digests saved by a previous build. Returns empty digests if
+     * the file does not exist.
+     *
+     * @param file the digest file
+     * @return the digests
+     * @throws IOException if the file could not be read
+     */
+    public static ModuleDigests load( File file )
+        throws IOException
+    {
+        final Map<String, Entry> entries = new HashMap<String, Entry>();
+        if ( file.exists() )
+        {
+            BufferedReader reader = null;
+            try
+            {
+                reader = new BufferedReader( ReaderFactory.newReader( file, ReaderFactory.UTF_8 ) );
+                for ( String line = reader.readLine(); line != null; line = reader.readLine() )
+                {
+                    final int sizeEnd = line.indexOf( ' ' );
+                    final int digestEnd = sizeEnd < 0 ? -1 : line.indexOf( ' ', sizeEnd + 1 );
+                    if ( digestEnd < 0 )
+                    {
+                        // not written by this class, ignore it
+                        continue;
+                    }
+                    try
+                    {
+                        final long size = Long.parseLong( line.substring( 0, sizeEnd ) );
+                        entries.put( line.substring( digestEnd + 1 ),
+                                     new Entry( size, line.substring( sizeEnd + 1, digestEnd ) ) );
+                    }
+                    catch ( NumberFormatException e )
+                    {
+                        // same as above
+                    }
+                }
+            }
+            finally
+            {
+                IOUtil.close( reader );
+            }
+        }
+        return new ModuleDigests( entries );
+    }
+
+    /**
+     * Saves the paths recorded by this build.
+     *
+     * @param file the digest file
+     * @throws IOException if the file could not be saved
+     */
+    public synchronized void save( File file )
+        throws IOException
+    {
+        if ( !file.getParentFile().exists() && !file.getParentFile().mkdirs() )
+        {
+            throw new IOException( "Could not create parent [" + file.getParentFile().getAbsolutePath() + "]" );
+        }
+
+        PrintWriter writer = null;
+        try
+        {
+            writer = new PrintWriter( WriterFactory.newWriter( file, WriterFactory.UTF_8 ) );
+            for ( Map.Entry<String, Entry> mapEntry : current.entrySet() )
+            {
+                writer.print( mapEntry.getValue().size );
+                writer.print( ' ' );
+                writer.print( mapEntry.getValue().digest );
+                writer.print( ' ' );
+                writer.print( mapEntry.getKey() );
+                writer.print( '\n' );
+            }
+            writer.close();
+            if ( writer.checkError() )
+            {
+                throw new IOException( "Could not write [" + file.getAbsolutePath() + "]" );
+            }
+        }
+        finally
+        {
+            IOUtil.close( writer );
+        }
+    }
+
+    /**
+     * Specify if the specified destination already holds the source with
+     * the given digest, that is if the previous build recorded this digest
+     * for the same path and the destination was not changed since.
+     *
+     * @param path        the path in the EAR
+     * @param destination the file or the unpacked directory in the working directory
+     * @param digest      the digest of the source
+     * @return true if the destination does not need to be written again
+     */
+    public synchronized boolean isUpToDate( String path, File destination, String digest )
+    {
+        final Entry entry = previous.get( path );
+        if ( entry == null || !entry.digest.equals( digest ) )
+        {
+            return false;
+        }
+        if ( entry.size < 0 )
+        {
+            return destination.isDirectory();
+        }
+        return destination.isFile() && destination.length() == entry.size;
+    }
+
+    /**
+     * Records the destination written for the specified path.
+     *
+     * @param path        the path in the EAR
+     * @param destination the file or the unpacked directory in the working directory
+     * @param digest      the digest of the source
+     */
+    public synchronized void record( String path, File destination, String digest )
+    {
+        current.put( path, new Entry( destination.isDirectory() ? -1 : destination.length(), digest ) );
+    }
+
+    /**
+     * Computes the digest of the specified file.
+     *
+     * @param file the file
+     * @return the hexadecimal SHA-1 digest of the content of the file
+     * @throws IOException if the file could not be read
+     */
+    public static String digest( File file )
+        throws IOException
+    {
+        final MessageDigest messageDigest = newMessageDigest();
+        InputStream in = null;
+        try
+        {
+            in = new FileInputStream( file );
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            for ( int n = in.read( buffer ); n != -1; n = in.read( buffer ) )
+            {
+                messageDigest.update( buffer, 0, n );
+            }
+        }
+        finally
+        {
+            IOUtil.close( in );
+        }
+        return toHex( messageDigest.digest() );
+    }
+
+    /**
+     * Computes the digest of the specified text, such as a configuration
+     * that the content of a destination depends on.
+     *
+     * @param text the text
+     * @return the hexadecimal SHA-1 digest of the UTF-8 bytes of the text
+     */
+    public static String digest( String text )
+    {
+        try
+        {
+            return toHex( newMessageDigest().digest( text.getBytes( "UTF-8" ) ) );
+        }
+        catch ( UnsupportedEncodingException e )
+        {
+            throw new IllegalStateException( "UTF-8 is not supported" );
+        }
+    }
+
+    private static MessageDigest newMessageDigest()
+    {
+        try
+        {
+            return MessageDigest.getInstance( "SHA-1" );
+        }
+        catch ( NoSuchAlgorithmException e )
+        {
+            throw new IllegalStateException( "SHA-1 is not supported" );
+        }
+    }
+
+    private static String toHex( byte[] bytes )
+    {
+        final char[] chars = new char[bytes.length * 2];
+        for ( int i = 0; i < bytes.length; i++ )
+        {
+            chars[i * 2] = HEX[( bytes[i] >> 4 ) & 0xf];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xf];
+        }
+        return new String( chars );
+    }
+
+    private static class Entry
+    {
+
+        private final long size;
+
+        private final String digest;
+
+        Entry( long size, String digest )
+        {
+            this.size = size;
+            this.digest = digest;
+        }
+    }
+}
@@ -0,0 +1,437 @@
+package org.apache.maven.plugin.ear;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.Manifest;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.ear.util.ModuleDigests;
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.IOUtil;
+import org.codehaus.plexus.util.ReflectionUtils;
+
+/**
+ * Tests the copy of the modules and the rewriting of the manifest of the
+ * skinny modules by {@link EarMojo}.
+ */
+public class EarMojoTest
+    extends AbstractEarTest
+{
+
+    private static final String MANIFEST =
+        "Manifest-Version: 1.0\r\nClass-Path: commons-lang-2.5.jar other.jar\r\nImplementation-Title: caf\u00e9\r\n\r\n";
+
+    private File directory;
+
+    private File workDirectory;
+
+    private TestEarMojo mojo;
+
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+        directory = File.createTempFile( "ear-mojo", "" );
+        directory.delete();
+        workDirectory = new File( directory, "work" );
+        workDirectory.mkdirs();
+
+        final File libraryFile = new File( directory, "commons-lang-2.5.jar" );
+        FileUtils.fileWrite( libraryFile.getAbsolutePath(), "commons-lang" );
+        final JarModule library = new JarModule( createArtifact( "commons-lang", "jar", libraryFile ), "lib", null );
+        library.bundleFileName = "commons-lang-2.5.jar";
+        library.setUri( "lib/commons-lang-2.5.jar" );
+
+        mojo = new TestEarMojo();
+        mojo.workDirectory = workDirectory;
+        mojo.jarModules.add( library );
+        mojo.modules.add( library );
+        ReflectionUtils.setVariableValueInObject( mojo, "skinnyWars", Boolean.TRUE );
+    }
+
+    protected void tearDown()
+        throws Exception
+    {
+        FileUtils.deleteDirectory( directory );
+        super.tearDown();
+    }
+
+    public void testRewriteManifestClasspathOfArchive()
+        throws Exception
+    {
+        final File war = createWar( "web.war", MANIFEST );
+
+        mojo.changeManifestClasspath( createWebModule( "web", war ), war );
+
+        final ZipFile zipFile = new ZipFile( war );
+        try
+        {
+            assertEquals( ZipEntry.STORED, zipFile.getEntry( "WEB-INF/web.xml" ).getMethod() );
+            assertEquals( ZipEntry.DEFLATED, zipFile.getEntry( "index.jsp" ).getMethod() );
+            assertNull( zipFile.getEntry( "WEB-INF/lib/commons-lang-2.5.jar" ) );
+            assertNotNull( zipFile.getEntry( "WEB-INF/lib/own.jar" ) );
+            assertEquals( "<web-app/>", read( zipFile, "WEB-INF/web.xml" ) );
+
+            final Manifest mf = new Manifest( zipFile.getInputStream( zipFile.getEntry( "META-INF/MANIFEST.MF" ) ) );
+            assertEquals( "lib/commons-lang-2.5.jar other.jar", mf.getMainAttributes().getValue( "Class-Path" ) );
+            assertEquals( "caf\u00e9", mf.getMainAttributes().getValue( "Implementation-Title" ) );
+        }
+        finally
+        {
+            zipFile.close();
+        }
+        assertFalse( new File( war.getPath() + ".tmp" ).exists() );
+    }
+
+    public void testRewriteMissingManifestOfArchive()
+        throws Exception
+    {
+        final File war = createWar( "web.war", null );
+
+        mojo.changeManifestClasspath( createWebModule( "web", war ), war );
+
+        final ZipFile zipFile = new ZipFile( war );
+        try
+        {
+            final Manifest mf = new Manifest( zipFile.getInputStream( zipFile.getEntry( "META-INF/MANIFEST.MF" ) ) );
+            assertEquals( "lib/commons-lang-2.5.jar", mf.getMainAttributes().getValue( "Class-Path" ) );
+            assertNull( zipFile.getEntry( "WEB-INF/lib/commons-lang-2.5.jar" ) );
+            assertEquals( ZipEntry.STORED, zipFile.getEntry( "WEB-INF/web.xml" ).getMethod() );
+        }
+        finally
+        {
+            zipFile.close();
+        }
+    }
+
+    public void testRewriteManifestClasspathOfDirectory()
+        throws Exception
+    {
+        final File war = new File( workDirectory, "web.war" );
+        createFile( war, "WEB-INF/lib/commons-lang-2.5.jar", "commons-lang".getBytes( "UTF-8" ) );
+        createFile( war, "WEB-INF/lib/own.jar", "own".getBytes( "UTF-8" ) );
+        createFile( war, "META-INF/MANIFEST.MF", MANIFEST.getBytes( "UTF-8" ) );
+
+        mojo.changeManifestClasspath( createWebModule( "web", war ), war );
+
+        assertFalse( new File( war, "WEB-INF/lib/commons-lang-2.5.jar" ).exists() );
+        assertTrue( new File( war, "WEB-INF/lib/own.jar" ).exists() );
+        final Manifest mf = readManifest( new File( war, "META-INF/MANIFEST.MF" ) );
+        assertEquals( "lib/commons-lang-2.5.jar other.jar", mf.getMainAttributes().getValue( "Class-Path" ) );
+        assertEquals( "caf\u00e9", mf.getMainAttributes().getValue( "Implementation-Title" ) );
+    }
+
+    public void testRewriteMissingManifestOfDirectory()
+        throws Exception
+    {
+        final File war = new File( workDirectory, "web.war" );
+        createFile( war, "WEB-INF/lib/commons-lang-2.5.jar", "commons-lang".getBytes( "UTF-8" ) );
+
+        mojo.changeManifestClasspath( createWebModule( "web", war ), war );
+
+        assertFalse( new File( war, "WEB-INF/lib/commons-lang-2.5.jar" ).exists() );
+        final Manifest mf = readManifest( new File( war, "META-INF/MANIFEST.MF" ) );
+        assertEquals( "lib/commons-lang-2.5.jar", mf.getMainAttributes().getValue( "Class-Path" ) );
+    }
+
+    public void testCopyModulesOnSeveralThreads()
+        throws Exception
+    {
+        ReflectionUtils.setVariableValueInObject( mojo, "moduleThreads", Integer.valueOf( 3 ) );
+        final File sources = new File( directory, "sources" );
+        for ( int i = 0; i < 6; i++ )
+        {
+            mojo.modules.add( createWebModule( "web" + i, createWar( "../sources/web" + i + ".war", MANIFEST ) ) );
+        }
+
+        mojo.copyModules( new ArrayList<String>(), null );
+
+        assertTrue( new File( workDirectory, "lib/commons-lang-2.5.jar" ).isFile() );
+        for ( int i = 0; i < 6; i++ )
+        {
+            final ZipFile zipFile = new ZipFile( new File( workDirectory, "web" + i + ".war" ) );
+            try
+            {
+                assertNull( zipFile.getEntry( "WEB-INF/lib/commons-lang-2.5.jar" ) );
+                final Manifest mf =
+                    new Manifest( zipFile.getInputStream( zipFile.getEntry( "META-INF/MANIFEST.MF" ) ) );
+                assertEquals( "lib/commons-lang-2.5.jar other.jar", mf.getMainAttributes().getValue( "Class-Path" ) );
+            }
+            finally
+            {
+                zipFile.close();
+            }
+        }
+        // The sources are left untouched
+        final ZipFile source = new ZipFile( new File( sources, "web0.war" ) );
+        try
+        {
+            assertNotNull( source.getEntry( "WEB-INF/lib/commons-lang-2.5.jar" ) );
+        }
+        finally
+        {
+            source.close();
+        }
+    }
+
+    public void testCopyModulesOnSeveralThreadsReportsFailure()
+        throws Exception
+    {
+        ReflectionUtils.setVariableValueInObject( mojo, "moduleThreads", Integer.valueOf( 2 ) );
+        mojo.modules.clear();
+        mojo.modules.add( createWebModule( "web", createWar( "../web.war", MANIFEST ) ) );
+        mojo.modules.add( createWebModule( "broken", directory ) );
+
+        try
+        {
+            mojo.copyModules( new ArrayList<String>(), null );
+            fail( "The module copied from a directory should have failed" );
+        }
+        catch ( MojoExecutionException e )
+        {
+            assertTrue( e.getMessage(), e.getMessage().startsWith( "Cannot copy a directory" ) );
+        }
+    }
+
+    public void testToggledUnpackIsCopiedAgain()
+        throws Exception
+    {
+        final File digestFile = new File( directory, "digests/modules.txt" );
+        final WebModule module = createWebModule( "web", createWar( "../web.war", MANIFEST ) );
+        mojo.modules.add( module );
+        final File destination = new File( workDirectory, "web.war" );
+
+        module.unpack = Boolean.TRUE;
+        copyModules( digestFile );
+        assertTrue( new File( destination, "WEB-INF/web.xml" ).isFile() );
+        assertFalse( new File( destination, "WEB-INF/lib/commons-lang-2.5.jar" ).exists() );
+
+        module.unpack = Boolean.FALSE;
+        copyModules( digestFile );
+        assertTrue( destination.isFile() );
+        final ZipFile zipFile = new ZipFile( destination );
+        try
+        {
+            assertNotNull( zipFile.getEntry( "WEB-INF/web.xml" ) );
+            assertNull( zipFile.getEntry( "WEB-INF/lib/commons-lang-2.5.jar" ) );
+        }
+        finally
+        {
+            zipFile.close();
+        }
+
+        module.unpack = Boolean.TRUE;
+        copyModules( digestFile );
+        assertTrue( new File( destination, "WEB-INF/web.xml" ).isFile() );
+
+        // Nothing changed since the previous build
+        final long lastModified = destination.lastModified() - 10000;
+        destination.setLastModified( lastModified );
+        copyModules( digestFile );
+        assertEquals( lastModified, destination.lastModified() );
+    }
+
+    private void copyModules( File digestFile )
+        throws Exception
+    {
+        final ModuleDigests digests = ModuleDigests.load( digestFile );
+        mojo.copyModules( new ArrayList<String>(), digests );
+        digests.save( digestFile );
+    }
+
+    private WebModule createWebModule( String artifactId, File file )
+    {
+        final WebModule module = new WebModule( createArtifact( artifactId, "war", file ) );
+        module.setUri( artifactId + ".war" );
+        return module;
+    }
+
+    private Artifact createArtifact( String artifactId, String type, final File file )
+    {
+        return new ArtifactTestStub( DEFAULT_GROUPID, artifactId, type, null )
+        {
+            public File getFile()
+            {
+                return file;
+            }
+        };
+    }
+
+    /**
+     * Creates a WAR in the work directory, with a stored and a deflated
+     * entry and two libraries, one of which is a library of the EAR.
+     */
+    private File createWar( String name, String manifest )
+        throws IOException
+    {
+        final File war = new File( workDirectory, name );
+        war.getParentFile().mkdirs();
+        final ZipOutputStream out = new ZipOutputStream( new FileOutputStream( war ) );
+        try
+        {
+            if ( manifest != null )
+            {
+                addEntry( out, "META-INF/MANIFEST.MF", manifest.getBytes( "UTF-8" ), ZipEntry.DEFLATED );
+            }
+            addEntry( out, "WEB-INF/web.xml", "<web-app/>".getBytes( "UTF-8" ), ZipEntry.STORED );
+            addEntry( out, "index.jsp", "<html/>".getBytes( "UTF-8" ), ZipEntry.DEFLATED );
+            addEntry( out, "WEB-INF/lib/commons-lang-2.5.jar", "commons-lang".getBytes( "UTF-8" ),
+                      ZipEntry.DEFLATED );
+            addEntry( out, "WEB-INF/lib/own.jar", "own".getBytes( "UTF-8" ), ZipEntry.DEFLATED );
+        }
+        finally
+        {
+            out.close();
+        }
+        return war;
+    }
+
+    private static void addEntry( ZipOutputStream out, String name, byte[] content, int method )
+        throws IOException
+    {
+        final ZipEntry entry = new ZipEntry( name );
+        entry.setMethod( method );
+        if ( method == ZipEntry.STORED )
+        {
+            final CRC32 crc = new CRC32();
+            crc.update( content );
+            entry.setSize( content.length );
+            entry.setCompressedSize( content.length );
+            entry.setCrc( crc.getValue() );
+        }
+        out.putNextEntry( entry );
+        out.write( content );
+        out.closeEntry();
+    }
+
+    private static void createFile( File directory, String name, byte[] content )
+        throws IOException
+    {
+        final File file = new File( directory, name );
+        file.getParentFile().mkdirs();
+        final FileOutputStream out = new FileOutputStream( file );
+        try
+        {
+            out.write( content );
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+    private static String read( ZipFile zipFile, String name )
+        throws IOException
+    {
+        final InputStream in = zipFile.getInputStream( zipFile.getEntry( name ) );
+        try
+        {
+            return IOUtil.toString( in, "UTF-8" );
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+    private static Manifest readManifest( File file )
+        throws IOException
+    {
+        final InputStream in = new FileInputStream( file );
+        try
+        {
+            return new Manifest( in );
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+    /**
+     * An {@link EarMojo} with given modules, rather than the dependencies of
+     * a project, which unpacks the modules without an archiver.
+     */
+    private static class TestEarMojo
+        extends EarMojo
+    {
+
+        private final List<EarModule> modules = new ArrayList<EarModule>();
+
+        private final List<JarModule> jarModules = new ArrayList<JarModule>();
+
+        private File workDirectory;
+
+        protected List<EarModule> getModules()
+        {
+            return modules;
+        }
+
+        protected List<JarModule> getJarModules()
+        {
+            return jarModules;
+        }
+
+        protected File getWorkDirectory()
+        {
+            return workDirectory;
+        }
+
+        public void unpack( File source, File destDir )
+            throws IOException
+        {
+            final ZipFile zipFile = new ZipFile( source );
+            try
+            {
+                final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+                while ( entries.hasMoreElements() )
+                {
+                    final ZipEntry entry = entries.nextElement();
+                    final InputStream in = zipFile.getInputStream( entry );
+                    try
+                    {
+                        createFile( destDir, entry.getName(), IOUtil.toByteArray( in ) );
+                    }
+                    finally
+                    {
+                        in.close();
+                    }
+                }
+            }
+            finally
+            {
+                zipFile.close();
+            }
+        }
+    }
+}
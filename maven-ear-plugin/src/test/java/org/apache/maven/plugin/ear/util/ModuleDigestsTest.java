@@ -0,0 +1,121 @@
+package org.apache.maven.plugin.ear.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+
+import junit.framework.TestCase;
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Tests {@link ModuleDigests}.
+ */
+public class ModuleDigestsTest
+    extends TestCase
+{
+
+    private File directory;
+
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+        directory = File.createTempFile( "ear-digests", "" );
+        directory.delete();
+        directory.mkdirs();
+    }
+
+    protected void tearDown()
+        throws Exception
+    {
+        FileUtils.deleteDirectory( directory );
+        super.tearDown();
+    }
+
+    public void testDigest()
+        throws IOException
+    {
+        final File file = createFile( "module.jar", "abc" );
+        assertEquals( "a9993e364706816aba3e25717850c26c9cd0d89d", ModuleDigests.digest( file ) );
+        assertEquals( "a9993e364706816aba3e25717850c26c9cd0d89d", ModuleDigests.digest( "abc" ) );
+    }
+
+    public void testRoundTrip()
+        throws IOException
+    {
+        final File module = createFile( "ejb.jar", "ejb" );
+        final File unpacked = new File( directory, "web.war" );
+        unpacked.mkdirs();
+        final File digestFile = new File( directory, "digests/modules.txt" );
+
+        final ModuleDigests digests = ModuleDigests.load( digestFile );
+        assertFalse( digests.isUpToDate( "ejb.jar", module, "1234" ) );
+        digests.record( "ejb.jar", module, "1234" );
+        digests.record( "web.war", unpacked, "5678" );
+        digests.save( digestFile );
+
+        final ModuleDigests loaded = ModuleDigests.load( digestFile );
+        assertTrue( loaded.isUpToDate( "ejb.jar", module, "1234" ) );
+        assertFalse( loaded.isUpToDate( "ejb.jar", module, "4321" ) );
+        assertTrue( loaded.isUpToDate( "web.war", unpacked, "5678" ) );
+        assertFalse( loaded.isUpToDate( "web.war", module, "5678" ) );
+        assertFalse( loaded.isUpToDate( "other.jar", module, "1234" ) );
+    }
+
+    public void testChangedDestinationIsNotUpToDate()
+        throws IOException
+    {
+        final File module = createFile( "ejb.jar", "ejb" );
+        final File digestFile = new File( directory, "modules.txt" );
+
+        final ModuleDigests digests = ModuleDigests.load( digestFile );
+        digests.record( "ejb.jar", module, "1234" );
+        digests.save( digestFile );
+
+        FileUtils.fileWrite( module.getAbsolutePath(), "changed" );
+        assertFalse( ModuleDigests.load( digestFile ).isUpToDate( "ejb.jar", module, "1234" ) );
+
+        module.delete();
+        assertFalse( ModuleDigests.load( digestFile ).isUpToDate( "ejb.jar", module, "1234" ) );
+    }
+
+    public void testOnlyRecordedPathsAreSaved()
+        throws IOException
+    {
+        final File module = createFile( "ejb.jar", "ejb" );
+        final File digestFile = new File( directory, "modules.txt" );
+
+        final ModuleDigests digests = ModuleDigests.load( digestFile );
+        digests.record( "ejb.jar", module, "1234" );
+        digests.save( digestFile );
+
+        ModuleDigests.load( digestFile ).save( digestFile );
+        assertFalse( ModuleDigests.load( digestFile ).isUpToDate( "ejb.jar", module, "1234" ) );
+    }
+
+    private File createFile( String name, String content )
+        throws IOException
+    {
+        final File file = new File( directory, name );
+        FileUtils.fileWrite( file.getAbsolutePath(), content );
+        return file;
+    }
+}
@@ -0,0 +1,132 @@
+package org.apache.maven.plugins.shade;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.plugins.shade.relocation.Relocator;
+import org.apache.maven.plugins.shade.relocation.SimpleRelocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renaming of single class names and paths, by one relocator and through the remapper that picks the relocator for a
+ * name among all configured ones. Half of the names are covered by a relocation, the other half are not.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class RelocatorBenchmark
+{
+
+    private static final String[] CLASS_NAMES = {
+        "org.codehaus.plexus.util.StringUtils",
+        "org.codehaus.plexus.util.xml.pull.MXParser",
+        "com.google.common.collect.ImmutableList",
+        "com.google.common.base.Preconditions",
+        "java.lang.String",
+        "java.util.concurrent.ConcurrentHashMap",
+        "org.apache.maven.plugins.shade.DefaultShader",
+        "org.objectweb.asm.ClassReader" };
+
+    /**
+     * The number of relocators configured, of which only the first ones match any of the names.
+     */
+    @Param( { "1", "10", "50" } )
+    public int relocators;
+
+    private SimpleRelocator relocator;
+
+    private DefaultShader.RelocatorRemapper remapper;
+
+    private String[] paths;
+
+    @Setup
+    public void setUp()
+    {
+        List<Relocator> list = new ArrayList<Relocator>();
+        list.add( new SimpleRelocator( "org.codehaus.plexus.util", null, null, null ) );
+        if ( relocators > 1 )
+        {
+            list.add( new SimpleRelocator( "com.google.common", null, null, null ) );
+        }
+        for ( int i = list.size(); i < relocators; i++ )
+        {
+            list.add( new SimpleRelocator( "org.example.unused" + i, null, null, null ) );
+        }
+
+        relocator = (SimpleRelocator) list.get( 0 );
+        remapper = new DefaultShader.RelocatorRemapper( list );
+
+        paths = new String[CLASS_NAMES.length];
+        for ( int i = 0; i < CLASS_NAMES.length; i++ )
+        {
+            paths[i] = CLASS_NAMES[i].replace( '.', '/' );
+        }
+    }
+
+    @Benchmark
+    public void relocateClass( Blackhole blackhole )
+    {
+        for ( String name : CLASS_NAMES )
+        {
+            if ( relocator.canRelocateClass( name ) )
+            {
+                blackhole.consume( relocator.relocateClass( name ) );
+            }
+        }
+    }
+
+    @Benchmark
+    public void relocatePath( Blackhole blackhole )
+    {
+        for ( String path : paths )
+        {
+            if ( relocator.canRelocatePath( path ) )
+            {
+                blackhole.consume( relocator.relocatePath( path ) );
+            }
+        }
+    }
+
+    @Benchmark
+    public void remapperMap( Blackhole blackhole )
+    {
+        for ( String path : paths )
+        {
+            blackhole.consume( remapper.map( path ) );
+        }
+    }
+}
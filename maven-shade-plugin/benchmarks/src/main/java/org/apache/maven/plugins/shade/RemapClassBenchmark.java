@@ -0,0 +1,97 @@
+package org.apache.maven.plugins.shade;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.plugins.shade.relocation.Relocator;
+import org.apache.maven.plugins.shade.relocation.SimpleRelocator;
+import org.codehaus.plexus.util.IOUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remapping of real class files, the work done for every class entry of a shaded jar. The classes come from the
+ * plugin's own dependencies: a small one, a large one, and one that doesn't refer to the relocated package at all and
+ * is copied without going through ASM.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class RemapClassBenchmark
+{
+
+    @Param( { "org/codehaus/plexus/util/StringUtils", "org/codehaus/plexus/util/xml/pull/MXParser",
+        "org/objectweb/asm/ClassReader" } )
+    public String className;
+
+    private DefaultShader.RelocatorRemapper remapper;
+
+    private ShadeMetrics.Jar metrics;
+
+    private byte[] classFile;
+
+    @Setup
+    public void setUp()
+        throws IOException
+    {
+        List<Relocator> relocators = new ArrayList<Relocator>();
+        relocators.add( new SimpleRelocator( "org.codehaus.plexus.util", null, null, null ) );
+        remapper = new DefaultShader.RelocatorRemapper( relocators );
+
+        metrics = new ShadeMetrics().getJar( new File( "benchmark.jar" ) );
+
+        InputStream is = getClass().getClassLoader().getResourceAsStream( className + ".class" );
+        try
+        {
+            classFile = IOUtil.toByteArray( is );
+        }
+        finally
+        {
+            IOUtil.close( is );
+        }
+    }
+
+    @Benchmark
+    public byte[] remapClass()
+        throws Exception
+    {
+        return DefaultShader.remapClass( remapper, className + ".class", new ByteArrayInputStream( classFile ),
+                                         metrics );
+    }
+}
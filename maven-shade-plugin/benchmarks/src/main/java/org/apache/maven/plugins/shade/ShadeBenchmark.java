@@ -0,0 +1,201 @@
+package org.apache.maven.plugins.shade;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.plugins.shade.filter.Filter;
+import org.apache.maven.plugins.shade.relocation.Relocator;
+import org.apache.maven.plugins.shade.relocation.SimpleRelocator;
+import org.apache.maven.plugins.shade.resource.ResourceTransformer;
+import org.apache.maven.plugins.shade.resource.ServicesResourceTransformer;
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.codehaus.plexus.util.FileUtils;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+/**
+ * A complete shade of a synthetic class path of 200 jars. Every jar holds classes in its own package, some of which
+ * call into a package that is relocated, a service file and a plain resource.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.SingleShotTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3 )
+@Measurement( iterations = 10 )
+@Fork( 1 )
+public class ShadeBenchmark
+{
+
+    private static final int JARS = 200;
+
+    private static final int CLASSES_PER_JAR = 50;
+
+    @Param( { "1", "4" } )
+    public int threads;
+
+    private File directory;
+
+    private Set<File> jars;
+
+    @Setup( Level.Trial )
+    public void createJars()
+        throws IOException
+    {
+        directory = File.createTempFile( "shade-benchmark", "" );
+        directory.delete();
+        directory.mkdirs();
+
+        jars = new LinkedHashSet<File>();
+        for ( int i = 0; i < JARS; i++ )
+        {
+            File jar = new File( directory, "lib" + i + ".jar" );
+            writeJar( jar, i );
+            jars.add( jar );
+        }
+    }
+
+    @TearDown( Level.Trial )
+    public void deleteJars()
+        throws IOException
+    {
+        FileUtils.deleteDirectory( directory );
+    }
+
+    @Benchmark
+    public File shade()
+        throws Exception
+    {
+        DefaultShader shader = new DefaultShader();
+        shader.enableLogging( new ConsoleLogger( Logger.LEVEL_ERROR, "benchmark" ) );
+
+        List<Relocator> relocators = new ArrayList<Relocator>();
+        relocators.add( new SimpleRelocator( "org.codehaus.plexus.util", null, null, null ) );
+        relocators.add( new SimpleRelocator( "org.example.lib1", null, null, null ) );
+
+        List<ResourceTransformer> transformers = new ArrayList<ResourceTransformer>();
+        transformers.add( new ServicesResourceTransformer() );
+
+        File uberJar = new File( directory, "shaded.jar" );
+
+        ShadeRequest shadeRequest = new ShadeRequest();
+        shadeRequest.setJars( jars );
+        shadeRequest.setUberJar( uberJar );
+        shadeRequest.setFilters( new ArrayList<Filter>() );
+        shadeRequest.setRelocators( relocators );
+        shadeRequest.setResourceTransformers( transformers );
+        shadeRequest.setThreads( threads );
+
+        shader.shade( shadeRequest );
+
+        return uberJar;
+    }
+
+    private static void writeJar( File jar, int index )
+        throws IOException
+    {
+        String pkg = "org/example/lib" + index;
+
+        JarOutputStream jos = new JarOutputStream( new FileOutputStream( jar ) );
+        try
+        {
+            for ( int i = 0; i < CLASSES_PER_JAR; i++ )
+            {
+                jos.putNextEntry( new JarEntry( pkg + "/Class" + i + ".class" ) );
+                jos.write( createClass( pkg + "/Class" + i, pkg + "/Class" + ( ( i + 1 ) % CLASSES_PER_JAR ),
+                                        i % 5 == 0 ) );
+            }
+
+            jos.putNextEntry( new JarEntry( "META-INF/services/org.example.Service" ) );
+            jos.write( ( pkg.replace( '/', '.' ) + ".Class0\n" ).getBytes( "UTF-8" ) );
+
+            jos.putNextEntry( new JarEntry( pkg + "/messages.properties" ) );
+            jos.write( ( "name=" + pkg + "\n" ).getBytes( "UTF-8" ) );
+        }
+        finally
+        {
+            jos.close();
+        }
+    }
+
+    /**
+     * Creates a class holding a reference to another class of the same jar and, optionally, a call into a relocated
+     * package.
+     */
+    private static byte[] createClass( String name, String next, boolean callsRelocated )
+    {
+        ClassWriter cw = new ClassWriter( ClassWriter.COMPUTE_MAXS );
+        cw.visit( Opcodes.V1_5, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", null );
+
+        cw.visitField( Opcodes.ACC_PRIVATE, "next", "L" + next + ";", null, null ).visitEnd();
+
+        MethodVisitor mv = cw.visitMethod( Opcodes.ACC_PUBLIC, "<init>", "()V", null, null );
+        mv.visitCode();
+        mv.visitVarInsn( Opcodes.ALOAD, 0 );
+        mv.visitMethodInsn( Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V" );
+        mv.visitInsn( Opcodes.RETURN );
+        mv.visitMaxs( 0, 0 );
+        mv.visitEnd();
+
+        mv = cw.visitMethod( Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "describe",
+                             "(Ljava/lang/String;)Ljava/lang/String;", null, null );
+        mv.visitCode();
+        mv.visitVarInsn( Opcodes.ALOAD, 0 );
+        if ( callsRelocated )
+        {
+            mv.visitMethodInsn( Opcodes.INVOKESTATIC, "org/codehaus/plexus/util/StringUtils", "capitalise",
+                                "(Ljava/lang/String;)Ljava/lang/String;" );
+        }
+        else
+        {
+            mv.visitMethodInsn( Opcodes.INVOKEVIRTUAL, "java/lang/String", "trim", "()Ljava/lang/String;" );
+        }
+        mv.visitInsn( Opcodes.ARETURN );
+        mv.visitMaxs( 0, 0 );
+        mv.visitEnd();
+
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+}
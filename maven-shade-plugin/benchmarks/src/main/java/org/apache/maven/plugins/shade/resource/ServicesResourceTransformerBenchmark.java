@@ -0,0 +1,123 @@
+package org.apache.maven.plugins.shade.resource;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.plugins.shade.relocation.Relocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarOutputStream;
+
+/**
+ * Merging the service files of many jars into one. Each jar registers a few providers of a handful of services, and
+ * some providers are registered by several jars, as happens when dependencies are repackaged.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class ServicesResourceTransformerBenchmark
+{
+
+    private static final int SERVICES = 5;
+
+    @Param( { "10", "200" } )
+    public int jars;
+
+    private List<String> names;
+
+    private List<byte[]> contents;
+
+    private final List<Relocator> relocators = new ArrayList<Relocator>();
+
+    @Setup
+    public void setUp()
+    {
+        names = new ArrayList<String>();
+        contents = new ArrayList<byte[]>();
+
+        for ( int jar = 0; jar < jars; jar++ )
+        {
+            for ( int service = 0; service < SERVICES; service++ )
+            {
+                StringBuilder content = new StringBuilder();
+                content.append( "# providers of jar " ).append( jar ).append( '\n' );
+                for ( int provider = 0; provider < 3; provider++ )
+                {
+                    content.append( "org.example.lib" ).append( ( jar + provider ) % jars ).append( ".Provider" );
+                    content.append( service ).append( '\n' );
+                }
+
+                names.add( "META-INF/services/org.example.Service" + service );
+                contents.add( content.toString().getBytes() );
+            }
+        }
+    }
+
+    @Benchmark
+    public void mergeServices()
+        throws IOException
+    {
+        ServicesResourceTransformer transformer = new ServicesResourceTransformer();
+
+        for ( int i = 0; i < names.size(); i++ )
+        {
+            String name = names.get( i );
+            if ( transformer.canTransformResource( name ) )
+            {
+                transformer.processResource( name, new ByteArrayInputStream( contents.get( i ) ), relocators );
+            }
+        }
+
+        JarOutputStream jos = new JarOutputStream( new NullOutputStream() );
+        transformer.modifyOutputStream( jos );
+        jos.close();
+    }
+
+    private static class NullOutputStream
+        extends OutputStream
+    {
+
+        public void write( int b )
+        {
+        }
+
+        public void write( byte[] b, int off, int len )
+        {
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package org.apache.maven.plugins.shade;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.codehaus.plexus.util.IOUtil;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Naming of the files the shade caches keep between builds. A cache file is named after the archive it was computed
+ * from, <code>name-hash-checksum.extension</code>, where the hash of the archive's path tells apart archives sharing a
+ * file name and the checksum covers the content of the archive. All files sharing the first two parts are versions of
+ * the same archive, only the latest one is kept.
+ *
+ * @since 2.0
+ */
+public final class CacheFiles
+{
+
+    private CacheFiles()
+    {
+    }
+
+    /**
+     * @param archive the archive the cache file is computed from
+     * @return the part of the name shared by all the cache files of this archive
+     */
+    public static String getPrefix( File archive )
+    {
+        // archives of different artifacts may share a file name
+        return archive.getName() + "-" + Integer.toHexString( archive.getAbsolutePath().hashCode() ) + "-";
+    }
+
+    /**
+     * @param archive the archive the cache file is computed from
+     * @param key what else the cached content depends on, may be <code>null</code>
+     * @return the SHA-1 of the key followed by the content of the archive, in hex
+     * @throws IOException if the archive cannot be read
+     */
+    public static String checksum( File archive, String key )
+        throws IOException
+    {
+        MessageDigest digest;
+        try
+        {
+            digest = MessageDigest.getInstance( "SHA-1" );
+        }
+        catch ( NoSuchAlgorithmException e )
+        {
+            throw new IllegalStateException( "SHA-1 not supported: " + e.getMessage() );
+        }
+
+        if ( key != null )
+        {
+            digest.update( key.getBytes( "UTF-8" ) );
+        }
+
+        InputStream is = new FileInputStream( archive );
+        try
+        {
+            byte[] buffer = new byte[8192];
+            for ( int n = is.read( buffer ); n != -1; n = is.read( buffer ) )
+            {
+                digest.update( buffer, 0, n );
+            }
+        }
+        finally
+        {
+            IOUtil.close( is );
+        }
+
+        StringBuilder hex = new StringBuilder();
+        for ( byte b : digest.digest() )
+        {
+            hex.append( Character.forDigit( ( b >> 4 ) & 0xF, 16 ) ).append( Character.forDigit( b & 0xF, 16 ) );
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Removes the older versions of the cache files of an archive.
+     *
+     * @param directory the cache directory
+     * @param prefix the prefix of the archive, see {@link #getPrefix(File)}
+     * @param extension the extension of the cache files, leaving alone the files being written next to them
+     */
+    public static void deleteStale( File directory, String prefix, String extension )
+    {
+        File[] files = directory.listFiles();
+        if ( files != null )
+        {
+            for ( File stale : files )
+            {
+                if ( stale.getName().startsWith( prefix ) && stale.getName().endsWith( extension ) )
+                {
+                    stale.delete();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package org.apache.maven.plugins.shade;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A minimal reader for the constant pool of a class file. Every class name, descriptor, signature and string
+ * constant of a class lives in a <code>CONSTANT_Utf8</code> entry, which makes the constant pool a cheap way to learn
+ * which other classes a class refers to without going through ASM.
+ *
+ * @since 2.0
+ */
+public final class ConstantPool
+{
+
+    private final List<String> utf8Constants;
+
+    private final List<String> classNames;
+
+    private ConstantPool( List<String> utf8Constants, List<String> classNames )
+    {
+        this.utf8Constants = utf8Constants;
+        this.classNames = classNames;
+    }
+
+    /**
+     * @param classFile the bytes of a class file
+     * @return the constant pool of the class
+     * @throws IllegalArgumentException if the class file is truncated or has a constant this reader doesn't know
+     */
+    public static ConstantPool read( byte[] classFile )
+    {
+        try
+        {
+            int count = readUnsignedShort( classFile, 8 );
+
+            String[] utf8 = new String[count];
+            int[] classes = new int[count];
+            int classCount = 0;
+
+            int index = 10;
+            for ( int i = 1; i < count; i++ )
+            {
+                int tag = classFile[index];
+                switch ( tag )
+                {
+                    case 1: // Utf8
+                        int length = readUnsignedShort( classFile, index + 1 );
+                        utf8[i] = readUtf8( classFile, index + 1, length );
+                        index += 3 + length;
+                        break;
+                    case 7: // Class
+                        classes[classCount++] = readUnsignedShort( classFile, index + 1 );
+                        index += 3;
+                        break;
+                    case 3: // Integer
+                    case 4: // Float
+                    case 9: // Fieldref
+                    case 10: // Methodref
+                    case 11: // InterfaceMethodref
+                    case 12: // NameAndType
+                    case 17: // Dynamic
+                    case 18: // InvokeDynamic
+                        index += 5;
+                        break;
+                    case 5: // Long
+                    case 6: // Double
+                        index += 9;
+                        i++;
+                        break;
+                    case 8: // String
+                    case 16: // MethodType
+                    case 19: // Module
+                    case 20: // Package
+                        index += 3;
+                        break;
+                    case 15: // MethodHandle
+                        index += 4;
+                        break;
+                    default:
+                        throw new IllegalArgumentException( "Unknown constant pool tag " + tag );
+                }
+            }
+
+            List<String> utf8Constants = new ArrayList<String>( count );
+            for ( String value : utf8 )
+            {
+                if ( value != null )
+                {
+                    utf8Constants.add( value );
+                }
+            }
+
+            List<String> classNames = new ArrayList<String>( classCount );
+            for ( int i = 0; i < classCount; i++ )
+            {
+                classNames.add( utf8[classes[i]] );
+            }
+
+            return new ConstantPool( utf8Constants, classNames );
+        }
+        catch ( IndexOutOfBoundsException e )
+        {
+            throw new IllegalArgumentException( "Truncated class file" );
+        }
+    }
+
+    /**
+     * @return the values of all <code>CONSTANT_Utf8</code> entries
+     */
+    public List<String> getUtf8Constants()
+    {
+        return utf8Constants;
+    }
+
+    /**
+     * @return the internal names of the <code>CONSTANT_Class</code> entries, which may be array descriptors
+     */
+    public List<String> getClassNames()
+    {
+        return classNames;
+    }
+
+    /**
+     * Collects the class names embedded in a descriptor or signature as <code>Lname;</code> or
+     * <code>Lname&lt;...&gt;;</code>. Any other string may yield names that don't exist, which is harmless for callers
+     * that only look them up.
+     *
+     * @param descriptor a descriptor, signature or any other constant
+     * @param names the list to add the internal names to
+     */
+    public static void addTypeNames( String descriptor, List<String> names )
+    {
+        for ( int start = descriptor.indexOf( 'L' ); start >= 0; start = descriptor.indexOf( 'L', start + 1 ) )
+        {
+            int end = start + 1;
+            while ( end < descriptor.length() && descriptor.charAt( end ) != ';' && descriptor.charAt( end ) != '<' )
+            {
+                end++;
+            }
+            if ( end > start + 1 )
+            {
+                names.add( descriptor.substring( start + 1, end ) );
+            }
+        }
+    }
+
+    private static int readUnsignedShort( byte[] b, int index )
+    {
+        return ( ( b[index] & 0xFF ) << 8 ) | ( b[index + 1] & 0xFF );
+    }
+
+    private static String readUtf8( byte[] b, int index, int length )
+    {
+        for ( int i = index + 2; i < index + 2 + length; i++ )
+        {
+            if ( b[i] < 0 )
+            {
+                // modified UTF-8, the length prefix at index is what readUTF expects
+                try
+                {
+                    return new DataInputStream( new ByteArrayInputStream( b, index, length + 2 ) ).readUTF();
+                }
+                catch ( IOException e )
+                {
+                    throw new IllegalArgumentException( e.getMessage() );
+                }
+            }
+        }
+
+        char[] chars = new char[length];
+        for ( int i = 0; i < length; i++ )
+        {
+            chars[i] = (char) b[index + 2 + i];
+        }
+        return new String( chars );
+    }
+}
@@ -23,6 +23,8 @@ import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.shade.filter.Filter;
 import org.apache.maven.plugins.shade.mojo.PackageRelocation;
 import org.apache.maven.plugins.shade.relocation.Relocator;
+import org.apache.maven.plugins.shade.relocation.RelocatorIndex;
+import org.apache.maven.plugins.shade.relocation.SourceContentRelocator;
 import org.apache.maven.plugins.shade.resource.ManifestResourceTransformer;
 import org.apache.maven.plugins.shade.resource.ResourceTransformer;
 import org.codehaus.plexus.component.annotations.Component;
@@ -37,22 +39,36 @@ import org.objectweb.asm.commons.RemappingClassAdapter;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.Reader;
 import java.util.ArrayList;
+import java.util.Calendar;
 import java.util.Enumeration;
+import java.util.GregorianCalendar;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.jar.JarOutputStream;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
 
 /**
  * @author Jason van Zyl
@@ -63,6 +79,13 @@ public class DefaultShader
     implements Shader
 {
 
+    /**
+     * The time of all entries of a reproducible jar, 1980-02-01 00:00 in local time. Jar entries keep their time as
+     * local date and time fields, so the same fields are written whatever the time zone of the build.
+     */
+    private static final long REPRODUCIBLE_TIME =
+        new GregorianCalendar( 1980, Calendar.FEBRUARY, 1, 0, 0, 0 ).getTimeInMillis();
+
     public void shade( ShadeRequest shadeRequest )
         throws IOException, MojoExecutionException
     {
@@ -80,10 +103,24 @@ public class DefaultShader
             }
         }
 
+        long start = System.nanoTime();
+
+        ShadeMetrics metrics = shadeRequest.getMetrics() != null ? shadeRequest.getMetrics() : new ShadeMetrics();
+
         RelocatorRemapper remapper = new RelocatorRemapper( shadeRequest.getRelocators() );
 
         shadeRequest.getUberJar().getParentFile().mkdirs();
-        JarOutputStream jos = new JarOutputStream( new FileOutputStream( shadeRequest.getUberJar() ) );
+
+        // a reproducible jar is sorted in a second pass, the first one is written without compression
+        File outputJar = shadeRequest.getUberJar();
+        if ( shadeRequest.isReproducible() )
+        {
+            outputJar = new File( outputJar.getPath() + ".unsorted" );
+        }
+
+        CountingOutputStream out = new CountingOutputStream( new FileOutputStream( outputJar ) );
+        JarOutputStream jos = shadeRequest.isReproducible() ? new StoredJarOutputStream( out )
+                        : newJarOutputStream( out, shadeRequest );
 
         if ( manifestTransformer != null )
         {
@@ -108,99 +145,456 @@ public class DefaultShader
             }
         }
 
-        for ( File jar : shadeRequest.getJars() )
+        EntryIndex index = indexEntries( shadeRequest, transformers, manifestTransformer, remapper, metrics );
+
+        if ( shadeRequest.getOverlapReport() != null )
         {
+            index.writeReport( shadeRequest.getOverlapReport() );
+        }
+        getLogger().debug( index.getOverlapCount() + " entries are provided by more than one jar" );
 
-            getLogger().debug( "Processing JAR " + jar );
+        ExecutorService executor = null;
+        if ( shadeRequest.getThreads() > 1 && remapper.hasRelocators() )
+        {
+            getLogger().debug( "Remapping classes with " + shadeRequest.getThreads() + " threads" );
+            executor = Executors.newFixedThreadPool( shadeRequest.getThreads() );
+        }
 
-            List jarFilters = getFilters( jar, shadeRequest.getFilters() );
+        // entries are written strictly in jar iteration order, only the ASM remapping runs ahead on the pool
+        int window = executor != null ? shadeRequest.getThreads() * 4 : 0;
 
-            JarFile jarFile = newJarFile( jar );
+        RemappedClassCache cache = null;
+        if ( shadeRequest.getCacheDirectory() != null && remapper.hasRelocators() )
+        {
+            if ( RemappedClassCache.supports( shadeRequest.getRelocators() ) )
+            {
+                cache = new RemappedClassCache( shadeRequest.getCacheDirectory(), shadeRequest.getRelocators() );
+            }
+            else
+            {
+                getLogger().debug( "Not caching remapped classes, only simple relocators can be cached" );
+            }
+        }
 
-            for ( Enumeration<JarEntry> j = jarFile.entries(); j.hasMoreElements(); )
+        try
+        {
+            for ( File jar : shadeRequest.getJars() )
             {
-                JarEntry entry = j.nextElement();
 
-                String name = entry.getName();
+                getLogger().debug( "Processing JAR " + jar );
+
+                long jarStart = System.nanoTime();
+                long bytesOut = out.getCount();
 
-                if ( "META-INF/INDEX.LIST".equals( name ) )
+                ShadeMetrics.Jar jarMetrics = metrics.getJar( jar );
+
+                JarFile jarFile = newJarFile( jar );
+
+                RemappedClassCache.Jar jarCache = null;
+                if ( cache != null )
                 {
-                    // we cannot allow the jar indexes to be copied over or the
-                    // jar is useless. Ideally, we could create a new one
-                    // later
-                    continue;
+                    jarCache = cache.open( jar );
+                    getLogger().debug( ( jarCache.isHit() ? "Using" : "Recording" ) + " cached classes of " + jar );
                 }
+                boolean complete = false;
 
-                if ( !entry.isDirectory() && !isFiltered( jarFilters, name ) )
+                LinkedList<PendingEntry> pending = new LinkedList<PendingEntry>();
+
+                try
                 {
-                    InputStream is = jarFile.getInputStream( entry );
+                    for ( String name : index.getEntries( jar ) )
+                    {
+                        if ( name.endsWith( ".class" ) )
+                        {
+                            String mappedName = getMappedClassName( remapper, name );
+                            if ( !index.isOwner( jar, mappedName ) )
+                            {
+                                // an earlier jar provides this class, don't bother remapping it
+                                getLogger().warn( "We have a duplicate " + mappedName + " in " + jar );
+                                continue;
+                            }
+                        }
 
-                    String mappedName = remapper.map( name );
+                        JarEntry entry = jarFile.getJarEntry( name );
 
-                    int idx = mappedName.lastIndexOf( '/' );
-                    if ( idx != -1 )
-                    {
-                        // make sure dirs are created
-                        String dir = mappedName.substring( 0, idx );
-                        if ( !resources.contains( dir ) )
+                        Future<byte[]> remappedClass = null;
+                        if ( executor != null && name.endsWith( ".class" )
+                            && ( jarCache == null || !jarCache.contains( name ) ) )
                         {
-                            addDirectory( resources, jos, dir );
+                            remappedClass =
+                                executor.submit( new RemapClassTask( remapper, jarFile, entry, jarMetrics ) );
+                        }
+
+                        pending.add( new PendingEntry( entry, remappedClass ) );
+
+                        while ( pending.size() > window )
+                        {
+                            writeEntry( shadeRequest, resources, transformers, remapper, jos, jar, jarFile, jarCache,
+                                        jarMetrics, pending.removeFirst() );
                         }
                     }
 
-                    if ( name.endsWith( ".class" ) )
+                    while ( !pending.isEmpty() )
                     {
-                        addRemappedClass( remapper, jos, jar, name, is );
+                        writeEntry( shadeRequest, resources, transformers, remapper, jos, jar, jarFile, jarCache,
+                                    jarMetrics, pending.removeFirst() );
                     }
-                    else if ( shadeRequest.isShadeSourcesContent() && name.endsWith( ".java" ) )
+
+                    // flush the compressed data of the last entry so it is counted for this jar
+                    jos.closeEntry();
+
+                    complete = true;
+                }
+                finally
+                {
+                    if ( jarCache != null )
                     {
-                        // Avoid duplicates
-                        if ( resources.contains( mappedName ) )
+                        jarCache.close( complete );
+                    }
+                }
+
+                jarFile.close();
+
+                jarMetrics.addBytesOut( out.getCount() - bytesOut );
+                jarMetrics.addNanos( System.nanoTime() - jarStart );
+            }
+        }
+        finally
+        {
+            if ( executor != null )
+            {
+                executor.shutdownNow();
+            }
+        }
+
+        for ( Iterator i = transformers.iterator(); i.hasNext(); )
+        {
+            ResourceTransformer transformer = (ResourceTransformer) i.next();
+
+            if ( transformer.hasTransformedResource() )
+            {
+                long transformerStart = System.nanoTime();
+                transformer.modifyOutputStream( jos );
+                metrics.addTime( "transformer " + transformer.getClass().getName(),
+                                 System.nanoTime() - transformerStart );
+            }
+        }
+
+        IOUtil.close( jos );
+
+        if ( shadeRequest.isReproducible() )
+        {
+            writeReproducibleJar( outputJar, shadeRequest );
+            outputJar.delete();
+        }
+
+        for ( Filter filter : shadeRequest.getFilters() )
+        {
+            filter.finished();
+        }
+
+        metrics.addTime( "shading " + shadeRequest.getUberJar().getName(), System.nanoTime() - start );
+    }
+
+    private static JarOutputStream newJarOutputStream( OutputStream out, ShadeRequest shadeRequest )
+        throws IOException
+    {
+        if ( shadeRequest.isStoreOnly() )
+        {
+            return new StoredJarOutputStream( out );
+        }
+
+        JarOutputStream jos = new JarOutputStream( out );
+        jos.setLevel( shadeRequest.getCompressionLevel() );
+        return jos;
+    }
+
+    /**
+     * Copies the shaded jar to its final place with its entries sorted by name, a directory entry for every directory
+     * and the same timestamp on every entry, so that the same input always gives the same bytes. The manifest stays
+     * in front, where {@link java.util.jar.JarInputStream} looks for it.
+     */
+    private void writeReproducibleJar( File unsortedJar, ShadeRequest shadeRequest )
+        throws IOException
+    {
+        ZipFile zipFile = new ZipFile( unsortedJar );
+        try
+        {
+            Set<String> names = new TreeSet<String>();
+            for ( Enumeration<? extends ZipEntry> e = zipFile.entries(); e.hasMoreElements(); )
+            {
+                String name = e.nextElement().getName();
+                names.add( name );
+                for ( int i = name.indexOf( '/' ); i >= 0 && i < name.length() - 1; i = name.indexOf( '/', i + 1 ) )
+                {
+                    names.add( name.substring( 0, i + 1 ) );
+                }
+            }
+
+            List<String> sorted = new ArrayList<String>( names.size() );
+            for ( String name : new String[] { "META-INF/", JarFile.MANIFEST_NAME } )
+            {
+                if ( names.remove( name ) )
+                {
+                    sorted.add( name );
+                }
+            }
+            sorted.addAll( names );
+
+            JarOutputStream jos =
+                newJarOutputStream( new FileOutputStream( shadeRequest.getUberJar() ), shadeRequest );
+            try
+            {
+                for ( String name : sorted )
+                {
+                    JarEntry entry = new JarEntry( name );
+                    entry.setTime( REPRODUCIBLE_TIME );
+                    jos.putNextEntry( entry );
+
+                    ZipEntry original = zipFile.getEntry( name );
+                    if ( original != null && !original.isDirectory() )
+                    {
+                        InputStream is = zipFile.getInputStream( original );
+                        try
+                        {
+                            IOUtil.copy( is, jos );
+                        }
+                        finally
                         {
-                            continue;
+                            IOUtil.close( is );
                         }
-                        
-                        addJavaSource( resources, jos, mappedName, is, shadeRequest.getRelocators() );
+                    }
+                }
+            }
+            finally
+            {
+                IOUtil.close( jos );
+            }
+        }
+        finally
+        {
+            zipFile.close();
+        }
+    }
+
+    /**
+     * Lists the entries of every jar that pass the filters and decides up front which jar each entry of the shaded jar
+     * is taken from: the first one providing it, unless it is merged by a transformer.
+     */
+    private EntryIndex indexEntries( ShadeRequest shadeRequest, List<ResourceTransformer> transformers,
+                                     ResourceTransformer manifestTransformer, RelocatorRemapper remapper,
+                                     ShadeMetrics metrics )
+        throws IOException
+    {
+        EntryIndex index = new EntryIndex();
+
+        for ( File jar : shadeRequest.getJars() )
+        {
+            long start = System.nanoTime();
+
+            ShadeMetrics.Jar jarMetrics = metrics.getJar( jar );
+            jarMetrics.addBytesIn( jar.length() );
+
+            List<Filter> jarFilters = getFilters( jar, shadeRequest.getFilters() );
+            long[] filterNanos = new long[jarFilters.size()];
+
+            JarFile jarFile = newJarFile( jar );
+            try
+            {
+                for ( Enumeration<JarEntry> j = jarFile.entries(); j.hasMoreElements(); )
+                {
+                    JarEntry entry = j.nextElement();
+
+                    String name = entry.getName();
+
+                    if ( "META-INF/INDEX.LIST".equals( name ) )
+                    {
+                        // we cannot allow the jar indexes to be copied over or the
+                        // jar is useless. Ideally, we could create a new one
+                        // later
+                        jarMetrics.addEntry( false );
+                        continue;
+                    }
+
+                    if ( entry.isDirectory() || isFiltered( jarFilters, name, filterNanos ) )
+                    {
+                        jarMetrics.addEntry( false );
+                        continue;
+                    }
+
+                    jarMetrics.addEntry( true );
+
+                    String mappedName;
+                    if ( name.endsWith( ".class" ) )
+                    {
+                        mappedName = getMappedClassName( remapper, name );
                     }
                     else
                     {
-                        if ( !resourceTransformed( transformers, mappedName, is, shadeRequest.getRelocators() ) )
-                        {
-                            // Avoid duplicates that aren't accounted for by the resource transformers
-                            if ( resources.contains( mappedName ) )
-                            {
-                                continue;
-                            }
+                        mappedName = remapper.map( name );
 
-                            addResource( resources, jos, mappedName, is );
+                        boolean source = shadeRequest.isShadeSourcesContent() && name.endsWith( ".java" );
+                        if ( ( manifestTransformer != null && manifestTransformer.canTransformResource( name ) )
+                            || ( !source && canTransformResource( transformers, mappedName ) ) )
+                        {
+                            mappedName = null;
                         }
                     }
 
-                    IOUtil.close( is );
+                    index.add( jar, name, mappedName );
                 }
             }
+            finally
+            {
+                jarFile.close();
+            }
 
-            jarFile.close();
+            for ( int i = 0; i < filterNanos.length; i++ )
+            {
+                metrics.addTime( "filter " + jarFilters.get( i ).getClass().getName(), filterNanos[i] );
+            }
+            jarMetrics.addNanos( System.nanoTime() - start );
         }
 
-        for ( Iterator i = transformers.iterator(); i.hasNext(); )
+        return index;
+    }
+
+    private boolean canTransformResource( List<ResourceTransformer> transformers, String name )
+    {
+        for ( ResourceTransformer transformer : transformers )
         {
-            ResourceTransformer transformer = (ResourceTransformer) i.next();
+            if ( transformer.canTransformResource( name ) )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
 
-            if ( transformer.hasTransformedResource() )
+    /**
+     * @return the name a class entry gets in the shaded jar
+     */
+    private static String getMappedClassName( RelocatorRemapper remapper, String name )
+    {
+        if ( !remapper.hasRelocators() )
+        {
+            return name;
+        }
+
+        // Need to take the .class off for remapping evaluation, and put it back on so the class file is written out
+        // with the right extension.
+        return remapper.map( name.substring( 0, name.indexOf( '.' ) ) ) + ".class";
+    }
+
+    private void writeEntry( ShadeRequest shadeRequest, Set resources, List<ResourceTransformer> transformers,
+                             RelocatorRemapper remapper, JarOutputStream jos, File jar, JarFile jarFile,
+                             RemappedClassCache.Jar jarCache, ShadeMetrics.Jar jarMetrics,
+                             PendingEntry pendingEntry )
+        throws IOException, MojoExecutionException
+    {
+        JarEntry entry = pendingEntry.entry;
+
+        String name = entry.getName();
+
+        String mappedName = remapper.map( name );
+
+        int idx = mappedName.lastIndexOf( '/' );
+        if ( idx != -1 )
+        {
+            // make sure dirs are created
+            String dir = mappedName.substring( 0, idx );
+            if ( !resources.contains( dir ) )
             {
-                transformer.modifyOutputStream( jos );
+                addDirectory( resources, jos, dir );
             }
         }
 
-        IOUtil.close( jos );
+        if ( name.endsWith( ".class" ) && remapper.hasRelocators() )
+        {
+            addRemappedClass( remapper, jos, jar, name,
+                              getRemappedClass( remapper, jarFile, jarCache, jarMetrics, pendingEntry ) );
+            return;
+        }
 
-        for ( Filter filter : shadeRequest.getFilters() )
+        InputStream is = jarFile.getInputStream( entry );
+
+        try
         {
-            filter.finished();
+            if ( name.endsWith( ".class" ) )
+            {
+                addRemappedClass( remapper, jos, jar, name, is, jarMetrics );
+            }
+            else if ( shadeRequest.isShadeSourcesContent() && name.endsWith( ".java" ) )
+            {
+                // Avoid duplicates
+                if ( resources.contains( mappedName ) )
+                {
+                    return;
+                }
+
+                addJavaSource( resources, jos, mappedName, is, shadeRequest.getRelocators(),
+                               remapper.getSourceContentRelocator() );
+            }
+            else
+            {
+                if ( !resourceTransformed( transformers, mappedName, is, shadeRequest.getRelocators(), jarMetrics ) )
+                {
+                    // Avoid duplicates that aren't accounted for by the resource transformers
+                    if ( resources.contains( mappedName ) )
+                    {
+                        return;
+                    }
+
+                    addResource( resources, jos, mappedName, is );
+                }
+            }
+        }
+        finally
+        {
+            IOUtil.close( is );
         }
     }
 
+    private byte[] getRemappedClass( RelocatorRemapper remapper, JarFile jarFile, RemappedClassCache.Jar jarCache,
+                                     ShadeMetrics.Jar jarMetrics, PendingEntry pendingEntry )
+        throws IOException, MojoExecutionException
+    {
+        String name = pendingEntry.entry.getName();
+
+        byte[] renamedClass = jarCache != null ? jarCache.get( name ) : null;
+
+        if ( renamedClass != null )
+        {
+            jarMetrics.addClassCached();
+        }
+        else
+        {
+            if ( pendingEntry.remappedClass != null )
+            {
+                renamedClass = pendingEntry.getRemappedClass();
+            }
+            else
+            {
+                InputStream is = jarFile.getInputStream( pendingEntry.entry );
+                try
+                {
+                    renamedClass = remapClass( remapper, name, is, jarMetrics );
+                }
+                finally
+                {
+                    IOUtil.close( is );
+                }
+            }
+
+            if ( jarCache != null )
+            {
+                jarCache.put( name, renamedClass );
+            }
+        }
+
+        return renamedClass;
+    }
+
     private JarFile newJarFile( File jar )
         throws IOException
     {
@@ -252,7 +646,7 @@ public class DefaultShader
     }
 
     private void addRemappedClass( RelocatorRemapper remapper, JarOutputStream jos, File jar, String name,
-                                   InputStream is )
+                                   InputStream is, ShadeMetrics.Jar jarMetrics )
         throws IOException, MojoExecutionException
     {
         if ( !remapper.hasRelocators() )
@@ -270,7 +664,43 @@ public class DefaultShader
             return;
         }
 
-        ClassReader cr = new ClassReader( is );
+        addRemappedClass( remapper, jos, jar, name, remapClass( remapper, name, is, jarMetrics ) );
+    }
+
+    private void addRemappedClass( RelocatorRemapper remapper, JarOutputStream jos, File jar, String name,
+                                   byte[] renamedClass )
+        throws IOException
+    {
+        String mappedName = getMappedClassName( remapper, name );
+
+        try
+        {
+            jos.putNextEntry( new JarEntry( mappedName ) );
+
+            IOUtil.copy( renamedClass, jos );
+        }
+        catch ( ZipException e )
+        {
+            getLogger().warn( "We have a duplicate " + mappedName + " in " + jar );
+        }
+    }
+
+    static byte[] remapClass( RelocatorRemapper remapper, String name, InputStream is, ShadeMetrics.Jar jarMetrics )
+        throws IOException, MojoExecutionException
+    {
+        byte[] originalClass = IOUtil.toByteArray( is );
+
+        // Most classes of an uber-jar never mention a relocated package; those are copied as they are instead of
+        // being parsed and written again by ASM.
+        if ( !remapper.canRelocate( originalClass ) )
+        {
+            jarMetrics.addClassCopied();
+            return originalClass;
+        }
+
+        long start = System.nanoTime();
+
+        ClassReader cr = new ClassReader( originalClass );
 
         // We don't pass the ClassReader here. This forces the ClassWriter to rebuild the constant pool.
         // Copying the original constant pool should be avoided because it would keep references
@@ -292,27 +722,20 @@ public class DefaultShader
 
         byte[] renamedClass = cw.toByteArray();
 
-        // Need to take the .class off for remapping evaluation
-        String mappedName = remapper.map( name.substring( 0, name.indexOf( '.' ) ) );
-
-        try
-        {
-            // Now we put it back on so the class file is written out with the right extension.
-            jos.putNextEntry( new JarEntry( mappedName + ".class" ) );
+        jarMetrics.addClassRemapped( System.nanoTime() - start );
 
-            IOUtil.copy( renamedClass, jos );
-        }
-        catch ( ZipException e )
-        {
-            getLogger().warn( "We have a duplicate " + mappedName + " in " + jar );
-        }
+        return renamedClass;
     }
 
-    private boolean isFiltered( List<Filter> filters, String name )
+    private boolean isFiltered( List<Filter> filters, String name, long[] nanos )
     {
-        for ( Filter filter : filters )
+        for ( int i = 0; i < nanos.length; i++ )
         {
-            if ( filter.isFiltered( name ) )
+            long start = System.nanoTime();
+            boolean filtered = filters.get( i ).isFiltered( name );
+            nanos[i] += System.nanoTime() - start;
+
+            if ( filtered )
             {
                 return true;
             }
@@ -322,7 +745,7 @@ public class DefaultShader
     }
 
     private boolean resourceTransformed( List<ResourceTransformer> resourceTransformers, String name, InputStream is,
-                                         List<Relocator> relocators )
+                                         List<Relocator> relocators, ShadeMetrics.Jar jarMetrics )
         throws IOException
     {
         boolean resourceTransformed = false;
@@ -333,7 +756,9 @@ public class DefaultShader
             {
                 getLogger().debug( "Transforming " + name + " using " + transformer.getClass().getName() );
 
+                long start = System.nanoTime();
                 transformer.processResource( name, is, relocators );
+                jarMetrics.addTransformerNanos( transformer.getClass().getName(), System.nanoTime() - start );
 
                 resourceTransformed = true;
 
@@ -344,19 +769,29 @@ public class DefaultShader
     }
 
     private void addJavaSource( Set resources, JarOutputStream jos, String name, InputStream is,
-                                    List<Relocator> relocators )
+                                    List<Relocator> relocators, SourceContentRelocator sourceContentRelocator )
             throws IOException
     {
         jos.putNextEntry( new JarEntry( name ) );
 
-        String sourceContent = IOUtil.toString( new InputStreamReader( is, "UTF-8" ) );
-        
-        for ( Relocator relocator : relocators ) {
-        	sourceContent = relocator.applyToSourceContent(sourceContent);
-        }
-        
+        Reader reader = new InputStreamReader( is, "UTF-8" );
         OutputStreamWriter writer = new OutputStreamWriter( jos, "UTF-8" );
-        IOUtil.copy( sourceContent, writer );
+
+        if ( sourceContentRelocator != null )
+        {
+            // all relocations in one pass, without holding the source in memory
+            sourceContentRelocator.relocate( reader, writer );
+        }
+        else
+        {
+            String sourceContent = IOUtil.toString( reader );
+
+            for ( Relocator relocator : relocators ) {
+                sourceContent = relocator.applyToSourceContent(sourceContent);
+            }
+
+            IOUtil.copy( sourceContent, writer );
+        }
         writer.flush();
 
         resources.add( name );
@@ -372,17 +807,145 @@ public class DefaultShader
         resources.add( name );
     }
 
-    class RelocatorRemapper
+    /**
+     * A jar entry waiting to be written to the shaded jar, optionally with its class already being remapped on the
+     * worker pool.
+     */
+    static class PendingEntry
+    {
+
+        final JarEntry entry;
+
+        final Future<byte[]> remappedClass;
+
+        PendingEntry( JarEntry entry, Future<byte[]> remappedClass )
+        {
+            this.entry = entry;
+            this.remappedClass = remappedClass;
+        }
+
+        byte[] getRemappedClass()
+            throws IOException, MojoExecutionException
+        {
+            try
+            {
+                return remappedClass.get();
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                throw new MojoExecutionException( "Interrupted while remapping class " + entry.getName(), e );
+            }
+            catch ( ExecutionException e )
+            {
+                Throwable cause = e.getCause();
+                if ( cause instanceof IOException )
+                {
+                    throw (IOException) cause;
+                }
+                if ( cause instanceof MojoExecutionException )
+                {
+                    throw (MojoExecutionException) cause;
+                }
+                throw new MojoExecutionException( "Error in ASM processing class " + entry.getName(), cause );
+            }
+        }
+    }
+
+    /**
+     * Reads and remaps a single class on a worker thread.
+     */
+    static class RemapClassTask
+        implements Callable<byte[]>
+    {
+
+        private final RelocatorRemapper remapper;
+
+        private final JarFile jarFile;
+
+        private final JarEntry entry;
+
+        private final ShadeMetrics.Jar jarMetrics;
+
+        RemapClassTask( RelocatorRemapper remapper, JarFile jarFile, JarEntry entry, ShadeMetrics.Jar jarMetrics )
+        {
+            this.remapper = remapper;
+            this.jarFile = jarFile;
+            this.entry = entry;
+            this.jarMetrics = jarMetrics;
+        }
+
+        public byte[] call()
+            throws Exception
+        {
+            InputStream is = jarFile.getInputStream( entry );
+            try
+            {
+                return remapClass( remapper, entry.getName(), is, jarMetrics );
+            }
+            finally
+            {
+                IOUtil.close( is );
+            }
+        }
+    }
+
+    /**
+     * Counts the bytes written to the shaded jar.
+     */
+    static class CountingOutputStream
+        extends FilterOutputStream
+    {
+
+        private long count;
+
+        CountingOutputStream( OutputStream out )
+        {
+            super( out );
+        }
+
+        public void write( int b )
+            throws IOException
+        {
+            out.write( b );
+            count++;
+        }
+
+        public void write( byte[] b, int off, int len )
+            throws IOException
+        {
+            out.write( b, off, len );
+            count += len;
+        }
+
+        long getCount()
+        {
+            return count;
+        }
+    }
+
+    static class RelocatorRemapper
         extends Remapper
     {
 
         private final Pattern classPattern = Pattern.compile( "(\\[*)?L(.+);" );
 
-        List<Relocator> relocators;
+        private final RelocatorIndex relocators;
+
+        private final SourceContentRelocator sourceContentRelocator;
 
         public RelocatorRemapper( List<Relocator> relocators )
         {
-            this.relocators = relocators;
+            this.relocators = new RelocatorIndex( relocators );
+            this.sourceContentRelocator = SourceContentRelocator.create( relocators );
+        }
+
+        /**
+         * @return the relocator for Java sources, or <code>null</code> if the relocators have to be applied one by one
+         */
+        public SourceContentRelocator getSourceContentRelocator()
+        {
+            return sourceContentRelocator;
         }
 
         public boolean hasRelocators()
@@ -390,6 +953,61 @@ public class DefaultShader
             return !relocators.isEmpty();
         }
 
+        /**
+         * Scans the constant pool of a class file for names that one of the relocators could apply to. Every name,
+         * descriptor, signature and string constant the remapper may touch lives in a <code>CONSTANT_Utf8</code>
+         * entry, so a class without such a hit is left unchanged by remapping.
+         *
+         * @param classFile the bytes of the class file
+         * @return <code>false</code> if remapping the class cannot change it
+         */
+        public boolean canRelocate( byte[] classFile )
+        {
+            ConstantPool constantPool;
+            try
+            {
+                constantPool = ConstantPool.read( classFile );
+            }
+            catch ( IllegalArgumentException e )
+            {
+                // broken class file or unknown constant, let ASM deal with it
+                return true;
+            }
+
+            List<String> typeNames = new ArrayList<String>();
+            for ( String value : constantPool.getUtf8Constants() )
+            {
+                if ( canRelocateName( value ) )
+                {
+                    return true;
+                }
+
+                typeNames.clear();
+                ConstantPool.addTypeNames( value, typeNames );
+                for ( String typeName : typeNames )
+                {
+                    if ( canRelocateName( typeName ) )
+                    {
+                        return true;
+                    }
+                }
+            }
+
+            return false;
+        }
+
+        private boolean canRelocateName( String name )
+        {
+            for ( Relocator r : relocators.getCandidates( name ) )
+            {
+                if ( r.canRelocateClass( name ) || r.canRelocatePath( name ) )
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+
         public Object mapValue( Object object )
         {
             if ( object instanceof String )
@@ -408,7 +1026,7 @@ public class DefaultShader
                     name = m.group( 2 );
                 }
 
-                for ( Relocator r : relocators )
+                for ( Relocator r : relocators.getCandidates( name ) )
                 {
                     if ( r.canRelocateClass( name ) )
                     {
@@ -443,7 +1061,7 @@ public class DefaultShader
                 name = m.group( 2 );
             }
 
-            for ( Relocator r : relocators )
+            for ( Relocator r : relocators.getCandidates( name ) )
             {
                 if ( r.canRelocatePath( name ) )
                 {
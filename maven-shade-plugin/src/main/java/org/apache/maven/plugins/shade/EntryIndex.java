@@ -0,0 +1,126 @@
+package org.apache.maven.plugins.shade;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.codehaus.plexus.util.IOUtil;
+import org.codehaus.plexus.util.WriterFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The entries of all jars that make it into the shaded jar, built before anything is written. For every output name
+ * the first jar providing it wins, like it would when writing the entries in order, so entries losing to an earlier
+ * jar can be skipped without remapping them. Every such overlap is recorded for the overlap report.
+ */
+class EntryIndex
+{
+
+    private final Map<File, List<String>> entries = new LinkedHashMap<File, List<String>>();
+
+    private final Map<String, File> owners = new HashMap<String, File>();
+
+    private final List<String[]> overlaps = new ArrayList<String[]>();
+
+    /**
+     * Records an entry of a jar that passed the filters.
+     *
+     * @param jar the jar holding the entry
+     * @param name the entry name in the jar
+     * @param mappedName the name in the shaded jar, or <code>null</code> if the entry is merged by a transformer and
+     *            thus never a duplicate
+     */
+    void add( File jar, String name, String mappedName )
+    {
+        List<String> names = entries.get( jar );
+        if ( names == null )
+        {
+            names = new ArrayList<String>();
+            entries.put( jar, names );
+        }
+        names.add( name );
+
+        if ( mappedName != null )
+        {
+            File owner = owners.get( mappedName );
+            if ( owner == null )
+            {
+                owners.put( mappedName, jar );
+            }
+            else if ( !owner.equals( jar ) )
+            {
+                overlaps.add( new String[] { mappedName, owner.getPath(), jar.getPath() } );
+            }
+        }
+    }
+
+    /**
+     * @return the names of the entries of the jar that passed the filters, in jar order
+     */
+    List<String> getEntries( File jar )
+    {
+        List<String> names = entries.get( jar );
+        return names != null ? names : new ArrayList<String>();
+    }
+
+    /**
+     * @return <code>true</code> unless an earlier jar provides the same output name
+     */
+    boolean isOwner( File jar, String mappedName )
+    {
+        File owner = owners.get( mappedName );
+        return owner == null || owner.equals( jar );
+    }
+
+    int getOverlapCount()
+    {
+        return overlaps.size();
+    }
+
+    /**
+     * Writes one tab separated line per overlapping entry: the name in the shaded jar, the jar it is taken from and
+     * the jar whose copy is dropped.
+     */
+    void writeReport( File report )
+        throws IOException
+    {
+        report.getParentFile().mkdirs();
+
+        Writer writer = WriterFactory.newWriter( report, "UTF-8" );
+        try
+        {
+            writer.write( "# entry\tincluded from\tskipped from\n" );
+            for ( String[] overlap : overlaps )
+            {
+                writer.write( overlap[0] + '\t' + overlap[1] + '\t' + overlap[2] + '\n' );
+            }
+        }
+        finally
+        {
+            IOUtil.close( writer );
+        }
+    }
+}
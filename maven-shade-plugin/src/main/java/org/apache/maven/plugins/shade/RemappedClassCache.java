@@ -0,0 +1,224 @@
+package org.apache.maven.plugins.shade;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.plugins.shade.relocation.Relocator;
+import org.apache.maven.plugins.shade.relocation.SimpleRelocator;
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.IOUtil;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * Keeps the remapped classes of every shaded jar on disk between builds. Each input jar gets one cache jar, named
+ * after a digest of the input jar's content and of the relocators, holding the remapped bytes of its classes under
+ * their original entry names. Filters are applied before an entry is looked up, so they don't need to be part of the
+ * key. Only {@link SimpleRelocator}s can be part of the key, see {@link #supports(List)}.
+ */
+class RemappedClassCache
+{
+
+    private final File directory;
+
+    private final String relocatorsKey;
+
+    RemappedClassCache( File directory, List<Relocator> relocators )
+    {
+        this.directory = directory;
+
+        StringBuilder key = new StringBuilder();
+        for ( Relocator relocator : relocators )
+        {
+            key.append( relocator ).append( '\n' );
+        }
+        this.relocatorsKey = key.toString();
+    }
+
+    /**
+     * Tells whether the remapped classes of the specified relocators can be cached. The configuration of a relocator
+     * has to be part of the key, which is only known for {@link SimpleRelocator}, whose <code>toString()</code> covers
+     * all of it. Any other relocator, including a subclass of {@link SimpleRelocator}, may depend on configuration the
+     * key would miss, and would then hit stale classes.
+     *
+     * @param relocators the relocators of the shading
+     * @return <code>true</code> if the classes can be cached
+     */
+    static boolean supports( List<Relocator> relocators )
+    {
+        for ( Relocator relocator : relocators )
+        {
+            if ( relocator.getClass() != SimpleRelocator.class )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Opens the cache for one input jar. If the cache already holds the remapped classes of this jar they can be
+     * read with {@link Jar#get(String)}, otherwise the classes passed to {@link Jar#put(String, byte[])} are recorded
+     * for the next build.
+     *
+     * @param jar the input jar
+     * @return the cache for this jar
+     * @throws IOException if the jar or the cache cannot be read
+     */
+    Jar open( File jar )
+        throws IOException
+    {
+        directory.mkdirs();
+
+        String prefix = CacheFiles.getPrefix( jar );
+
+        return new Jar( new File( directory, prefix + CacheFiles.checksum( jar, relocatorsKey ) + ".jar" ), prefix );
+    }
+
+    /**
+     * The cached classes of a single input jar.
+     */
+    class Jar
+    {
+
+        private final File file;
+
+        private final String prefix;
+
+        private JarFile cached;
+
+        private File tempFile;
+
+        private JarOutputStream recording;
+
+        Jar( File file, String prefix )
+            throws IOException
+        {
+            this.file = file;
+            this.prefix = prefix;
+
+            if ( file.isFile() )
+            {
+                cached = new JarFile( file );
+            }
+            else
+            {
+                tempFile = new File( file.getPath() + ".tmp" );
+                recording = new JarOutputStream( new FileOutputStream( tempFile ) );
+            }
+        }
+
+        /**
+         * @return <code>true</code> if the classes of this jar were loaded from the cache
+         */
+        boolean isHit()
+        {
+            return cached != null;
+        }
+
+        boolean contains( String name )
+        {
+            return cached != null && cached.getEntry( name ) != null;
+        }
+
+        /**
+         * @param name the entry name of the class in the input jar
+         * @return the remapped class, or <code>null</code> if it is not cached
+         */
+        byte[] get( String name )
+            throws IOException
+        {
+            if ( cached == null )
+            {
+                return null;
+            }
+
+            ZipEntry entry = cached.getEntry( name );
+            if ( entry == null )
+            {
+                return null;
+            }
+
+            InputStream is = cached.getInputStream( entry );
+            try
+            {
+                return IOUtil.toByteArray( is );
+            }
+            finally
+            {
+                IOUtil.close( is );
+            }
+        }
+
+        void put( String name, byte[] remappedClass )
+            throws IOException
+        {
+            if ( recording != null )
+            {
+                try
+                {
+                    recording.putNextEntry( new JarEntry( name ) );
+                }
+                catch ( ZipException e )
+                {
+                    // the input jar holds this entry twice, only the first one is written to the shaded jar anyway
+                    return;
+                }
+                recording.write( remappedClass );
+            }
+        }
+
+        /**
+         * Closes the cache. A recorded cache is only kept if the jar was processed completely, in which case the
+         * cache files of older versions of the same jar are removed.
+         *
+         * @param complete whether every entry of the jar went through this cache
+         */
+        void close( boolean complete )
+            throws IOException
+        {
+            if ( cached != null )
+            {
+                cached.close();
+                return;
+            }
+
+            recording.close();
+
+            if ( !complete )
+            {
+                tempFile.delete();
+                return;
+            }
+
+            CacheFiles.deleteStale( directory, prefix, ".jar" );
+
+            FileUtils.rename( tempFile, file );
+        }
+    }
+}
@@ -0,0 +1,404 @@
+package org.apache.maven.plugins.shade;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.codehaus.plexus.util.IOUtil;
+import org.codehaus.plexus.util.WriterFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Where the time of shading goes: counters and timings for every input jar plus named timings for work that isn't
+ * tied to a single jar, such as analyzing the dependencies for a minimized jar. The shader fills it in while it
+ * runs; the result can be written as JSON and summarized in the build log.
+ *
+ * @since 2.0
+ */
+public class ShadeMetrics
+{
+
+    private final Map<File, Jar> jars = new LinkedHashMap<File, Jar>();
+
+    private final Map<String, Long> timings = new LinkedHashMap<String, Long>();
+
+    /**
+     * @param jar an input jar
+     * @return the metrics of that jar, created on first use
+     */
+    public synchronized Jar getJar( File jar )
+    {
+        Jar metrics = jars.get( jar );
+        if ( metrics == null )
+        {
+            metrics = new Jar( jar );
+            jars.put( jar, metrics );
+        }
+        return metrics;
+    }
+
+    public synchronized List<Jar> getJars()
+    {
+        return new ArrayList<Jar>( jars.values() );
+    }
+
+    /**
+     * Adds to a named timing.
+     *
+     * @param name what the time was spent on
+     * @param nanos the time spent, in nanoseconds
+     */
+    public synchronized void addTime( String name, long nanos )
+    {
+        timings.put( name, Long.valueOf( add( timings.get( name ), nanos ) ) );
+    }
+
+    public synchronized Map<String, Long> getTimings()
+    {
+        return new LinkedHashMap<String, Long>( timings );
+    }
+
+    /**
+     * @param top how many of the slowest jars to list
+     * @return a few lines describing where the time went, for the build log
+     */
+    public List<String> getSummary( int top )
+    {
+        List<Jar> sorted = getJars();
+
+        long nanos = 0;
+        long asmNanos = 0;
+        long transformerNanos = 0;
+        int classesRemapped = 0;
+        for ( Jar jar : sorted )
+        {
+            nanos += jar.getNanos();
+            asmNanos += jar.getAsmNanos();
+            classesRemapped += jar.getClassesRemapped();
+            for ( Long time : jar.getTransformerNanos().values() )
+            {
+                transformerNanos += time.longValue();
+            }
+        }
+
+        List<String> summary = new ArrayList<String>();
+        summary.add( "Processed " + sorted.size() + " jars in " + millis( nanos ) + " ms, " + millis( asmNanos )
+            + " ms of which remapping " + classesRemapped + " classes and " + millis( transformerNanos )
+            + " ms transforming resources" );
+
+        for ( Map.Entry<String, Long> timing : getTimings().entrySet() )
+        {
+            summary.add( "  " + timing.getKey() + ": " + millis( timing.getValue().longValue() ) + " ms" );
+        }
+
+        Collections.sort( sorted, new Comparator<Jar>()
+        {
+            public int compare( Jar o1, Jar o2 )
+            {
+                return o1.getNanos() < o2.getNanos() ? 1 : ( o1.getNanos() == o2.getNanos() ? 0 : -1 );
+            }
+        } );
+
+        for ( Jar jar : sorted.subList( 0, Math.min( top, sorted.size() ) ) )
+        {
+            summary.add( "  " + millis( jar.getNanos() ) + " ms " + jar.getFile().getName() + " ("
+                + jar.getEntriesIncluded() + " entries, " + jar.getClassesRemapped() + " classes remapped in "
+                + millis( jar.getAsmNanos() ) + " ms)" );
+        }
+
+        return summary;
+    }
+
+    /**
+     * Writes all metrics as a JSON document. Times are given in milliseconds and sizes in bytes.
+     */
+    public void writeReport( File report )
+        throws IOException
+    {
+        report.getParentFile().mkdirs();
+
+        Writer writer = WriterFactory.newWriter( report, "UTF-8" );
+        try
+        {
+            writer.write( "{\n  \"timings\": " );
+            writeTimes( writer, getTimings() );
+
+            writer.write( ",\n  \"jars\": [" );
+            for ( Iterator<Jar> it = getJars().iterator(); it.hasNext(); )
+            {
+                Jar jar = it.next();
+
+                writer.write( "\n    {\n" );
+                writer.write( "      \"file\": " + quote( jar.getFile().getPath() ) + ",\n" );
+                writer.write( "      \"millis\": " + millis( jar.getNanos() ) + ",\n" );
+                writer.write( "      \"entries\": " + jar.getEntries() + ",\n" );
+                writer.write( "      \"entriesIncluded\": " + jar.getEntriesIncluded() + ",\n" );
+                writer.write( "      \"bytesIn\": " + jar.getBytesIn() + ",\n" );
+                writer.write( "      \"bytesOut\": " + jar.getBytesOut() + ",\n" );
+                writer.write( "      \"classesRemapped\": " + jar.getClassesRemapped() + ",\n" );
+                writer.write( "      \"classesCopied\": " + jar.getClassesCopied() + ",\n" );
+                writer.write( "      \"classesCached\": " + jar.getClassesCached() + ",\n" );
+                writer.write( "      \"asmMillis\": " + millis( jar.getAsmNanos() ) + ",\n" );
+                writer.write( "      \"transformerMillis\": " );
+                writeTimes( writer, jar.getTransformerNanos() );
+                writer.write( "\n    }" );
+                if ( it.hasNext() )
+                {
+                    writer.write( "," );
+                }
+            }
+            writer.write( "\n  ]\n}\n" );
+        }
+        finally
+        {
+            IOUtil.close( writer );
+        }
+    }
+
+    private static void writeTimes( Writer writer, Map<String, Long> times )
+        throws IOException
+    {
+        writer.write( "{" );
+        for ( Iterator<Map.Entry<String, Long>> it = times.entrySet().iterator(); it.hasNext(); )
+        {
+            Map.Entry<String, Long> time = it.next();
+            writer.write( " " + quote( time.getKey() ) + ": " + millis( time.getValue().longValue() ) );
+            if ( it.hasNext() )
+            {
+                writer.write( "," );
+            }
+        }
+        writer.write( " }" );
+    }
+
+    private static String quote( String value )
+    {
+        StringBuilder sb = new StringBuilder( value.length() + 2 );
+        sb.append( '"' );
+        for ( int i = 0; i < value.length(); i++ )
+        {
+            char c = value.charAt( i );
+            if ( c == '"' || c == '\\' )
+            {
+                sb.append( '\\' ).append( c );
+            }
+            else if ( c < 0x20 )
+            {
+                String hex = Integer.toHexString( c );
+                sb.append( "\\u" );
+                for ( int j = hex.length(); j < 4; j++ )
+                {
+                    sb.append( '0' );
+                }
+                sb.append( hex );
+            }
+            else
+            {
+                sb.append( c );
+            }
+        }
+        return sb.append( '"' ).toString();
+    }
+
+    private static long millis( long nanos )
+    {
+        return nanos / 1000000L;
+    }
+
+    private static long add( Long total, long nanos )
+    {
+        return total != null ? total.longValue() + nanos : nanos;
+    }
+
+    /**
+     * The metrics of a single input jar. Classes may be remapped on several threads at once, so all counters are
+     * safe to update concurrently.
+     */
+    public static class Jar
+    {
+
+        private final File file;
+
+        private final AtomicLong nanos = new AtomicLong();
+
+        private final AtomicInteger entries = new AtomicInteger();
+
+        private final AtomicInteger entriesIncluded = new AtomicInteger();
+
+        private final AtomicLong bytesIn = new AtomicLong();
+
+        private final AtomicLong bytesOut = new AtomicLong();
+
+        private final AtomicInteger classesRemapped = new AtomicInteger();
+
+        private final AtomicInteger classesCopied = new AtomicInteger();
+
+        private final AtomicInteger classesCached = new AtomicInteger();
+
+        private final AtomicLong asmNanos = new AtomicLong();
+
+        private final Map<String, Long> transformerNanos = new LinkedHashMap<String, Long>();
+
+        Jar( File file )
+        {
+            this.file = file;
+        }
+
+        public File getFile()
+        {
+            return file;
+        }
+
+        /**
+         * @return the time spent on this jar, in nanoseconds
+         */
+        public long getNanos()
+        {
+            return nanos.get();
+        }
+
+        void addNanos( long time )
+        {
+            nanos.addAndGet( time );
+        }
+
+        /**
+         * @return the number of entries read from this jar
+         */
+        public int getEntries()
+        {
+            return entries.get();
+        }
+
+        void addEntry( boolean included )
+        {
+            entries.incrementAndGet();
+            if ( included )
+            {
+                entriesIncluded.incrementAndGet();
+            }
+        }
+
+        /**
+         * @return the number of entries that passed the filters
+         */
+        public int getEntriesIncluded()
+        {
+            return entriesIncluded.get();
+        }
+
+        /**
+         * @return the size of this jar
+         */
+        public long getBytesIn()
+        {
+            return bytesIn.get();
+        }
+
+        void addBytesIn( long bytes )
+        {
+            bytesIn.addAndGet( bytes );
+        }
+
+        /**
+         * @return the compressed size of the entries of the shaded jar taken from this jar
+         */
+        public long getBytesOut()
+        {
+            return bytesOut.get();
+        }
+
+        void addBytesOut( long bytes )
+        {
+            bytesOut.addAndGet( bytes );
+        }
+
+        /**
+         * @return the number of classes rewritten by ASM
+         */
+        public int getClassesRemapped()
+        {
+            return classesRemapped.get();
+        }
+
+        /**
+         * @return the number of classes no relocator applies to, which were copied as they are
+         */
+        public int getClassesCopied()
+        {
+            return classesCopied.get();
+        }
+
+        void addClassCopied()
+        {
+            classesCopied.incrementAndGet();
+        }
+
+        /**
+         * @return the number of remapped classes taken from the cache
+         */
+        public int getClassesCached()
+        {
+            return classesCached.get();
+        }
+
+        void addClassCached()
+        {
+            classesCached.incrementAndGet();
+        }
+
+        /**
+         * @return the time spent in ASM remapping classes, in nanoseconds summed over all threads
+         */
+        public long getAsmNanos()
+        {
+            return asmNanos.get();
+        }
+
+        void addClassRemapped( long time )
+        {
+            classesRemapped.incrementAndGet();
+            asmNanos.addAndGet( time );
+        }
+
+        /**
+         * @return the time each resource transformer spent on resources of this jar, in nanoseconds
+         */
+        public synchronized Map<String, Long> getTransformerNanos()
+        {
+            return new LinkedHashMap<String, Long>( transformerNanos );
+        }
+
+        synchronized void addTransformerNanos( String transformer, long time )
+        {
+            transformerNanos.put( transformer, Long.valueOf( add( transformerNanos.get( transformer ), time ) ) );
+        }
+    }
+}
@@ -26,6 +26,7 @@ import org.apache.maven.plugins.shade.resource.ResourceTransformer;
 import java.io.File;
 import java.util.List;
 import java.util.Set;
+import java.util.zip.Deflater;
 
 /**
  * Parameter object used to pass multitude of args to Shader.shade()
@@ -46,6 +47,20 @@ public class ShadeRequest
 
     private boolean shadeSourcesContent;
 
+    private int threads = 1;
+
+    private File cacheDirectory;
+
+    private File overlapReport;
+
+    private ShadeMetrics metrics;
+
+    private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
+    private boolean storeOnly;
+
+    private boolean reproducible;
+
     public Set<File> getJars()
     {
         return jars;
@@ -137,4 +152,114 @@ public class ShadeRequest
     {
         this.shadeSourcesContent = shadeSourcesContent;
     }
+
+    public int getThreads()
+    {
+        return threads;
+    }
+
+    /**
+     * The number of threads used to remap classes. With 1 thread all classes are remapped on the calling thread.
+     * Whatever the value, entries are always written to the output jar in the same order.
+     *
+     * @param threads
+     */
+    public void setThreads( int threads )
+    {
+        this.threads = threads;
+    }
+
+    public File getCacheDirectory()
+    {
+        return cacheDirectory;
+    }
+
+    /**
+     * Where to keep the remapped classes of each jar between builds, so that jars which did not change since the
+     * previous build are not remapped again. No cache is used when <code>null</code>.
+     *
+     * @param cacheDirectory
+     */
+    public void setCacheDirectory( File cacheDirectory )
+    {
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    public File getOverlapReport()
+    {
+        return overlapReport;
+    }
+
+    /**
+     * Where to write the entries that more than one jar provides, together with the jar each entry is taken from.
+     * No report is written when <code>null</code>.
+     *
+     * @param overlapReport
+     */
+    public void setOverlapReport( File overlapReport )
+    {
+        this.overlapReport = overlapReport;
+    }
+
+    public ShadeMetrics getMetrics()
+    {
+        return metrics;
+    }
+
+    /**
+     * Where to record the time spent and the amount of work done on every jar. Several requests may share the same
+     * metrics. Nothing is recorded when <code>null</code>.
+     *
+     * @param metrics
+     */
+    public void setMetrics( ShadeMetrics metrics )
+    {
+        this.metrics = metrics;
+    }
+
+    public int getCompressionLevel()
+    {
+        return compressionLevel;
+    }
+
+    /**
+     * The level used to deflate the entries of the output jar, from 0 to 9 or {@link Deflater#DEFAULT_COMPRESSION}.
+     *
+     * @param compressionLevel
+     */
+    public void setCompressionLevel( int compressionLevel )
+    {
+        this.compressionLevel = compressionLevel;
+    }
+
+    public boolean isStoreOnly()
+    {
+        return storeOnly;
+    }
+
+    /**
+     * When true, the entries of the output jar are stored without compression and the compression level is ignored.
+     *
+     * @param storeOnly
+     */
+    public void setStoreOnly( boolean storeOnly )
+    {
+        this.storeOnly = storeOnly;
+    }
+
+    public boolean isReproducible()
+    {
+        return reproducible;
+    }
+
+    /**
+     * When true, the output jar has its entries sorted by name, an entry for every directory and a fixed time on
+     * every entry, so that the same input always produces the same bytes.
+     *
+     * @param reproducible
+     */
+    public void setReproducible( boolean reproducible )
+    {
+        this.reproducible = reproducible;
+    }
 }
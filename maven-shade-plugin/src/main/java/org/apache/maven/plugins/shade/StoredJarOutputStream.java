@@ -0,0 +1,125 @@
+package org.apache.maven.plugins.shade;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.jar.JarOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * A jar output stream writing every entry uncompressed. A stored entry needs its size and CRC before its header is
+ * written, so the content of each entry is collected until the entry is closed. This is transparent to callers such
+ * as the resource transformers, which simply put entries and write to them as they would with a deflating stream.
+ */
+class StoredJarOutputStream
+    extends JarOutputStream
+{
+
+    private final Set<String> names = new HashSet<String>();
+
+    private final EntryBuffer buffer = new EntryBuffer();
+
+    private ZipEntry entry;
+
+    StoredJarOutputStream( OutputStream out )
+        throws IOException
+    {
+        super( out );
+        setMethod( STORED );
+    }
+
+    public void putNextEntry( ZipEntry ze )
+        throws IOException
+    {
+        closeEntry();
+
+        // report duplicates right away, like the deflating stream does, rather than when the entry is written
+        if ( !names.add( ze.getName() ) )
+        {
+            throw new ZipException( "duplicate entry: " + ze.getName() );
+        }
+
+        entry = ze;
+    }
+
+    public void write( byte[] b, int off, int len )
+        throws IOException
+    {
+        if ( entry == null )
+        {
+            throw new ZipException( "no current ZIP entry" );
+        }
+        buffer.write( b, off, len );
+    }
+
+    public void closeEntry()
+        throws IOException
+    {
+        if ( entry == null )
+        {
+            return;
+        }
+
+        ZipEntry ze = entry;
+        entry = null;
+
+        CRC32 crc = new CRC32();
+        crc.update( buffer.getBuffer(), 0, buffer.size() );
+
+        ze.setMethod( STORED );
+        ze.setSize( buffer.size() );
+        ze.setCompressedSize( buffer.size() );
+        ze.setCrc( crc.getValue() );
+
+        super.putNextEntry( ze );
+        super.write( buffer.getBuffer(), 0, buffer.size() );
+        super.closeEntry();
+
+        buffer.reset();
+    }
+
+    public void finish()
+        throws IOException
+    {
+        closeEntry();
+        super.finish();
+    }
+
+    private static class EntryBuffer
+        extends ByteArrayOutputStream
+    {
+
+        EntryBuffer()
+        {
+            super( 8192 );
+        }
+
+        byte[] getBuffer()
+        {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package org.apache.maven.plugins.shade.filter;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.plugins.shade.CacheFiles;
+import org.apache.maven.plugins.shade.ConstantPool;
+import org.codehaus.plexus.util.IOUtil;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * The classes of one archive together with the classes each of them refers to, as found in their constant pools.
+ * Names are internal names (<code>org/foo/Bar</code>) kept in a table local to the archive and referred to by index.
+ * <p/>
+ * As the analysis only depends on the content of the archive, it can be kept in an index directory under a name
+ * derived from the archive's checksum and read back on later builds instead of parsing the archive again.
+ */
+class ArchiveClasses
+{
+
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * All names this archive defines or refers to.
+     */
+    final String[] names;
+
+    /**
+     * For each class defined by this archive, the index of its name.
+     */
+    final int[] classes;
+
+    /**
+     * For each class defined by this archive, the indexes of the names it refers to.
+     */
+    final int[][] references;
+
+    private ArchiveClasses( String[] names, int[] classes, int[][] references )
+    {
+        this.names = names;
+        this.classes = classes;
+        this.references = references;
+    }
+
+    /**
+     * Analyzes an archive, or reads the analysis from the index directory if this exact archive was seen before.
+     *
+     * @param archive the jar to analyze
+     * @param indexDirectory where to keep analyses between builds, may be <code>null</code>
+     * @return the classes of the archive
+     * @throws IOException if the archive cannot be read
+     * @throws IllegalArgumentException if the archive contains a malformed class
+     */
+    static ArchiveClasses load( File archive, File indexDirectory )
+        throws IOException
+    {
+        if ( indexDirectory == null )
+        {
+            return analyze( archive );
+        }
+
+        String prefix = CacheFiles.getPrefix( archive );
+        File indexFile = new File( indexDirectory, prefix + CacheFiles.checksum( archive, null ) + ".idx" );
+
+        if ( indexFile.isFile() )
+        {
+            try
+            {
+                return read( indexFile );
+            }
+            catch ( IOException e )
+            {
+                // fall through and analyze again
+            }
+        }
+
+        ArchiveClasses archiveClasses = analyze( archive );
+
+        indexDirectory.mkdirs();
+        CacheFiles.deleteStale( indexDirectory, prefix, ".idx" );
+        archiveClasses.write( indexFile );
+
+        return archiveClasses;
+    }
+
+    private static ArchiveClasses analyze( File archive )
+        throws IOException
+    {
+        List<String> names = new ArrayList<String>();
+        Map<String, Integer> indexes = new HashMap<String, Integer>();
+        List<Integer> classes = new ArrayList<Integer>();
+        List<int[]> references = new ArrayList<int[]>();
+
+        List<String> referenced = new ArrayList<String>();
+
+        JarFile jarFile = new JarFile( archive );
+        try
+        {
+            for ( Enumeration<JarEntry> e = jarFile.entries(); e.hasMoreElements(); )
+            {
+                JarEntry entry = e.nextElement();
+                String entryName = entry.getName();
+                if ( entry.isDirectory() || !entryName.endsWith( ".class" ) )
+                {
+                    continue;
+                }
+
+                InputStream is = jarFile.getInputStream( entry );
+                byte[] classFile;
+                try
+                {
+                    classFile = IOUtil.toByteArray( is );
+                }
+                finally
+                {
+                    IOUtil.close( is );
+                }
+
+                ConstantPool constantPool = ConstantPool.read( classFile );
+
+                referenced.clear();
+                for ( String className : constantPool.getClassNames() )
+                {
+                    if ( className.startsWith( "[" ) )
+                    {
+                        ConstantPool.addTypeNames( className, referenced );
+                    }
+                    else
+                    {
+                        referenced.add( className );
+                    }
+                }
+                for ( String value : constantPool.getUtf8Constants() )
+                {
+                    ConstantPool.addTypeNames( value, referenced );
+                }
+
+                int self = index( entryName.substring( 0, entryName.length() - 6 ), names, indexes );
+
+                int[] refs = new int[referenced.size()];
+                int count = 0;
+                for ( String name : referenced )
+                {
+                    int ref = index( name, names, indexes );
+                    if ( ref != self )
+                    {
+                        refs[count++] = ref;
+                    }
+                }
+
+                classes.add( Integer.valueOf( self ) );
+                references.add( unique( refs, count ) );
+            }
+        }
+        finally
+        {
+            jarFile.close();
+        }
+
+        int[] classIndexes = new int[classes.size()];
+        for ( int i = 0; i < classIndexes.length; i++ )
+        {
+            classIndexes[i] = classes.get( i ).intValue();
+        }
+
+        return new ArchiveClasses( names.toArray( new String[names.size()] ), classIndexes,
+                                   references.toArray( new int[references.size()][] ) );
+    }
+
+    private static int index( String name, List<String> names, Map<String, Integer> indexes )
+    {
+        Integer index = indexes.get( name );
+        if ( index == null )
+        {
+            index = Integer.valueOf( names.size() );
+            names.add( name );
+            indexes.put( name, index );
+        }
+        return index.intValue();
+    }
+
+    private static int[] unique( int[] values, int count )
+    {
+        Arrays.sort( values, 0, count );
+
+        int unique = 0;
+        for ( int i = 0; i < count; i++ )
+        {
+            if ( unique == 0 || values[unique - 1] != values[i] )
+            {
+                values[unique++] = values[i];
+            }
+        }
+
+        int[] result = new int[unique];
+        System.arraycopy( values, 0, result, 0, unique );
+        return result;
+    }
+
+    private static ArchiveClasses read( File indexFile )
+        throws IOException
+    {
+        DataInputStream in = new DataInputStream( new BufferedInputStream( new FileInputStream( indexFile ) ) );
+        try
+        {
+            if ( in.readInt() != FORMAT_VERSION )
+            {
+                throw new IOException( "Unsupported index format in " + indexFile );
+            }
+
+            String[] names = new String[in.readInt()];
+            for ( int i = 0; i < names.length; i++ )
+            {
+                names[i] = in.readUTF();
+            }
+
+            int[] classes = new int[in.readInt()];
+            int[][] references = new int[classes.length][];
+            for ( int i = 0; i < classes.length; i++ )
+            {
+                classes[i] = in.readInt();
+                references[i] = new int[in.readInt()];
+                for ( int j = 0; j < references[i].length; j++ )
+                {
+                    references[i][j] = in.readInt();
+                }
+            }
+
+            return new ArchiveClasses( names, classes, references );
+        }
+        finally
+        {
+            IOUtil.close( in );
+        }
+    }
+
+    private void write( File indexFile )
+        throws IOException
+    {
+        File tempFile = new File( indexFile.getPath() + ".tmp" );
+
+        DataOutputStream out = new DataOutputStream( new BufferedOutputStream( new FileOutputStream( tempFile ) ) );
+        try
+        {
+            out.writeInt( FORMAT_VERSION );
+
+            out.writeInt( names.length );
+            for ( String name : names )
+            {
+                out.writeUTF( name );
+            }
+
+            out.writeInt( classes.length );
+            for ( int i = 0; i < classes.length; i++ )
+            {
+                out.writeInt( classes[i] );
+                out.writeInt( references[i].length );
+                for ( int ref : references[i] )
+                {
+                    out.writeInt( ref );
+                }
+            }
+        }
+        finally
+        {
+            IOUtil.close( out );
+        }
+
+        if ( !tempFile.renameTo( indexFile ) )
+        {
+            tempFile.delete();
+        }
+    }
+}
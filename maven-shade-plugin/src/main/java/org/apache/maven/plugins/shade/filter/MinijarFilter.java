@@ -20,25 +20,26 @@ package org.apache.maven.plugins.shade.filter;
  */
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.project.MavenProject;
-import org.codehaus.plexus.util.IOUtil;
-import org.vafer.jdependency.Clazz;
-import org.vafer.jdependency.Clazzpath;
-import org.vafer.jdependency.ClazzpathUnit;
 
 /**
  * A filter that prevents the inclusion of classes not required in the final jar.
+ * <p/>
+ * The classes of the project artifact and its dependencies are numbered and their references kept as plain
+ * <code>int</code> arrays, so finding the classes the project needs is a breadth first search over those arrays. The
+ * per-artifact analysis can be kept in an index directory and reused as long as the artifact doesn't change.
  *
  * @author Torsten Curdt
  */
@@ -48,7 +49,11 @@ public class MinijarFilter
 
     private Log log;
 
-    private Set<Clazz> removable;
+    private final Map<String, Integer> ids = new HashMap<String, Integer>();
+
+    private final List<String> names = new ArrayList<String>();
+
+    private boolean[] removable;
 
     private int classesKept;
 
@@ -64,111 +69,210 @@ public class MinijarFilter
      *
      * @since 1.6
      */
-    @SuppressWarnings( { "unchecked", "rawtypes" } )
     public MinijarFilter( MavenProject project, Log log, List<SimpleFilter> simpleFilters )
         throws IOException
     {
+        this( project, log, simpleFilters, null );
+    }
 
-        this.log = log;
+    /**
+     * @param indexDirectory where to keep the class analysis of each artifact between builds, may be
+     *            <code>null</code>
+     * @since 2.0
+     */
+    @SuppressWarnings( "rawtypes" )
+    public MinijarFilter( MavenProject project, Log log, List<SimpleFilter> simpleFilters, File indexDirectory )
+        throws IOException
+    {
 
-        Clazzpath cp = new Clazzpath();
+        this.log = log;
 
-        ClazzpathUnit artifactUnit =
-            cp.addClazzpathUnit( new FileInputStream( project.getArtifact().getFile() ), project.toString() );
+        ArchiveClasses artifactClasses = ArchiveClasses.load( project.getArtifact().getFile(), indexDirectory );
 
+        List<Artifact> dependencies = new ArrayList<Artifact>();
+        List<ArchiveClasses> dependencyClasses = new ArrayList<ArchiveClasses>();
         for ( Iterator it = project.getArtifacts().iterator(); it.hasNext(); )
         {
             Artifact dependency = (Artifact) it.next();
-            addDependencyToClasspath( cp, dependency );
+            ArchiveClasses classes = loadDependency( dependency, indexDirectory );
+            if ( classes != null )
+            {
+                dependencies.add( dependency );
+                dependencyClasses.add( classes );
+            }
         }
 
-        removable = cp.getClazzes();
-        removePackages( artifactUnit );
-        removable.removeAll( artifactUnit.getClazzes() );
-        removable.removeAll( artifactUnit.getTransitiveDependencies() );
-        removeSpecificallyIncludedClasses( project, simpleFilters == null
+        register( artifactClasses );
+        for ( ArchiveClasses classes : dependencyClasses )
+        {
+            register( classes );
+        }
+
+        int[][] graph = buildGraph( artifactClasses, dependencyClasses );
+
+        boolean[] required = new boolean[names.size()];
+        int[] queue = new int[names.size()];
+        int head = 0;
+        int tail = 0;
+        for ( int name : artifactClasses.classes )
+        {
+            int id = ids.get( artifactClasses.names[name] ).intValue();
+            if ( !required[id] )
+            {
+                required[id] = true;
+                queue[tail++] = id;
+            }
+        }
+        while ( head < tail )
+        {
+            for ( int ref : graph[queue[head++]] )
+            {
+                if ( !required[ref] )
+                {
+                    required[ref] = true;
+                    queue[tail++] = ref;
+                }
+            }
+        }
+
+        removable = new boolean[names.size()];
+        for ( int id = 0; id < removable.length; id++ )
+        {
+            removable[id] = !required[id];
+        }
+
+        removePackages( queue, tail );
+        removeSpecificallyIncludedClasses( dependencies, dependencyClasses, simpleFilters == null
             ? Collections.<SimpleFilter>emptyList()
             : simpleFilters );
     }
 
-    private ClazzpathUnit addDependencyToClasspath( Clazzpath cp, Artifact dependency ) throws IOException
+    private ArchiveClasses loadDependency( Artifact dependency, File indexDirectory )
+        throws IOException
     {
-        InputStream is = null;
-        ClazzpathUnit clazzpathUnit = null;
         try
         {
-            is = new FileInputStream( dependency.getFile() );
-            clazzpathUnit = cp.addClazzpathUnit( is, dependency.toString() );
+            return ArchiveClasses.load( dependency.getFile(), indexDirectory );
         }
-        catch( ArrayIndexOutOfBoundsException e )
+        catch ( IllegalArgumentException e )
         {
-            //trap ArrayIndexOutOfBoundsExceptions caused by malformed dependency classes (MSHADE-107)
+            //trap malformed dependency classes (MSHADE-107)
             log.warn( dependency.toString() + " could not be analyzed for minimization; dependency is probably malformed." );
+            return null;
         }
-        finally
+    }
+
+    private void register( ArchiveClasses classes )
+    {
+        for ( int name : classes.classes )
         {
-            IOUtil.close( is );
+            String className = classes.names[name];
+            if ( !ids.containsKey( className ) )
+            {
+                ids.put( className, Integer.valueOf( names.size() ) );
+                names.add( className );
+            }
         }
-        
-        return clazzpathUnit;
     }
-    
-    private void removePackages( ClazzpathUnit artifactUnit )
+
+    /**
+     * @return for each class id, the ids of the known classes it refers to
+     */
+    private int[][] buildGraph( ArchiveClasses artifactClasses, List<ArchiveClasses> dependencyClasses )
     {
-        Set<String> packageNames = new HashSet<String>();
-        removePackages( artifactUnit.getClazzes(), packageNames );
-        removePackages( artifactUnit.getTransitiveDependencies(), packageNames );
+        List<ArchiveClasses> all = new ArrayList<ArchiveClasses>( dependencyClasses.size() + 1 );
+        all.add( artifactClasses );
+        all.addAll( dependencyClasses );
+
+        int[][] graph = new int[names.size()][];
+        for ( ArchiveClasses classes : all )
+        {
+            // translate the archive local names to ids once, names of classes outside the classpath become -1
+            int[] localIds = new int[classes.names.length];
+            for ( int i = 0; i < localIds.length; i++ )
+            {
+                Integer id = ids.get( classes.names[i] );
+                localIds[i] = id != null ? id.intValue() : -1;
+            }
+
+            for ( int c = 0; c < classes.classes.length; c++ )
+            {
+                int id = localIds[classes.classes[c]];
+
+                int[] refs = new int[classes.references[c].length];
+                int count = 0;
+                for ( int ref : classes.references[c] )
+                {
+                    if ( localIds[ref] >= 0 )
+                    {
+                        refs[count++] = localIds[ref];
+                    }
+                }
+
+                // a class found in several archives refers to the union of what each copy refers to
+                int[] previous = graph[id] != null ? graph[id] : new int[0];
+                int[] merged = new int[previous.length + count];
+                System.arraycopy( previous, 0, merged, 0, previous.length );
+                System.arraycopy( refs, 0, merged, previous.length, count );
+                graph[id] = merged;
+            }
+        }
+
+        for ( int id = 0; id < graph.length; id++ )
+        {
+            if ( graph[id] == null )
+            {
+                graph[id] = new int[0];
+            }
+        }
+
+        return graph;
     }
 
-    @SuppressWarnings( "rawtypes" )
-    private void removePackages( Set clazzes, Set<String> packageNames )
+    private void removePackages( int[] required, int count )
     {
-        Iterator it = clazzes.iterator();
-        while ( it.hasNext() )
+        Set<String> packageNames = new HashSet<String>();
+        for ( int i = 0; i < count; i++ )
         {
-            Clazz clazz = (Clazz) it.next();
-            String name = clazz.getName();
-            while ( name.contains( "." ) )
+            String name = names.get( required[i] );
+            while ( name.indexOf( '/' ) >= 0 )
             {
-                name = name.substring( 0, name.lastIndexOf( '.' ) );
+                name = name.substring( 0, name.lastIndexOf( '/' ) );
                 if ( packageNames.add( name ) )
                 {
-                    removable.remove( new Clazz( name + ".package-info" ) );
+                    Integer packageInfo = ids.get( name + "/package-info" );
+                    if ( packageInfo != null )
+                    {
+                        removable[packageInfo.intValue()] = false;
+                    }
                 }
             }
         }
     }
 
-    @SuppressWarnings( "rawtypes" )
-    private void removeSpecificallyIncludedClasses( MavenProject project, List<SimpleFilter> simpleFilters )
-        throws IOException
+    private void removeSpecificallyIncludedClasses( List<Artifact> dependencies,
+                                                    List<ArchiveClasses> dependencyClasses,
+                                                    List<SimpleFilter> simpleFilters )
     {
         //remove classes specifically included in filters
-        Clazzpath checkCp = new Clazzpath();
-        for ( Iterator it = project.getArtifacts().iterator(); it.hasNext(); )
+        for ( int d = 0; d < dependencies.size(); d++ )
         {
-            Artifact dependency = (Artifact) it.next();
-            File jar = dependency.getFile();
+            File jar = dependencies.get( d ).getFile();
+            ArchiveClasses classes = dependencyClasses.get( d );
 
-            for ( Iterator<SimpleFilter> i = simpleFilters.iterator(); i.hasNext(); )
+            for ( SimpleFilter simpleFilter : simpleFilters )
             {
-                SimpleFilter simpleFilter = i.next();
                 if ( simpleFilter.canFilter( jar ) )
                 {
-                    ClazzpathUnit depClazzpathUnit = addDependencyToClasspath( checkCp, dependency );
-                    if ( depClazzpathUnit != null )
+                    for ( int name : classes.classes )
                     {
-                        Iterator<Clazz> j = removable.iterator();
-                        while ( j.hasNext() )
+                        int id = ids.get( classes.names[name] ).intValue();
+
+                        if ( removable[id] && simpleFilter.isSpecificallyIncluded( names.get( id ) ) )
                         {
-                            Clazz clazz = j.next();
-
-                            if ( depClazzpathUnit.getClazzes().contains( clazz ) && simpleFilter.isSpecificallyIncluded(
-                                clazz.getName().replace( '.', '/' ) ) )
-                            {
-                                log.info( clazz.getName() + " not removed because it was specifically included" );
-                                j.remove();
-                            }
+                            log.info( names.get( id ).replace( '/', '.' )
+                                + " not removed because it was specifically included" );
+                            removable[id] = false;
                         }
                     }
                 }
@@ -183,12 +287,14 @@ public class MinijarFilter
 
     public boolean isFiltered( String classFile )
     {
-        String className = classFile.replace( '/', '.' ).replaceFirst( "\\.class$", "" );
-        Clazz clazz = new Clazz( className );
+        String className = classFile.endsWith( ".class" )
+            ? classFile.substring( 0, classFile.length() - 6 )
+            : classFile;
+        Integer id = ids.get( className );
 
-        if ( removable.contains( clazz ) )
+        if ( id != null && removable[id.intValue()] )
         {
-            log.debug( "Removing " + className );
+            log.debug( "Removing " + className.replace( '/', '.' ) );
             classesRemoved += 1;
             return true;
         }
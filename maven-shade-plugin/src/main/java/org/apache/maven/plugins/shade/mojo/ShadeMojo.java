@@ -38,6 +38,7 @@ import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.plugins.shade.ShadeMetrics;
 import org.apache.maven.plugins.shade.ShadeRequest;
 import org.apache.maven.plugins.shade.Shader;
 import org.apache.maven.plugins.shade.filter.Filter;
@@ -358,6 +359,91 @@ public class ShadeMojo
     @Parameter
     private String shaderHint;
 
+    /**
+     * The number of threads used to relocate classes. Entries are still written to the shaded jar by a single thread
+     * in a deterministic order, so the output does not depend on this value. The default of 1 relocates all classes
+     * on the build thread.
+     *
+     * @since 2.0
+     */
+    @Parameter( property = "shadeThreads", defaultValue = "1" )
+    private int shadeThreads;
+
+    /**
+     * When true, the relocated classes of every shaded jar are kept in {@link #cacheDirectory}, keyed by the content
+     * of the jar and the relocations. Jars that did not change since the previous build are then taken from the
+     * cache instead of being relocated again. With {@link #minimizeJar}, the class references found in each
+     * artifact are cached the same way.
+     *
+     * @since 2.0
+     */
+    @Parameter( property = "shade.useCache", defaultValue = "false" )
+    private boolean useCache;
+
+    /**
+     * The directory holding the cache of relocated classes.
+     *
+     * @since 2.0
+     */
+    @Parameter( defaultValue = "${project.build.directory}/shade-cache" )
+    private File cacheDirectory;
+
+    /**
+     * When set, every entry that more than one of the shaded jars provides is written to this file, one tab separated
+     * line per entry giving its name in the shaded jar, the jar it is taken from and the jar whose copy is skipped.
+     *
+     * @since 2.0
+     */
+    @Parameter( property = "shade.overlapReport" )
+    private File overlapReport;
+
+    /**
+     * When true, the time spent on every shaded jar is recorded together with the number of entries, bytes and
+     * relocated classes, the time spent in each resource transformer and in the filters. The numbers are written to
+     * {@link #metricsFile} and the slowest jars are listed in the build log.
+     *
+     * @since 2.0
+     */
+    @Parameter( property = "shade.metrics", defaultValue = "false" )
+    private boolean shadeMetrics;
+
+    /**
+     * The JSON file the metrics are written to.
+     *
+     * @since 2.0
+     */
+    @Parameter( defaultValue = "${project.build.directory}/shade-metrics.json" )
+    private File metricsFile;
+
+    /**
+     * The level used to compress the entries of the shaded jar, from 0 (no compression) to 9 (best compression).
+     * The default of -1 uses the default level of the JDK.
+     *
+     * @since 2.0
+     */
+    @Parameter( property = "shade.compressionLevel", defaultValue = "-1" )
+    private int compressionLevel;
+
+    /**
+     * When true, the entries of the shaded jar are stored without any compression. This is cheaper to write and
+     * leaves identical content as identical bytes, for jars that are compressed again anyway, for instance as part of
+     * a container image layer.
+     *
+     * @since 2.0
+     */
+    @Parameter( property = "shade.storeOnly", defaultValue = "false" )
+    private boolean storeOnly;
+
+    /**
+     * When true, the shaded jars are written so that the same input always gives the same bytes: entries are sorted
+     * by name, every directory has an entry and all entries carry the same fixed time. This lets build caches and
+     * repositories recognize a shaded jar that didn't change.
+     *
+     * @since 2.0
+     */
+    @Parameter( property = "shade.reproducible", defaultValue = "false" )
+    private boolean reproducible;
+
     /**
      * @since 1.6
      */
@@ -461,10 +547,18 @@ public class ShadeMojo
         File outputJar = ( outputFile != null ) ? outputFile : shadedArtifactFileWithClassifier();
         File sourcesJar = shadedSourceArtifactFileWithClassifier();
 
+        if ( compressionLevel < -1 || compressionLevel > 9 )
+        {
+            throw new MojoExecutionException( "Invalid compressionLevel " + compressionLevel
+                + ", use a value from 0 to 9 or -1 for the default level" );
+        }
+
         // Now add our extra resources
         try
         {
-            List<Filter> filters = getFilters();
+            ShadeMetrics metrics = shadeMetrics ? new ShadeMetrics() : null;
+
+            List<Filter> filters = getFilters( metrics );
 
             List<Relocator> relocators = getRelocators();
 
@@ -476,6 +570,13 @@ public class ShadeMojo
             shadeRequest.setFilters( filters );
             shadeRequest.setRelocators( relocators );
             shadeRequest.setResourceTransformers( resourceTransformers );
+            shadeRequest.setThreads( shadeThreads );
+            shadeRequest.setCacheDirectory( useCache ? cacheDirectory : null );
+            shadeRequest.setOverlapReport( overlapReport );
+            shadeRequest.setMetrics( metrics );
+            shadeRequest.setCompressionLevel( compressionLevel );
+            shadeRequest.setStoreOnly( storeOnly );
+            shadeRequest.setReproducible( reproducible );
 
             shader.shade( shadeRequest );
 
@@ -488,10 +589,25 @@ public class ShadeMojo
                 shadeSourcesRequest.setRelocators( relocators );
                 shadeSourcesRequest.setResourceTransformers( resourceTransformers );
                 shadeSourcesRequest.setShadeSourcesContent( shadeSourcesContent );
+                shadeSourcesRequest.setThreads( shadeThreads );
+                shadeSourcesRequest.setMetrics( metrics );
+                shadeSourcesRequest.setCompressionLevel( compressionLevel );
+                shadeSourcesRequest.setStoreOnly( storeOnly );
+                shadeSourcesRequest.setReproducible( reproducible );
 
                 shader.shade( shadeSourcesRequest );
             }
 
+            if ( metrics != null )
+            {
+                metrics.writeReport( metricsFile );
+                for ( String line : metrics.getSummary( 5 ) )
+                {
+                    getLog().info( line );
+                }
+                getLog().info( "Shading metrics written to " + metricsFile );
+            }
+
             if ( outputFile == null )
             {
                 boolean renamed = false;
@@ -677,7 +793,7 @@ public class ShadeMojo
         return Arrays.asList( transformers );
     }
 
-    private List<Filter> getFilters()
+    private List<Filter> getFilters( ShadeMetrics metrics )
         throws MojoExecutionException
     {
         List<Filter> filters = new ArrayList<Filter>();
@@ -744,7 +860,14 @@ public class ShadeMojo
 
             try
             {
-                filters.add( new MinijarFilter( project, getLog(), simpleFilters ) );
+                File indexDirectory = useCache ? new File( cacheDirectory, "minijar" ) : null;
+
+                long start = System.nanoTime();
+                filters.add( new MinijarFilter( project, getLog(), simpleFilters, indexDirectory ) );
+                if ( metrics != null )
+                {
+                    metrics.addTime( "minimizing jar", System.nanoTime() - start );
+                }
             }
             catch ( IOException e )
             {
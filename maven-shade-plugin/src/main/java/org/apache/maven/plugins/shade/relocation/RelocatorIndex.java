@@ -0,0 +1,213 @@
+package org.apache.maven.plugins.shade.relocation;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Narrows a list of relocators down to the ones that may apply to a given class name or path. The patterns of all
+ * {@link SimpleRelocator}s are merged into a prefix trie, so a lookup walks the name once instead of asking every
+ * relocator in turn. Raw string relocators, subclasses of {@link SimpleRelocator} and other {@link Relocator}
+ * implementations can't be indexed and are always returned.
+ * <p/>
+ * The candidates are returned in the order of the original list and still have to be asked through
+ * {@link Relocator#canRelocatePath(String)} or {@link Relocator#canRelocateClass(String)}, which also checks their
+ * includes and excludes.
+ *
+ * @since 2.0
+ */
+public class RelocatorIndex
+{
+
+    private final Relocator[] relocators;
+
+    private final int[] unindexed;
+
+    private final Node root = new Node();
+
+    public RelocatorIndex( List<Relocator> relocators )
+    {
+        this.relocators = relocators.toArray( new Relocator[relocators.size()] );
+
+        int[] others = new int[this.relocators.length];
+        int count = 0;
+
+        for ( int i = 0; i < this.relocators.length; i++ )
+        {
+            Relocator relocator = this.relocators[i];
+            // subclasses may relocate names outside of their pattern, so they can't be indexed
+            if ( relocator.getClass() == SimpleRelocator.class && !( (SimpleRelocator) relocator ).isRawString() )
+            {
+                root.add( ( (SimpleRelocator) relocator ).getPathPattern(), 0, i );
+            }
+            else
+            {
+                others[count++] = i;
+            }
+        }
+
+        this.unindexed = new int[count];
+        System.arraycopy( others, 0, unindexed, 0, count );
+    }
+
+    /**
+     * @return <code>true</code> if there are no relocators at all
+     */
+    public boolean isEmpty()
+    {
+        return relocators.length == 0;
+    }
+
+    /**
+     * Returns the relocators whose pattern is a prefix of the given name. Dots and slashes are treated alike, so the
+     * same lookup works for class names and paths, and a leading slash is ignored like
+     * {@link SimpleRelocator#canRelocatePath(String)} does.
+     *
+     * @param name a class name or path
+     * @return the candidate relocators, in their original order
+     */
+    public List<Relocator> getCandidates( String name )
+    {
+        int[] matches = null;
+        int count = 0;
+
+        for ( int start = 0; start <= 1 && start <= name.length(); start++ )
+        {
+            if ( start == 1 && name.charAt( 0 ) != '/' )
+            {
+                break;
+            }
+
+            Node node = root;
+            for ( int i = start; node != null; i++ )
+            {
+                if ( node.relocators != null )
+                {
+                    if ( matches == null )
+                    {
+                        // with and without a leading slash
+                        matches = new int[relocators.length * 2];
+                    }
+                    for ( int index : node.relocators )
+                    {
+                        matches[count++] = index;
+                    }
+                }
+
+                if ( i == name.length() )
+                {
+                    break;
+                }
+
+                node = node.child( normalize( name.charAt( i ) ) );
+            }
+        }
+
+        if ( count == 0 && unindexed.length == 0 )
+        {
+            return Collections.emptyList();
+        }
+
+        int[] all = new int[count + unindexed.length];
+        if ( count > 0 )
+        {
+            System.arraycopy( matches, 0, all, 0, count );
+        }
+        System.arraycopy( unindexed, 0, all, count, unindexed.length );
+        Arrays.sort( all );
+
+        List<Relocator> candidates = new ArrayList<Relocator>( all.length );
+        for ( int i = 0; i < all.length; i++ )
+        {
+            // a relocator may match both with and without the leading slash
+            if ( i == 0 || all[i] != all[i - 1] )
+            {
+                candidates.add( relocators[all[i]] );
+            }
+        }
+        return candidates;
+    }
+
+    private static char normalize( char c )
+    {
+        return c == '.' ? '/' : c;
+    }
+
+    private static class Node
+    {
+
+        private char[] keys = new char[0];
+
+        private Node[] children = new Node[0];
+
+        private int[] relocators;
+
+        void add( String pattern, int offset, int relocator )
+        {
+            if ( offset == pattern.length() )
+            {
+                if ( relocators == null )
+                {
+                    relocators = new int[] { relocator };
+                }
+                else
+                {
+                    int[] newRelocators = new int[relocators.length + 1];
+                    System.arraycopy( relocators, 0, newRelocators, 0, relocators.length );
+                    newRelocators[relocators.length] = relocator;
+                    relocators = newRelocators;
+                }
+                return;
+            }
+
+            char key = normalize( pattern.charAt( offset ) );
+
+            Node next = child( key );
+            if ( next == null )
+            {
+                int position = -( Arrays.binarySearch( keys, key ) + 1 );
+
+                char[] newKeys = new char[keys.length + 1];
+                System.arraycopy( keys, 0, newKeys, 0, position );
+                System.arraycopy( keys, position, newKeys, position + 1, keys.length - position );
+                newKeys[position] = key;
+
+                Node[] newChildren = new Node[children.length + 1];
+                System.arraycopy( children, 0, newChildren, 0, position );
+                System.arraycopy( children, position, newChildren, position + 1, children.length - position );
+                newChildren[position] = next = new Node();
+
+                keys = newKeys;
+                children = newChildren;
+            }
+
+            next.add( pattern, offset + 1, relocator );
+        }
+
+        Node child( char key )
+        {
+            int position = Arrays.binarySearch( keys, key );
+            return position >= 0 ? children[position] : null;
+        }
+    }
+}
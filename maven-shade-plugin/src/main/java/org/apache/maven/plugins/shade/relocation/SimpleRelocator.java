@@ -153,6 +153,26 @@ public class SimpleRelocator
         return false;
     }
 
+    String getPathPattern()
+    {
+        return pathPattern;
+    }
+
+    String getPattern()
+    {
+        return pattern;
+    }
+
+    String getShadedPattern()
+    {
+        return shadedPattern;
+    }
+
+    boolean isRawString()
+    {
+        return rawString;
+    }
+
     public boolean canRelocatePath( String path )
     {
         if ( rawString )
@@ -207,4 +227,27 @@ public class SimpleRelocator
             return sourceContent.replaceAll( "\\b" + pattern, shadedPattern );
         }
 	}
+
+    /**
+     * Describes the whole configuration of the relocator, this is the key of the remapped classes cache.
+     */
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append( rawString ? pathPattern : pattern ).append( " -> " );
+        sb.append( rawString ? shadedPathPattern : shadedPattern );
+        if ( includes != null )
+        {
+            sb.append( " includes " ).append( includes );
+        }
+        if ( excludes != null )
+        {
+            sb.append( " excludes " ).append( excludes );
+        }
+        if ( rawString )
+        {
+            sb.append( " (raw)" );
+        }
+        return sb.toString();
+    }
 }
@@ -0,0 +1,289 @@
+package org.apache.maven.plugins.shade.relocation;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Applies the source relocation of several {@link SimpleRelocator}s to a Java source in a single pass. The patterns of
+ * all relocators are merged into one trie that is matched at every word boundary while the source is copied from a
+ * reader to a writer, so the source is never held in memory as a whole.
+ * <p/>
+ * A match is looked for exactly where {@link SimpleRelocator#applyToSourceContent(String)} would find one, including
+ * its treatment of a dot in the pattern as any character. Where several patterns match at the same place, the first
+ * relocator wins. Unlike applying the relocators one after the other, text that was already relocated is not
+ * relocated again by a later relocator.
+ *
+ * @since 2.0
+ */
+public class SourceContentRelocator
+{
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final String[] shadedPatterns;
+
+    private final int[] lengths;
+
+    private final int maxLength;
+
+    private final Node root = new Node();
+
+    private SourceContentRelocator( List<SimpleRelocator> relocators )
+    {
+        shadedPatterns = new String[relocators.size()];
+        lengths = new int[relocators.size()];
+
+        int max = 0;
+        for ( int i = 0; i < relocators.size(); i++ )
+        {
+            SimpleRelocator relocator = relocators.get( i );
+            root.add( relocator.getPattern(), 0, i );
+            shadedPatterns[i] = relocator.getShadedPattern();
+            lengths[i] = relocator.getPattern().length();
+            max = Math.max( max, lengths[i] );
+        }
+        maxLength = max;
+    }
+
+    /**
+     * @param relocators the relocators to apply
+     * @return a relocator for the source content of all given relocators, or <code>null</code> if one of them isn't a
+     *         plain {@link SimpleRelocator}, in which case {@link Relocator#applyToSourceContent(String)} has to be
+     *         used
+     */
+    public static SourceContentRelocator create( List<Relocator> relocators )
+    {
+        SimpleRelocator[] simpleRelocators = new SimpleRelocator[relocators.size()];
+        int count = 0;
+
+        for ( Relocator relocator : relocators )
+        {
+            // subclasses may relocate sources their own way
+            if ( relocator.getClass() != SimpleRelocator.class )
+            {
+                return null;
+            }
+
+            SimpleRelocator simpleRelocator = (SimpleRelocator) relocator;
+            if ( simpleRelocator.isRawString() )
+            {
+                // raw string relocators leave sources alone
+                continue;
+            }
+            if ( simpleRelocator.getPattern().length() == 0 )
+            {
+                return null;
+            }
+            simpleRelocators[count++] = simpleRelocator;
+        }
+
+        return new SourceContentRelocator( Arrays.asList( simpleRelocators ).subList( 0, count ) );
+    }
+
+    /**
+     * Copies a source from the reader to the writer, relocating it on the way. Neither is closed.
+     */
+    public void relocate( Reader in, Writer out )
+        throws IOException
+    {
+        if ( shadedPatterns.length == 0 )
+        {
+            char[] buffer = new char[BUFFER_SIZE];
+            for ( int n = in.read( buffer ); n != -1; n = in.read( buffer ) )
+            {
+                out.write( buffer, 0, n );
+            }
+            return;
+        }
+
+        char[] buffer = new char[Math.max( BUFFER_SIZE, maxLength * 2 )];
+        int position = 0;
+        int end = 0;
+        int written = 0;
+        boolean eof = false;
+
+        // the character before position in the original source, which decides about a word boundary
+        boolean afterWordChar = false;
+
+        while ( true )
+        {
+            if ( !eof && end - position < maxLength )
+            {
+                out.write( buffer, written, position - written );
+                System.arraycopy( buffer, position, buffer, 0, end - position );
+                end -= position;
+                position = 0;
+                written = 0;
+
+                while ( !eof && end < maxLength )
+                {
+                    int n = in.read( buffer, end, buffer.length - end );
+                    if ( n == -1 )
+                    {
+                        eof = true;
+                    }
+                    else
+                    {
+                        end += n;
+                    }
+                }
+            }
+
+            if ( position == end )
+            {
+                break;
+            }
+
+            boolean wordChar = isWordChar( buffer[position] );
+
+            int match = afterWordChar != wordChar ? root.match( buffer, position, end ) : Integer.MAX_VALUE;
+            if ( match != Integer.MAX_VALUE )
+            {
+                out.write( buffer, written, position - written );
+                out.write( shadedPatterns[match] );
+                position += lengths[match];
+                written = position;
+                afterWordChar = isWordChar( buffer[position - 1] );
+            }
+            else
+            {
+                position++;
+                afterWordChar = wordChar;
+            }
+        }
+
+        out.write( buffer, written, position - written );
+    }
+
+    /**
+     * The characters that make up a word for <code>\b</code> in a {@link java.util.regex.Pattern}.
+     */
+    private static boolean isWordChar( char c )
+    {
+        return c == '_' || Character.isLetterOrDigit( c );
+    }
+
+    /**
+     * The characters a <code>.</code> in a {@link java.util.regex.Pattern} doesn't match.
+     */
+    private static boolean isLineTerminator( char c )
+    {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    private static class Node
+    {
+
+        private char[] keys = new char[0];
+
+        private Node[] children = new Node[0];
+
+        /**
+         * Follows a dot in a pattern, which matches any character but a line terminator.
+         */
+        private Node any;
+
+        /**
+         * The first relocator whose pattern ends here.
+         */
+        private int relocator = Integer.MAX_VALUE;
+
+        void add( String pattern, int offset, int index )
+        {
+            if ( offset == pattern.length() )
+            {
+                relocator = Math.min( relocator, index );
+                return;
+            }
+
+            char key = pattern.charAt( offset );
+
+            Node next;
+            if ( key == '.' )
+            {
+                if ( any == null )
+                {
+                    any = new Node();
+                }
+                next = any;
+            }
+            else
+            {
+                next = child( key );
+                if ( next == null )
+                {
+                    int position = -( Arrays.binarySearch( keys, key ) + 1 );
+
+                    char[] newKeys = new char[keys.length + 1];
+                    System.arraycopy( keys, 0, newKeys, 0, position );
+                    System.arraycopy( keys, position, newKeys, position + 1, keys.length - position );
+                    newKeys[position] = key;
+
+                    Node[] newChildren = new Node[children.length + 1];
+                    System.arraycopy( children, 0, newChildren, 0, position );
+                    System.arraycopy( children, position, newChildren, position + 1, children.length - position );
+                    newChildren[position] = next = new Node();
+
+                    keys = newKeys;
+                    children = newChildren;
+                }
+            }
+
+            next.add( pattern, offset + 1, index );
+        }
+
+        Node child( char key )
+        {
+            int position = Arrays.binarySearch( keys, key );
+            return position >= 0 ? children[position] : null;
+        }
+
+        /**
+         * @return the first relocator whose pattern matches the characters from the given position, or
+         *         {@link Integer#MAX_VALUE} if there is none
+         */
+        int match( char[] buffer, int position, int end )
+        {
+            int match = relocator;
+
+            if ( position < end )
+            {
+                char c = buffer[position];
+
+                Node next = child( c );
+                if ( next != null )
+                {
+                    match = Math.min( match, next.match( buffer, position + 1, end ) );
+                }
+                if ( any != null && !isLineTerminator( c ) )
+                {
+                    match = Math.min( match, any.match( buffer, position + 1, end ) );
+                }
+            }
+
+            return match;
+        }
+    }
+}
@@ -22,8 +22,6 @@ package org.apache.maven.plugins.shade.resource;
 import org.apache.maven.plugins.shade.relocation.Relocator;
 import org.codehaus.plexus.util.IOUtil;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
@@ -31,14 +29,15 @@ import java.util.jar.JarEntry;
 import java.util.jar.JarOutputStream;
 
 /**
- * A resource processor that appends content for a resource, separated by a newline.
+ * A resource processor that appends content for a resource, separated by a newline. Large content is kept in a
+ * temporary file rather than on the heap until it is written to the shaded jar.
  */
 public class AppendingTransformer
     implements ResourceTransformer
 {
     String resource;
 
-    ByteArrayOutputStream data = new ByteArrayOutputStream();
+    ResourceBuffer data = new ResourceBuffer();
 
     public boolean canTransformResource( String r )
     {
@@ -69,7 +68,7 @@ public class AppendingTransformer
     {
         jos.putNextEntry( new JarEntry( resource ) );
 
-        IOUtil.copy( new ByteArrayInputStream( data.toByteArray() ), jos );
-        data.reset();
+        data.writeTo( jos );
+        data.discard();
     }
 }
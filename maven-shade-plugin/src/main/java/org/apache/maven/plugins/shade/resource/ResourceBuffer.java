@@ -0,0 +1,216 @@
+package org.apache.maven.plugins.shade.resource;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.codehaus.plexus.util.IOUtil;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+/**
+ * Collects the content of a transformed resource until it is written to the shaded jar. Small resources stay in
+ * memory; once the content grows past a threshold it is moved to a temporary file, so transformers merging big
+ * resources don't hold them on the heap. The temporary file is deleted by {@link #discard()}.
+ */
+class ResourceBuffer
+    extends OutputStream
+{
+
+    static final int DEFAULT_THRESHOLD = 1024 * 1024;
+
+    private final int threshold;
+
+    private Memory memory = new Memory();
+
+    private File file;
+
+    private OutputStream out = memory;
+
+    // reads back the temporary file, opened on first use
+    private RandomAccessFile reader;
+
+    private long size;
+
+    ResourceBuffer()
+    {
+        this( DEFAULT_THRESHOLD );
+    }
+
+    ResourceBuffer( int threshold )
+    {
+        this.threshold = threshold;
+    }
+
+    public void write( int b )
+        throws IOException
+    {
+        spillIfNeeded( 1 );
+        out.write( b );
+        size++;
+    }
+
+    public void write( byte[] b, int off, int len )
+        throws IOException
+    {
+        if ( len == 0 )
+        {
+            return;
+        }
+        spillIfNeeded( len );
+        out.write( b, off, len );
+        size += len;
+    }
+
+    private void spillIfNeeded( int len )
+        throws IOException
+    {
+        if ( file == null && size + len > threshold )
+        {
+            file = File.createTempFile( "shade-resource", ".tmp" );
+
+            out = new BufferedOutputStream( new FileOutputStream( file ) );
+            memory.writeTo( out );
+            memory = null;
+        }
+    }
+
+    /**
+     * @return the number of bytes written so far
+     */
+    long size()
+    {
+        return size;
+    }
+
+    /**
+     * Tells whether the bytes written at the given offset are the given ones.
+     *
+     * @param offset where the bytes were written, as given by {@link #size()} before writing them
+     * @param bytes the bytes to compare with
+     * @return <code>true</code> if the same bytes were written at this offset
+     */
+    boolean contentEquals( long offset, byte[] bytes )
+        throws IOException
+    {
+        if ( offset + bytes.length > size )
+        {
+            return false;
+        }
+
+        if ( file == null )
+        {
+            return memory.regionEquals( (int) offset, bytes );
+        }
+
+        out.flush();
+        if ( reader == null )
+        {
+            reader = new RandomAccessFile( file, "r" );
+        }
+
+        byte[] written = new byte[bytes.length];
+        reader.seek( offset );
+        reader.readFully( written );
+        return Arrays.equals( written, bytes );
+    }
+
+    /**
+     * Copies everything written so far to the given stream.
+     */
+    void writeTo( OutputStream os )
+        throws IOException
+    {
+        if ( file == null )
+        {
+            memory.writeTo( os );
+            return;
+        }
+
+        out.flush();
+
+        InputStream is = new FileInputStream( file );
+        try
+        {
+            IOUtil.copy( is, os );
+        }
+        finally
+        {
+            IOUtil.close( is );
+        }
+    }
+
+    /**
+     * Discards the content and deletes the temporary file, if any. The buffer can be written to again afterwards.
+     */
+    void discard()
+    {
+        if ( file != null )
+        {
+            IOUtil.close( out );
+            if ( reader != null )
+            {
+                try
+                {
+                    reader.close();
+                }
+                catch ( IOException e )
+                {
+                    // ignore, only deleting the file matters
+                }
+                reader = null;
+            }
+            file.delete();
+            file = null;
+        }
+        memory = new Memory();
+        out = memory;
+        size = 0;
+    }
+
+    private static final class Memory
+        extends ByteArrayOutputStream
+    {
+
+        Memory()
+        {
+            super( 1024 );
+        }
+
+        boolean regionEquals( int offset, byte[] bytes )
+        {
+            for ( int i = 0; i < bytes.length; i++ )
+            {
+                if ( buf[offset + i] != bytes[i] )
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
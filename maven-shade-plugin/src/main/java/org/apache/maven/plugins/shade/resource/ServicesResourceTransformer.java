@@ -20,15 +20,14 @@ package org.apache.maven.plugins.shade.resource;
  */
 
 import org.apache.maven.plugins.shade.relocation.Relocator;
-import org.codehaus.plexus.util.IOUtil;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.HashMap;
+import java.io.InputStreamReader;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.jar.JarEntry;
 import java.util.jar.JarOutputStream;
 
@@ -37,7 +36,7 @@ import java.util.jar.JarOutputStream;
  * a single resource. For example, if there are several META-INF/services/org.apache.maven.project.ProjectBuilder
  * resources spread across many JARs the individual entries will all be concatenated into a single
  * META-INF/services/org.apache.maven.project.ProjectBuilder resource packaged into the resultant JAR produced
- * by the shading process.
+ * by the shading process. Lines listed by more than one JAR are only written once.
  *
  * @author jvanzyl
  */
@@ -47,7 +46,8 @@ public class ServicesResourceTransformer
 
     private static final String SERVICES_PATH = "META-INF/services";
 
-    private Map<String, ServiceStream> serviceEntries = new HashMap<String, ServiceStream>();
+    // sorted, so the service files are always written in the same order
+    private Map<String, ServiceStream> serviceEntries = new TreeMap<String, ServiceStream>();
 
     public boolean canTransformResource( String resource )
     {
@@ -87,34 +87,117 @@ public class ServicesResourceTransformer
             ServiceStream data = entry.getValue();
 
             jos.putNextEntry( new JarEntry( key ) );
-            IOUtil.copy( data.toInputStream(), jos );
-            data.reset();
+            data.writeTo( jos );
+            data.discard();
         }
     }
 
     static class ServiceStream
-        extends ByteArrayOutputStream
+        extends ResourceBuffer
     {
 
-        public ServiceStream()
+        // 64-bit hashes of the lines written so far, each followed by the offset it was written at plus one, in an
+        // open addressing table; the lines themselves are only kept in the buffer, which may be on disk.
+        private long[] table = new long[32];
+
+        private int count;
+
+        ServiceStream()
         {
-            super( 1024 );
+        }
+
+        ServiceStream( int threshold )
+        {
+            super( threshold );
         }
 
         public void append( InputStream is )
             throws IOException
         {
-            if ( count > 0 && buf[count - 1] != '\n' && buf[count - 1] != '\r' )
+            BufferedReader reader = new BufferedReader( new InputStreamReader( is, "UTF-8" ) );
+            for ( String line = reader.readLine(); line != null; line = reader.readLine() )
+            {
+                line = line.trim();
+                if ( line.length() > 0 )
+                {
+                    byte[] bytes = ( line + '\n' ).getBytes( "UTF-8" );
+                    long hash = hash( bytes );
+                    if ( !contains( hash, bytes ) )
+                    {
+                        add( hash, size() );
+                        write( bytes );
+                    }
+                }
+            }
+        }
+
+        private boolean contains( long hash, byte[] bytes )
+            throws IOException
+        {
+            int mask = table.length - 1;
+            for ( int i = slot( hash, mask ); table[i + 1] != 0; i = ( i + 2 ) & mask )
+            {
+                // equal hashes are checked against the written line, so a collision never drops a service
+                if ( table[i] == hash && contentEquals( table[i + 1] - 1, bytes ) )
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void add( long hash, long offset )
+        {
+            if ( ( count + 1 ) * 4 > table.length )
+            {
+                long[] old = table;
+                table = new long[old.length * 2];
+                for ( int i = 0; i < old.length; i += 2 )
+                {
+                    if ( old[i + 1] != 0 )
+                    {
+                        put( old[i], old[i + 1] );
+                    }
+                }
+            }
+            put( hash, offset + 1 );
+            count++;
+        }
+
+        private void put( long hash, long offsetPlusOne )
+        {
+            int mask = table.length - 1;
+            int i = slot( hash, mask );
+            while ( table[i + 1] != 0 )
             {
-                write( '\n' );
+                i = ( i + 2 ) & mask;
             }
+            table[i] = hash;
+            table[i + 1] = offsetPlusOne;
+        }
+
+        private static int slot( long hash, int mask )
+        {
+            return (int) ( hash ^ ( hash >>> 32 ) ) & mask & ~1;
+        }
 
-            IOUtil.copy( is, this );
+        // FNV-1a
+        private static long hash( byte[] bytes )
+        {
+            long hash = 0xcbf29ce484222325L;
+            for ( byte b : bytes )
+            {
+                hash ^= b & 0xff;
+                hash *= 0x100000001b3L;
+            }
+            return hash;
         }
 
-        public InputStream toInputStream()
+        void discard()
         {
-            return new ByteArrayInputStream( buf, 0, count );
+            super.discard();
+            table = new long[32];
+            count = 0;
         }
 
     }
@@ -22,9 +22,15 @@ package org.apache.maven.plugins.shade;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.zip.ZipEntry;
 import java.net.URLClassLoader;
 import java.net.URL;
 
@@ -34,6 +40,8 @@ import org.apache.maven.plugins.shade.relocation.SimpleRelocator;
 import org.apache.maven.plugins.shade.resource.ComponentsXmlResourceTransformer;
 import org.codehaus.plexus.logging.Logger;
 import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.IOUtil;
 
 /**
  * @author Jason van Zyl
@@ -86,6 +94,229 @@ public class DefaultShaderTest
         assertEquals( "foo.bar/baz", c.getDeclaredField( "CONSTANT" ).get( o ) );
     }
 
+    public void testShaderCopiesClassesUntouchedByRelocation()
+        throws Exception
+    {
+        Shader s = newShader();
+
+        File input = new File( "src/test/jars/test-artifact-1.0-SNAPSHOT.jar" );
+
+        Set set = new LinkedHashSet();
+
+        set.add( input );
+
+        List relocators = new ArrayList();
+
+        relocators.add( new SimpleRelocator( "org.example.unused", null, null, null ) );
+
+        File file = new File( "target/testShaderCopiesClassesUntouchedByRelocation.jar" );
+
+        ShadeRequest shadeRequest = new ShadeRequest();
+        shadeRequest.setJars( set );
+        shadeRequest.setUberJar( file );
+        shadeRequest.setFilters( new ArrayList() );
+        shadeRequest.setRelocators( relocators );
+        shadeRequest.setResourceTransformers( new ArrayList() );
+
+        s.shade( shadeRequest );
+
+        String name = "org/apache/maven/plugins/shade/Lib.class";
+        assertTrue( Arrays.equals( entryContent( input, name ), entryContent( file, name ) ) );
+    }
+
+    public void testShaderReportsOverlappingEntries()
+        throws Exception
+    {
+        Shader s = newShader();
+
+        File input = new File( "src/test/jars/test-artifact-1.0-SNAPSHOT.jar" );
+        File copy = new File( "target/overlap/test-artifact-copy.jar" );
+        FileUtils.copyFile( input, copy );
+
+        Set set = new LinkedHashSet();
+
+        set.add( input );
+        set.add( copy );
+
+        List relocators = new ArrayList();
+
+        relocators.add( new SimpleRelocator( "org.apache.maven.plugins.shade", null, null, null ) );
+
+        File file = new File( "target/testShaderReportsOverlappingEntries.jar" );
+        File report = new File( "target/overlap/overlap.txt" );
+
+        ShadeRequest shadeRequest = new ShadeRequest();
+        shadeRequest.setJars( set );
+        shadeRequest.setUberJar( file );
+        shadeRequest.setFilters( new ArrayList() );
+        shadeRequest.setRelocators( relocators );
+        shadeRequest.setResourceTransformers( new ArrayList() );
+        shadeRequest.setOverlapReport( report );
+
+        s.shade( shadeRequest );
+
+        List<String> names = entryNames( file );
+        assertEquals( new HashSet<String>( names ).size(), names.size() );
+        assertTrue( names.contains( "hidden/org/apache/maven/plugins/shade/Lib.class" ) );
+
+        List<String> lines = Arrays.asList( FileUtils.fileRead( report, "UTF-8" ).split( "\n" ) );
+        assertTrue( lines.contains( "hidden/org/apache/maven/plugins/shade/Lib.class\t" + input.getPath() + "\t"
+            + copy.getPath() ) );
+        assertTrue( lines.contains( "META-INF/maven/org.apache.maven.plugins.shade/test-artifact/pom.xml\t"
+            + input.getPath() + "\t" + copy.getPath() ) );
+    }
+
+    public void testShaderRecordsMetrics()
+        throws Exception
+    {
+        Shader s = newShader();
+
+        File input = new File( "src/test/jars/test-artifact-1.0-SNAPSHOT.jar" );
+
+        Set set = new LinkedHashSet();
+
+        set.add( input );
+
+        List relocators = new ArrayList();
+
+        relocators.add( new SimpleRelocator( "org.apache.maven.plugins.shade", null, null, null ) );
+
+        ShadeMetrics metrics = new ShadeMetrics();
+
+        ShadeRequest shadeRequest = new ShadeRequest();
+        shadeRequest.setJars( set );
+        shadeRequest.setUberJar( new File( "target/testShaderRecordsMetrics.jar" ) );
+        shadeRequest.setFilters( new ArrayList() );
+        shadeRequest.setRelocators( relocators );
+        shadeRequest.setResourceTransformers( new ArrayList() );
+        shadeRequest.setMetrics( metrics );
+
+        s.shade( shadeRequest );
+
+        ShadeMetrics.Jar jar = metrics.getJar( input );
+        assertEquals( 13, jar.getEntries() );
+        assertEquals( 4, jar.getEntriesIncluded() );
+        assertEquals( 1, jar.getClassesRemapped() );
+        assertEquals( input.length(), jar.getBytesIn() );
+        assertTrue( jar.getBytesOut() > 0 );
+
+        File report = new File( "target/testShaderRecordsMetrics.json" );
+        metrics.writeReport( report );
+
+        String json = FileUtils.fileRead( report, "UTF-8" );
+        assertTrue( json.indexOf( "\"file\": \"" + input.getPath().replace( "\\", "\\\\" ) + "\"" ) > 0 );
+        assertTrue( json.indexOf( "\"classesRemapped\": 1," ) > 0 );
+    }
+
+    public void testShaderStoresEntriesUncompressed()
+        throws Exception
+    {
+        Shader s = newShader();
+
+        Set set = new LinkedHashSet();
+
+        set.add( new File( "src/test/jars/test-project-1.0-SNAPSHOT.jar" ) );
+        set.add( new File( "src/test/jars/plexus-utils-1.4.1.jar" ) );
+
+        List relocators = new ArrayList();
+
+        relocators.add( new SimpleRelocator( "org/codehaus/plexus/util", null, null, null ) );
+
+        List resourceTransformers = new ArrayList();
+
+        resourceTransformers.add( new ComponentsXmlResourceTransformer() );
+
+        File file = new File( "target/testShaderStoresEntriesUncompressed.jar" );
+
+        ShadeRequest shadeRequest = new ShadeRequest();
+        shadeRequest.setJars( set );
+        shadeRequest.setUberJar( file );
+        shadeRequest.setFilters( new ArrayList() );
+        shadeRequest.setRelocators( relocators );
+        shadeRequest.setResourceTransformers( resourceTransformers );
+        shadeRequest.setStoreOnly( true );
+
+        s.shade( shadeRequest );
+
+        File deflated = new File( "target/testShaderStoresEntriesDeflated.jar" );
+        shadeRequest.setUberJar( deflated );
+        shadeRequest.setStoreOnly( false );
+        shadeRequest.setResourceTransformers( Collections.singletonList( new ComponentsXmlResourceTransformer() ) );
+
+        s.shade( shadeRequest );
+
+        assertEquals( entryNames( deflated ), entryNames( file ) );
+
+        JarFile jarFile = new JarFile( file );
+        try
+        {
+            for ( Enumeration<JarEntry> e = jarFile.entries(); e.hasMoreElements(); )
+            {
+                JarEntry entry = e.nextElement();
+                assertEquals( entry.getName(), ZipEntry.STORED, entry.getMethod() );
+                assertTrue( Arrays.equals( entryContent( deflated, entry.getName() ),
+                                           IOUtil.toByteArray( jarFile.getInputStream( entry ) ) ) );
+            }
+        }
+        finally
+        {
+            jarFile.close();
+        }
+    }
+
+    public void testShaderWritesReproducibleJar()
+        throws Exception
+    {
+        File first = new File( "target/testShaderWritesReproducibleJar-1.jar" );
+        File second = new File( "target/testShaderWritesReproducibleJar-2.jar" );
+
+        shadeReproducible( first );
+        // entry times have a resolution of two seconds
+        Thread.sleep( 2100 );
+        shadeReproducible( second );
+
+        assertTrue( FileUtils.contentEquals( first, second ) );
+        assertFalse( new File( first.getPath() + ".unsorted" ).exists() );
+
+        List<String> names = entryNames( first );
+        assertEquals( "META-INF/", names.get( 0 ) );
+        assertEquals( "META-INF/MANIFEST.MF", names.get( 1 ) );
+
+        List<String> sorted = new ArrayList<String>( names.subList( 2, names.size() ) );
+        Collections.sort( sorted );
+        assertEquals( sorted, names.subList( 2, names.size() ) );
+
+        // transformers don't write directory entries, the reproducible jar has them all
+        assertTrue( names.contains( "META-INF/plexus/" ) );
+    }
+
+    private void shadeReproducible( File file )
+        throws Exception
+    {
+        Set set = new LinkedHashSet();
+
+        set.add( new File( "src/test/jars/test-project-1.0-SNAPSHOT.jar" ) );
+        set.add( new File( "src/test/jars/plexus-utils-1.4.1.jar" ) );
+
+        List relocators = new ArrayList();
+
+        relocators.add( new SimpleRelocator( "org/codehaus/plexus/util", null, null, null ) );
+
+        List resourceTransformers = new ArrayList();
+
+        resourceTransformers.add( new ComponentsXmlResourceTransformer() );
+
+        ShadeRequest shadeRequest = new ShadeRequest();
+        shadeRequest.setJars( set );
+        shadeRequest.setUberJar( file );
+        shadeRequest.setFilters( new ArrayList() );
+        shadeRequest.setRelocators( relocators );
+        shadeRequest.setResourceTransformers( resourceTransformers );
+        shadeRequest.setReproducible( true );
+
+        newShader().shade( shadeRequest );
+    }
+
     public void testShaderWithCustomShadedPattern()
         throws Exception
     {
@@ -99,8 +330,61 @@ public class DefaultShaderTest
         shaderWithPattern( "org/shaded/plexus/util", new File( "target/foo-custom-without-excludes.jar" ), new String[] {} );
     }
 
+    public void testShaderWithThreadsKeepsEntryOrder()
+        throws Exception
+    {
+        File sequential = new File( "target/foo-sequential.jar" );
+        shaderWithPattern( "org/shaded/plexus/util", sequential, EXCLUDES, 1 );
+
+        File parallel = new File( "target/foo-parallel.jar" );
+        shaderWithPattern( "org/shaded/plexus/util", parallel, EXCLUDES, 4 );
+
+        List<String> names = entryNames( sequential );
+        assertEquals( names, entryNames( parallel ) );
+        assertTrue( names.contains( "org/shaded/plexus/util/StringUtils.class" ) );
+        for ( String name : names )
+        {
+            assertTrue( name, Arrays.equals( entryContent( sequential, name ), entryContent( parallel, name ) ) );
+        }
+    }
+
+    public void testShaderWithCacheReusesRemappedClasses()
+        throws Exception
+    {
+        File cacheDirectory = new File( "target/shade-cache-test" );
+        FileUtils.deleteDirectory( cacheDirectory );
+
+        File uncached = new File( "target/foo-uncached.jar" );
+        shaderWithPattern( null, uncached, EXCLUDES, 1, null );
+
+        File recorded = new File( "target/foo-cache-recorded.jar" );
+        shaderWithPattern( null, recorded, EXCLUDES, 1, cacheDirectory );
+        assertEquals( 2, cacheDirectory.list().length );
+
+        File cached = new File( "target/foo-cache-hit.jar" );
+        shaderWithPattern( null, cached, EXCLUDES, 4, cacheDirectory );
+        assertEquals( 2, cacheDirectory.list().length );
+
+        String name = "hidden/org/codehaus/plexus/util/StringUtils.class";
+        assertEquals( entryNames( uncached ), entryNames( cached ) );
+        assertTrue( Arrays.equals( entryContent( uncached, name ), entryContent( cached, name ) ) );
+    }
+
     public void shaderWithPattern( String shadedPattern, File jar, String[] excludes )
         throws Exception
+    {
+        shaderWithPattern( shadedPattern, jar, excludes, 1 );
+    }
+
+    public void shaderWithPattern( String shadedPattern, File jar, String[] excludes, int threads )
+        throws Exception
+    {
+        shaderWithPattern( shadedPattern, jar, excludes, threads, null );
+    }
+
+    public void shaderWithPattern( String shadedPattern, File jar, String[] excludes, int threads,
+                                   File cacheDirectory )
+        throws Exception
     {
         DefaultShader s = newShader();
 
@@ -126,10 +410,47 @@ public class DefaultShaderTest
         shadeRequest.setFilters(filters);
         shadeRequest.setRelocators(relocators);
         shadeRequest.setResourceTransformers(resourceTransformers);
+        shadeRequest.setThreads( threads );
+        shadeRequest.setCacheDirectory( cacheDirectory );
 
         s.shade( shadeRequest );
     }
 
+    private static List<String> entryNames( File file )
+        throws Exception
+    {
+        List<String> names = new ArrayList<String>();
+
+        JarFile jarFile = new JarFile( file );
+        try
+        {
+            for ( Enumeration<JarEntry> e = jarFile.entries(); e.hasMoreElements(); )
+            {
+                names.add( e.nextElement().getName() );
+            }
+        }
+        finally
+        {
+            jarFile.close();
+        }
+
+        return names;
+    }
+
+    private static byte[] entryContent( File file, String name )
+        throws Exception
+    {
+        JarFile jarFile = new JarFile( file );
+        try
+        {
+            return IOUtil.toByteArray( jarFile.getInputStream( jarFile.getEntry( name ) ) );
+        }
+        finally
+        {
+            jarFile.close();
+        }
+    }
+
     private static DefaultShader newShader()
     {
         DefaultShader s = new DefaultShader();
@@ -0,0 +1,85 @@
+package org.apache.maven.plugins.shade;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.apache.maven.plugins.shade.relocation.Relocator;
+import org.apache.maven.plugins.shade.relocation.SimpleRelocator;
+import org.codehaus.plexus.util.FileUtils;
+
+public class RemappedClassCacheTest
+    extends TestCase
+{
+
+    private static final File JAR = new File( "src/test/jars/test-artifact-1.0-SNAPSHOT.jar" );
+
+    private final File directory = new File( "target/remapped-class-cache-test" );
+
+    protected void tearDown()
+        throws Exception
+    {
+        FileUtils.deleteDirectory( directory );
+    }
+
+    public void testSupportsOnlySimpleRelocators()
+    {
+        List<Relocator> relocators = new ArrayList<Relocator>();
+        relocators.add( new SimpleRelocator( "org.foo", "hidden.org.foo", null, null ) );
+        assertTrue( RemappedClassCache.supports( relocators ) );
+
+        relocators.add( new SimpleRelocator( "org.bar", "hidden.org.bar", null, null )
+        {
+            public String toString()
+            {
+                return "CustomRelocator";
+            }
+        } );
+        assertFalse( RemappedClassCache.supports( relocators ) );
+    }
+
+    public void testConfigurationOfRelocatorsIsPartOfTheKey()
+        throws Exception
+    {
+        RemappedClassCache.Jar recorded = newCache( null ).open( JAR );
+        assertFalse( recorded.isHit() );
+        recorded.close( true );
+
+        RemappedClassCache.Jar same = newCache( null ).open( JAR );
+        assertTrue( same.isHit() );
+        same.close( true );
+
+        RemappedClassCache.Jar excluded = newCache( Collections.singletonList( "org.foo.Bar" ) ).open( JAR );
+        assertFalse( excluded.isHit() );
+        excluded.close( false );
+    }
+
+    private RemappedClassCache newCache( List<String> excludes )
+    {
+        List<Relocator> relocators = new ArrayList<Relocator>();
+        relocators.add( new SimpleRelocator( "org.foo", "hidden.org.foo", null, excludes ) );
+        return new RemappedClassCache( directory, relocators );
+    }
+}
@@ -0,0 +1,105 @@
+package org.apache.maven.plugins.shade.filter;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.artifact.versioning.VersionRange;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.FileUtils;
+
+public class MinijarFilterTest
+    extends TestCase
+{
+
+    public void testRemovesUnreferencedClasses()
+        throws Exception
+    {
+        assertMinimized( new MinijarFilter( newProject(), new SystemStreamLog() ) );
+    }
+
+    public void testReusesIndexedClasses()
+        throws Exception
+    {
+        File indexDirectory = new File( "target/minijar-index-test" );
+        FileUtils.deleteDirectory( indexDirectory );
+
+        assertMinimized( new MinijarFilter( newProject(), new SystemStreamLog(),
+                                            Collections.<SimpleFilter>emptyList(), indexDirectory ) );
+        assertEquals( 2, indexDirectory.list().length );
+
+        assertMinimized( new MinijarFilter( newProject(), new SystemStreamLog(),
+                                            Collections.<SimpleFilter>emptyList(), indexDirectory ) );
+        assertEquals( 2, indexDirectory.list().length );
+    }
+
+    public void testKeepsSpecificallyIncludedClasses()
+        throws Exception
+    {
+        File plexusUtils = new File( "src/test/jars/plexus-utils-1.4.1.jar" );
+        SimpleFilter filter = new SimpleFilter( Collections.singleton( plexusUtils ),
+                                                Collections.singleton( "org/codehaus/plexus/util/xml/Xpp3Dom" ),
+                                                null );
+
+        MinijarFilter minijar =
+            new MinijarFilter( newProject(), new SystemStreamLog(), Collections.singletonList( filter ) );
+
+        assertFalse( minijar.isFiltered( "org/codehaus/plexus/util/xml/Xpp3Dom.class" ) );
+        assertTrue( minijar.isFiltered( "org/codehaus/plexus/util/cli/Commandline.class" ) );
+    }
+
+    private void assertMinimized( MinijarFilter minijar )
+    {
+        assertFalse( minijar.isFiltered( "org/codehaus/mojo/shade/App.class" ) );
+        assertFalse( minijar.isFiltered( "org/codehaus/plexus/util/StringUtils.class" ) );
+        assertTrue( minijar.isFiltered( "org/codehaus/plexus/util/xml/Xpp3Dom.class" ) );
+        assertFalse( minijar.isFiltered( "META-INF/MANIFEST.MF" ) );
+    }
+
+    private MavenProject newProject()
+    {
+        MavenProject project = new MavenProject();
+        project.setArtifact( newArtifact( "test-project", new File( "src/test/jars/test-project-1.0-SNAPSHOT.jar" ) ) );
+
+        Set<Artifact> artifacts = new LinkedHashSet<Artifact>();
+        artifacts.add( newArtifact( "plexus-utils", new File( "src/test/jars/plexus-utils-1.4.1.jar" ) ) );
+        project.setArtifacts( artifacts );
+
+        return project;
+    }
+
+    private Artifact newArtifact( String artifactId, File file )
+    {
+        Artifact artifact =
+            new DefaultArtifact( "org.apache.maven.plugins.shade", artifactId, VersionRange.createFromVersion( "1.0" ),
+                                 "compile", "jar", null, new DefaultArtifactHandler( "jar" ) );
+        artifact.setFile( file );
+        return artifact;
+    }
+}
@@ -0,0 +1,108 @@
+package org.apache.maven.plugins.shade.relocation;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Test for {@link RelocatorIndex}.
+ */
+public class RelocatorIndexTest
+    extends TestCase
+{
+
+    private final Relocator foo = new SimpleRelocator( "org.foo", null, null, null );
+
+    private final Relocator fooBar = new SimpleRelocator( "org/foo/bar", null, null, null );
+
+    private final Relocator baz = new SimpleRelocator( "com.baz", null, null, null );
+
+    private final Relocator raw = new SimpleRelocator( "^META-INF/org.foo.xml$", null, null, null, true );
+
+    public void testCandidatesForPathsAndClasses()
+    {
+        RelocatorIndex index = new RelocatorIndex( Arrays.asList( new Relocator[]{ foo, fooBar, baz } ) );
+
+        assertEquals( Arrays.asList( new Relocator[]{ foo } ), index.getCandidates( "org/foo/Class" ) );
+        assertEquals( Arrays.asList( new Relocator[]{ foo } ), index.getCandidates( "org.foo.Class" ) );
+        assertEquals( Arrays.asList( new Relocator[]{ foo, fooBar } ), index.getCandidates( "org/foo/bar/Class" ) );
+        assertEquals( Arrays.asList( new Relocator[]{ baz } ), index.getCandidates( "/com/baz/file.properties" ) );
+        assertEquals( Collections.emptyList(), index.getCandidates( "org/Foo/Class" ) );
+        assertEquals( Collections.emptyList(), index.getCandidates( "org/fo" ) );
+        assertEquals( Collections.emptyList(), index.getCandidates( "" ) );
+    }
+
+    public void testCandidatesKeepOriginalOrder()
+    {
+        RelocatorIndex index = new RelocatorIndex( Arrays.asList( new Relocator[]{ fooBar, raw, foo } ) );
+
+        assertEquals( Arrays.asList( new Relocator[]{ fooBar, raw, foo } ), index.getCandidates( "org/foo/bar/X" ) );
+        assertEquals( Arrays.asList( new Relocator[]{ raw } ), index.getCandidates( "META-INF/org.foo.xml" ) );
+    }
+
+    public void testEmptyPatternMatchesEverything()
+    {
+        Relocator all = new SimpleRelocator( null, "shaded", null, null );
+        RelocatorIndex index = new RelocatorIndex( Arrays.asList( new Relocator[]{ foo, all } ) );
+
+        assertEquals( Arrays.asList( new Relocator[]{ all } ), index.getCandidates( "com/Other" ) );
+        assertEquals( Arrays.asList( new Relocator[]{ foo, all } ), index.getCandidates( "/org/foo/Class" ) );
+        assertTrue( new RelocatorIndex( Collections.<Relocator>emptyList() ).isEmpty() );
+    }
+
+    public void testSubclassesAreNotIndexed()
+    {
+        Relocator legacy = new SimpleRelocator( "org.foo", "shaded.foo", null, null )
+        {
+            public boolean canRelocatePath( String path )
+            {
+                return path.startsWith( "net/legacy/" ) || super.canRelocatePath( path );
+            }
+        };
+        RelocatorIndex index = new RelocatorIndex( Arrays.asList( new Relocator[]{ baz, legacy } ) );
+
+        assertEquals( Arrays.asList( new Relocator[]{ legacy } ), index.getCandidates( "net/legacy/Class" ) );
+        assertEquals( Arrays.asList( new Relocator[]{ baz, legacy } ), index.getCandidates( "com/baz/Class" ) );
+        assertTrue( index.getCandidates( "net/legacy/Class" ).get( 0 ).canRelocatePath( "net/legacy/Class" ) );
+    }
+
+    public void testCandidatesAgreeWithRelocators()
+    {
+        List<Relocator> relocators = Arrays.asList( new Relocator[]{ foo, fooBar, baz, raw } );
+        RelocatorIndex index = new RelocatorIndex( relocators );
+
+        String[] names = { "org/foo/Class", "org.foo.bar.Class", "com/baz", "com/bazooka/Class", "org/fool/Class",
+            "/org/foo/x.properties", "META-INF/org.foo.xml", "java/lang/String" };
+        for ( String name : names )
+        {
+            for ( Relocator relocator : relocators )
+            {
+                if ( relocator.canRelocatePath( name ) || relocator.canRelocateClass( name ) )
+                {
+                    assertTrue( name, index.getCandidates( name ).contains( relocator ) );
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package org.apache.maven.plugins.shade.relocation;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Test for {@link SourceContentRelocator}.
+ */
+public class SourceContentRelocatorTest
+    extends TestCase
+{
+
+    private static final String SOURCE = "package org.foo.bar;\n\n"
+        + "import org.foo.Helper;\n"
+        + "import com.baz.Util;\n"
+        + "import java.util.List;\n\n"
+        + "public class Example extends org.foo.Base\n"
+        + "{\n"
+        + "    private static final String NAME = \"org.foo.Example\";\n"
+        + "    private com.baz.Util util = new com.baz.Util();\n"
+        + "    private String notRelocated = \"xorg.foo\" + my_org.foo;\n"
+        + "}\n";
+
+    private final Relocator foo = new SimpleRelocator( "org.foo", "shaded.org.foo", null, null );
+
+    private final Relocator baz = new SimpleRelocator( "com.baz", null, null, null );
+
+    private final Relocator raw = new SimpleRelocator( "^META-INF/org.foo.xml$", null, null, null, true );
+
+    public void testSameResultAsApplyToSourceContent()
+        throws Exception
+    {
+        List<Relocator> relocators = Arrays.asList( new Relocator[]{ foo, raw, baz } );
+
+        assertEquals( applyOneByOne( SOURCE, relocators ), relocate( SOURCE, relocators ) );
+    }
+
+    public void testLongSourceAcrossBuffers()
+        throws Exception
+    {
+        StringBuilder sb = new StringBuilder();
+        for ( int i = 0; i < 2000; i++ )
+        {
+            sb.append( "import org.foo.Class" ).append( i ).append( "; // com.baz\n" );
+        }
+        String source = sb.toString();
+
+        List<Relocator> relocators = Arrays.asList( new Relocator[]{ foo, baz } );
+
+        assertEquals( applyOneByOne( source, relocators ), relocate( source, relocators ) );
+    }
+
+    public void testDotMatchesAnyCharacterLikeTheRegex()
+        throws Exception
+    {
+        List<Relocator> relocators = Collections.singletonList( foo );
+
+        assertEquals( "shaded.org.foo shaded.org.foo org\nfoo", relocate( "org/foo org_foo org\nfoo", relocators ) );
+    }
+
+    public void testFirstRelocatorWinsWithoutRelocatingTwice()
+        throws Exception
+    {
+        Relocator fooBar = new SimpleRelocator( "org.foo.bar", null, null, null );
+        List<Relocator> relocators = Arrays.asList( new Relocator[]{ foo, fooBar } );
+
+        assertEquals( "shaded.org.foo.bar.X", relocate( "org.foo.bar.X", relocators ) );
+    }
+
+    public void testOnlySimpleRelocatorsAreSupported()
+    {
+        Relocator custom = new Relocator()
+        {
+            public boolean canRelocatePath( String clazz )
+            {
+                return false;
+            }
+
+            public String relocatePath( String clazz )
+            {
+                return clazz;
+            }
+
+            public boolean canRelocateClass( String clazz )
+            {
+                return false;
+            }
+
+            public String relocateClass( String clazz )
+            {
+                return clazz;
+            }
+
+            public String applyToSourceContent( String sourceContent )
+            {
+                return sourceContent;
+            }
+        };
+
+        assertNull( SourceContentRelocator.create( Arrays.asList( new Relocator[]{ foo, custom } ) ) );
+        assertNotNull( SourceContentRelocator.create( Arrays.asList( new Relocator[]{ foo, raw } ) ) );
+    }
+
+    public void testSubclassesAreNotSupported()
+    {
+        Relocator subclass = new SimpleRelocator( "com.baz", null, null, null )
+        {
+            public String applyToSourceContent( String sourceContent )
+            {
+                return super.applyToSourceContent( sourceContent ).replace( "legacy.", "shaded.legacy." );
+            }
+        };
+
+        assertNull( SourceContentRelocator.create( Arrays.asList( new Relocator[]{ foo, subclass } ) ) );
+    }
+
+    private static String relocate( String source, List<Relocator> relocators )
+        throws Exception
+    {
+        StringWriter writer = new StringWriter();
+        SourceContentRelocator.create( relocators ).relocate( new StringReader( source ), writer );
+        return writer.toString();
+    }
+
+    private static String applyOneByOne( String source, List<Relocator> relocators )
+    {
+        for ( Relocator relocator : relocators )
+        {
+            source = relocator.applyToSourceContent( source );
+        }
+        return source;
+    }
+}
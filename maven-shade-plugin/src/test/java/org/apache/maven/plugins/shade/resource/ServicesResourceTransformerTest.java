@@ -0,0 +1,130 @@
+package org.apache.maven.plugins.shade.resource;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Collections;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+
+import junit.framework.TestCase;
+
+import org.apache.maven.plugins.shade.relocation.Relocator;
+import org.codehaus.plexus.util.IOUtil;
+
+/**
+ * Test for {@link ServicesResourceTransformer}.
+ */
+public class ServicesResourceTransformerTest
+    extends TestCase
+{
+
+    private static final String SERVICE = "META-INF/services/org.foo.Service";
+
+    public void testMergesAndDeduplicatesServices()
+        throws Exception
+    {
+        ServicesResourceTransformer transformer = new ServicesResourceTransformer();
+
+        assertTrue( transformer.canTransformResource( SERVICE ) );
+        assertFalse( transformer.canTransformResource( "META-INF/MANIFEST.MF" ) );
+
+        transformer.processResource( SERVICE, stream( "org.foo.A\norg.foo.B" ),
+                                     Collections.<Relocator>emptyList() );
+        transformer.processResource( SERVICE, stream( "org.foo.B\r\n\r\norg.foo.C\n" ),
+                                     Collections.<Relocator>emptyList() );
+
+        assertTrue( transformer.hasTransformedResource() );
+
+        File file = new File( "target/services-transformer-test.jar" );
+        file.getParentFile().mkdirs();
+        JarOutputStream jos = new JarOutputStream( new FileOutputStream( file ) );
+        transformer.modifyOutputStream( jos );
+        jos.close();
+
+        JarFile jarFile = new JarFile( file );
+        try
+        {
+            String content = IOUtil.toString( jarFile.getInputStream( jarFile.getEntry( SERVICE ) ), "UTF-8" );
+            assertEquals( "org.foo.A\norg.foo.B\norg.foo.C\n", content );
+        }
+        finally
+        {
+            jarFile.close();
+        }
+    }
+
+    public void testResourceBufferSpillsToFile()
+        throws Exception
+    {
+        ResourceBuffer buffer = new ResourceBuffer( 4 );
+        buffer.write( "abc".getBytes( "UTF-8" ) );
+        buffer.write( "defgh".getBytes( "UTF-8" ) );
+        buffer.write( '\n' );
+
+        assertEquals( 9, buffer.size() );
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        buffer.writeTo( out );
+        assertEquals( "abcdefgh\n", out.toString( "UTF-8" ) );
+
+        assertTrue( buffer.contentEquals( 3, "defgh".getBytes( "UTF-8" ) ) );
+        assertFalse( buffer.contentEquals( 3, "defgi".getBytes( "UTF-8" ) ) );
+        assertFalse( buffer.contentEquals( 8, "\n\n".getBytes( "UTF-8" ) ) );
+
+        buffer.discard();
+        assertEquals( 0, buffer.size() );
+    }
+
+    public void testServiceStreamDeduplicatesLinesSpilledToFile()
+        throws Exception
+    {
+        ServicesResourceTransformer.ServiceStream stream = new ServicesResourceTransformer.ServiceStream( 64 );
+
+        StringBuilder first = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+        for ( int i = 0; i < 100; i++ )
+        {
+            first.append( "org.foo.Impl" ).append( i ).append( '\n' );
+            expected.append( "org.foo.Impl" ).append( i ).append( '\n' );
+        }
+        stream.append( stream( first.toString() ) );
+        stream.append( stream( "org.foo.Impl42\norg.foo.Impl0\norg.foo.Extra\n" + first ) );
+        expected.append( "org.foo.Extra\n" );
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        stream.writeTo( out );
+        assertEquals( expected.toString(), out.toString( "UTF-8" ) );
+
+        stream.discard();
+        stream.append( stream( "org.foo.Impl0\n" ) );
+        assertEquals( "org.foo.Impl0\n".length(), stream.size() );
+        stream.discard();
+    }
+
+    private static ByteArrayInputStream stream( String content )
+        throws Exception
+    {
+        return new ByteArrayInputStream( content.getBytes( "UTF-8" ) );
+    }
+}
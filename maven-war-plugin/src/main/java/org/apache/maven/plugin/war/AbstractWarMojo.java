@@ -28,13 +28,19 @@ import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.plugin.war.overlay.OverlayManager;
+import org.apache.maven.plugin.war.packaging.ArchiveEntries;
+import org.apache.maven.plugin.war.packaging.CopyEngine;
+import org.apache.maven.plugin.war.packaging.OverlayCache;
 import org.apache.maven.plugin.war.packaging.DependenciesAnalysisPackagingTask;
 import org.apache.maven.plugin.war.packaging.OverlayPackagingTask;
+import org.apache.maven.plugin.war.packaging.PackagingMetrics;
 import org.apache.maven.plugin.war.packaging.SaveWebappStructurePostPackagingTask;
 import org.apache.maven.plugin.war.packaging.WarPackagingContext;
+import org.apache.maven.plugin.war.packaging.WarPackagingServices;
 import org.apache.maven.plugin.war.packaging.WarPackagingTask;
 import org.apache.maven.plugin.war.packaging.WarPostPackagingTask;
 import org.apache.maven.plugin.war.packaging.WarProjectPackagingTask;
+import org.apache.maven.plugin.war.util.DigestManifest;
 import org.apache.maven.plugin.war.util.WebappStructure;
 import org.apache.maven.plugin.war.util.WebappStructureSerializer;
 import org.apache.maven.plugins.annotations.Component;
@@ -160,11 +166,13 @@ public abstract class AbstractWarMojo
     private String outputFileNameMapping;
 
     /**
-     * The file containing the webapp structure cache.
+     * The file containing the webapp structure cache. The cache is saved in a
+     * binary format, a cache file in the XML format of previous versions is
+     * still read.
      *
      * @since 2.1-alpha-1
      */
-    @Parameter( defaultValue = "${project.build.directory}/war/work/webapp-cache.xml", required = true )
+    @Parameter( defaultValue = "${project.build.directory}/war/work/webapp-cache.bin", required = true )
     private File cacheFile;
 
     /**
@@ -176,6 +184,88 @@ public abstract class AbstractWarMojo
     @Parameter( property = "useCache", defaultValue = "false" )
     private boolean useCache = false;
 
+    /**
+     * The number of threads used to copy, filter and unpack files while
+     * building the webapp. Which overlay provides a file is still decided on
+     * the build thread in a deterministic order, so the webapp does not depend
+     * on this value. The default of 1 performs all file operations on the
+     * build thread.
+     *
+     * @since 2.3
+     */
+    @Parameter( property = "packagingThreads", defaultValue = "1" )
+    private int packagingThreads = 1;
+
+    /**
+     * Whether the content of the files should be compared, rather than their
+     * timestamps, to decide whether they need to be copied to the webapp
+     * directory. The size and digest of the copied files are recorded in the
+     * <code>digestFile</code>. This keeps files from being copied again after
+     * the timestamps of the sources changed, such as after a fresh checkout,
+     * and leaves the timestamps of unchanged files alone, so that the WAR is
+     * not created again if nothing changed and <code>archive.forced</code> is
+     * <code>false</code>.
+     *
+     * @since 2.3
+     */
+    @Parameter( property = "useDigests", defaultValue = "false" )
+    private boolean useDigests = false;
+
+    /**
+     * The file holding the digests of the files of the webapp directory.
+     *
+     * @since 2.3
+     */
+    @Parameter( defaultValue = "${project.build.directory}/war/work/webapp-digests.txt", required = true )
+    private File digestFile;
+
+    /**
+     * The directory to unpack the overlays to, instead of the overlays work
+     * directory. The overlays are unpacked to a directory named after the
+     * SHA-1 digest of their archive, so an overlay is unpacked only once
+     * even if it is used by several modules and builds. The directory should
+     * be outside of the <code>target</code> directory, for instance
+     * <code>${user.home}/.m2/war-overlays</code>, so that it survives a
+     * clean.
+     *
+     * @since 2.3
+     */
+    @Parameter( property = "overlayCacheDirectory" )
+    private File overlayCacheDirectory;
+
+    /**
+     * Whether the files of the <code>overlayCacheDirectory</code> should be
+     * hard linked into the webapp directory rather than copied. This requires
+     * Java 7 and the webapp directory to be on the same file system as the
+     * cache, the files are copied otherwise.
+     * <p/>
+     * A linked file shares its content with the cache: editing it in place,
+     * for instance from an IDE, changes the cache for every module and later
+     * build, as the cache is not checked again once an overlay is unpacked.
+     * Only enable this if nothing edits the webapp directory. Files are never
+     * linked by <code>war:inplace</code>, which generates the webapp in the
+     * source directory.
+     *
+     * @since 2.3
+     */
+    @Parameter( property = "overlayCacheLinks", defaultValue = "false" )
+    private boolean overlayCacheLinks = false;
+
+    /**
+     * The file to write the metrics of the packaging to, as a JSON report: the
+     * time spent in each phase of the packaging, such as the copy of the web
+     * resources, the classes, the artifacts and the overlays, the filtering and
+     * the creation of the archive, the files and bytes copied by each phase and
+     * the hits and misses of the webapp structure cache. No report is written
+     * if not set.
+     *
+     * @since 2.3
+     */
+    @Parameter( property = "packagingMetricsFile" )
+    private File packagingMetricsFile;
+
+    private PackagingMetrics packagingMetrics = new PackagingMetrics();
+
     /**
      */
     @Component( role = ArtifactFactory.class )
@@ -386,12 +476,30 @@ public abstract class AbstractWarMojo
 
     public void buildExplodedWebapp( File webappDirectory )
         throws MojoExecutionException, MojoFailureException
+    {
+        buildExplodedWebapp( webappDirectory, null );
+    }
+
+    /**
+     * Builds the webapp in the specified directory. If <tt>archiveEntries</tt>
+     * is not <tt>null</tt>, the webapp is not exploded: the files that are
+     * simply copied are registered there and only the generated files are
+     * written to the <tt>webappDirectory</tt>.
+     *
+     * @param webappDirectory the target directory
+     * @param archiveEntries  the files to archive from their source or <tt>null</tt>
+     * @throws MojoExecutionException if an error occurred while packaging the webapp
+     * @throws MojoFailureException   if an unexpected error occurred while packaging the webapp
+     * @since 2.3
+     */
+    protected void buildExplodedWebapp( File webappDirectory, ArchiveEntries archiveEntries )
+        throws MojoExecutionException, MojoFailureException
     {
         webappDirectory.mkdirs();
 
         try
         {
-            buildWebapp( project, webappDirectory );
+            buildWebapp( project, webappDirectory, archiveEntries );
         }
         catch ( IOException e )
         {
@@ -413,15 +521,34 @@ public abstract class AbstractWarMojo
      * @throws MojoFailureException   if an unexpected error occurred while packaging the webapp
      * @throws IOException            if an error occurred while copying the files
      */
-    @SuppressWarnings( "unchecked" )
     public void buildWebapp( MavenProject project, File webappDirectory )
         throws MojoExecutionException, MojoFailureException, IOException
     {
+        buildWebapp( project, webappDirectory, null );
+    }
+
+    /**
+     * Builds the webapp for the specified project, possibly without exploding
+     * it.
+     *
+     * @param project         the maven project
+     * @param webappDirectory the target directory
+     * @param archiveEntries  the files to archive from their source or <tt>null</tt>
+     * @throws MojoExecutionException if an error occurred while packaging the webapp
+     * @throws MojoFailureException   if an unexpected error occurred while packaging the webapp
+     * @throws IOException            if an error occurred while copying the files
+     * @see #buildExplodedWebapp(File, ArchiveEntries)
+     * @since 2.3
+     */
+    @SuppressWarnings( "unchecked" )
+    protected void buildWebapp( MavenProject project, File webappDirectory, ArchiveEntries archiveEntries )
+        throws MojoExecutionException, MojoFailureException, IOException
+    {
 
         WebappStructure cache;
         if ( useCache && cacheFile.exists() )
         {
-            cache = new WebappStructure( project.getDependencies(), webappStructureSerialier.fromXml( cacheFile ) );
+            cache = new WebappStructure( project.getDependencies(), webappStructureSerialier.read( cacheFile ) );
         }
         else
         {
@@ -451,22 +578,63 @@ public abstract class AbstractWarMojo
             throw new MojoExecutionException( e.getMessage(), e );
         }
 
+        // nothing is copied if the webapp is not exploded, so there is nothing to digest
+        final DigestManifest digestManifest =
+            useDigests && archiveEntries == null ? DigestManifest.load( digestFile ) : null;
+        final OverlayCache overlayCache =
+            overlayCacheDirectory != null ? new OverlayCache( overlayCacheDirectory, isOverlayCacheLinks() ) : null;
+        final CopyEngine copyEngine = new CopyEngine( packagingThreads );
+        packagingMetrics = new PackagingMetrics();
         final WarPackagingContext context = new DefaultWarPackagingContext( webappDirectory, cache, overlayManager,
                                                                             defaultFilterWrappers,
                                                                             getNonFilteredFileExtensions(),
                                                                             filteringDeploymentDescriptors,
-                                                                            this.artifactFactory );
-        for ( WarPackagingTask warPackagingTask : packagingTasks )
+                                                                            this.artifactFactory,
+                                                                            new WarPackagingServices( copyEngine,
+                                                                                                      digestManifest,
+                                                                                                      overlayCache,
+                                                                                                      archiveEntries,
+                                                                                                      packagingMetrics ) );
+        try
+        {
+            // Unpack all the overlays up front, so that they are unpacked while the project is packaged
+            packagingMetrics.enter( "overlays" );
+            for ( WarPackagingTask warPackagingTask : packagingTasks )
+            {
+                if ( warPackagingTask instanceof OverlayPackagingTask )
+                {
+                    ( (OverlayPackagingTask) warPackagingTask ).submitUnpack( context );
+                }
+            }
+
+            for ( WarPackagingTask warPackagingTask : packagingTasks )
+            {
+                packagingMetrics.enter( getPhase( warPackagingTask ) );
+                warPackagingTask.performPackaging( context );
+            }
+
+            // the copies that are not done yet
+            packagingMetrics.enter( "copyEngine" );
+            copyEngine.await();
+        }
+        finally
+        {
+            copyEngine.shutdown();
+        }
+
+        if ( digestManifest != null )
         {
-            warPackagingTask.performPackaging( context );
+            digestManifest.save( digestFile );
         }
 
         // Post packaging
         final List<WarPostPackagingTask> postPackagingTasks = getPostPackagingTasks();
         for( WarPostPackagingTask task  : postPackagingTasks )
         {
+            packagingMetrics.enter( getPhase( task ) );
             task.performPostPackaging( context );
         }
+        packagingMetrics.end();
         getLog().info( "Webapp assembled in [" + ( System.currentTimeMillis() - startTime ) + " msecs]" );
 
     }
@@ -543,11 +711,14 @@ public abstract class AbstractWarMojo
 
         private boolean filteringDeploymentDescriptors;
 
+        private final WarPackagingServices packagingServices;
+
         public DefaultWarPackagingContext( File webappDirectory, final WebappStructure webappStructure,
                                            final OverlayManager overlayManager, List<FileUtils.FilterWrapper> filterWrappers,
                                            List<String>  nonFilteredFileExtensions, boolean filteringDeploymentDescriptors,
-                                           ArtifactFactory artifactFactory )
+                                           ArtifactFactory artifactFactory, WarPackagingServices packagingServices )
         {
+            this.packagingServices = packagingServices;
             this.webappDirectory = webappDirectory;
             this.webappStructure = webappStructure;
             this.overlayManager = overlayManager;
@@ -673,6 +844,11 @@ public abstract class AbstractWarMojo
         {
             return session;
         }
+
+        public WarPackagingServices getPackagingServices()
+        {
+            return packagingServices;
+        }
     }
 
     public MavenProject getProject()
@@ -851,6 +1027,125 @@ public abstract class AbstractWarMojo
         this.useCache = useCache;
     }
 
+    public int getPackagingThreads()
+    {
+        return packagingThreads;
+    }
+
+    public void setPackagingThreads( int packagingThreads )
+    {
+        this.packagingThreads = packagingThreads;
+    }
+
+    public boolean isUseDigests()
+    {
+        return useDigests;
+    }
+
+    public void setUseDigests( boolean useDigests )
+    {
+        this.useDigests = useDigests;
+    }
+
+    public File getDigestFile()
+    {
+        return digestFile;
+    }
+
+    public void setDigestFile( File digestFile )
+    {
+        this.digestFile = digestFile;
+    }
+
+    public File getOverlayCacheDirectory()
+    {
+        return overlayCacheDirectory;
+    }
+
+    public void setOverlayCacheDirectory( File overlayCacheDirectory )
+    {
+        this.overlayCacheDirectory = overlayCacheDirectory;
+    }
+
+    public File getPackagingMetricsFile()
+    {
+        return packagingMetricsFile;
+    }
+
+    public void setPackagingMetricsFile( File packagingMetricsFile )
+    {
+        this.packagingMetricsFile = packagingMetricsFile;
+    }
+
+    /**
+     * Returns the metrics of the last packaging, which the mojos may complete
+     * with their own phases before they are written.
+     *
+     * @return the packaging metrics
+     * @since 2.3
+     */
+    protected PackagingMetrics getPackagingMetrics()
+    {
+        return packagingMetrics;
+    }
+
+    /**
+     * Writes the metrics of the packaging to the <code>packagingMetricsFile</code>,
+     * if any.
+     *
+     * @throws MojoExecutionException if the report could not be written
+     * @since 2.3
+     */
+    protected void writePackagingMetrics()
+        throws MojoExecutionException
+    {
+        if ( packagingMetricsFile != null )
+        {
+            try
+            {
+                packagingMetrics.write( packagingMetricsFile );
+            }
+            catch ( IOException e )
+            {
+                throw new MojoExecutionException( "Could not write packaging metrics [" + packagingMetricsFile + "]",
+                                                  e );
+            }
+        }
+    }
+
+    /**
+     * Returns the name of the packaging phase of the specified task, that is
+     * <tt>overlays</tt> for the overlays and the name of the task otherwise.
+     */
+    private static String getPhase( Object task )
+    {
+        if ( task instanceof OverlayPackagingTask )
+        {
+            return "overlays";
+        }
+        String name = task.getClass().getName();
+        name = name.substring( name.lastIndexOf( '.' ) + 1 );
+        if ( name.endsWith( "PostPackagingTask" ) )
+        {
+            name = name.substring( 0, name.length() - "PostPackagingTask".length() );
+        }
+        else if ( name.endsWith( "PackagingTask" ) )
+        {
+            name = name.substring( 0, name.length() - "PackagingTask".length() );
+        }
+        return StringUtils.uncapitalise( name );
+    }
+
+    public boolean isOverlayCacheLinks()
+    {
+        return overlayCacheLinks;
+    }
+
+    public void setOverlayCacheLinks( boolean overlayCacheLinks )
+    {
+        this.overlayCacheLinks = overlayCacheLinks;
+    }
+
     public MavenArchiveConfiguration getArchive()
     {
         return archive;
@@ -41,6 +41,7 @@ public class WarExplodedMojo
         getLog().info( "Exploding webapp" );
 
         buildExplodedWebapp( getWebappDirectory() );
+        writePackagingMetrics();
     }
 
 }
\ No newline at end of file
@@ -39,5 +39,17 @@ public class WarInPlaceMojo
         getLog().info( "Generating webapp in source directory [" + getWarSourceDirectory() + "]" );
 
         buildExplodedWebapp( getWarSourceDirectory() );
+        writePackagingMetrics();
+    }
+
+    /**
+     * The webapp is generated in the source directory, whose files are meant to
+     * be edited, so they are never linked to the overlay cache.
+     *
+     * @return false
+     */
+    public boolean isOverlayCacheLinks()
+    {
+        return false;
     }
 }
\ No newline at end of file
@@ -24,6 +24,7 @@ import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.DependencyResolutionRequiredException;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.war.packaging.ArchiveEntries;
 import org.apache.maven.plugin.war.util.ClassesPackager;
 import org.apache.maven.plugins.annotations.Component;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
@@ -155,6 +156,38 @@ public class WarMojo
     @Parameter( defaultValue = "classes" )
     private String classesClassifier = "classes";
 
+    /**
+     * Whether the WAR should be created straight from the files of the project, the overlays and the
+     * dependencies, rather than from the exploded webapp directory. The files that are simply copied
+     * are then read only once, when they are added to the WAR. Only the files generated by the
+     * packaging, such as the filtered ones, are written to the <code>stagingDirectory</code>.
+     * <p/>
+     * Use this when nothing needs the exploded webapp directory, since it is not created.
+     *
+     * @since 2.3
+     */
+    @Parameter( property = "skipExplodedWebapp", defaultValue = "false" )
+    private boolean skipExplodedWebapp = false;
+
+    /**
+     * The directory holding the files generated by the packaging when <code>skipExplodedWebapp</code>
+     * is set. It is cleaned at each build.
+     *
+     * @since 2.3
+     */
+    @Parameter( defaultValue = "${project.build.directory}/war/work/staging", required = true )
+    private File stagingDirectory;
+
+    /**
+     * Whether the zip archives, such as the jar files of <code>WEB-INF/lib</code>, should be compressed
+     * again when they are added to the WAR. Compressing them again hardly makes the WAR smaller but
+     * takes noticeably longer; they are stored as they are otherwise.
+     *
+     * @since 2.3
+     */
+    @Parameter( property = "recompressZippedFiles", defaultValue = "true" )
+    private boolean recompressZippedFiles = true;
+
     // ----------------------------------------------------------------------
     // Implementation
     // ----------------------------------------------------------------------
@@ -210,8 +243,24 @@ public class WarMojo
     {
         getLog().info( "Packaging webapp" );
 
-        buildExplodedWebapp( getWebappDirectory() );
+        final File webappDirectory;
+        final ArchiveEntries archiveEntries;
+        if ( skipExplodedWebapp )
+        {
+            // the files generated by the previous build may not be generated anymore
+            FileUtils.deleteDirectory( stagingDirectory );
+            webappDirectory = stagingDirectory;
+            archiveEntries = new ArchiveEntries( stagingDirectory );
+            buildExplodedWebapp( stagingDirectory, archiveEntries );
+        }
+        else
+        {
+            webappDirectory = getWebappDirectory();
+            archiveEntries = null;
+            buildExplodedWebapp( webappDirectory );
+        }
 
+        getPackagingMetrics().enter( "archiving" );
         MavenArchiver archiver = new MavenArchiver();
 
         archiver.setArchiver( warArchiver );
@@ -223,9 +272,20 @@ public class WarMojo
         getLog().debug(
             "Including " + Arrays.asList( getPackagingIncludes() ) + " in the generated webapp archive." );
 
-        warArchiver.addDirectory( getWebappDirectory(), getPackagingIncludes(), getPackagingExcludes() );
+        warArchiver.setRecompressAddedZips( recompressZippedFiles );
+        warArchiver.addDirectory( webappDirectory, getPackagingIncludes(), getPackagingExcludes() );
 
-        final File webXmlFile = new File( getWebappDirectory(), "WEB-INF/web.xml" );
+        final File webXmlFile;
+        if ( archiveEntries != null )
+        {
+            getLog().debug( "Adding " + archiveEntries.size() + " files from their source." );
+            archiveEntries.addTo( warArchiver, getPackagingIncludes(), getPackagingExcludes() );
+            webXmlFile = archiveEntries.getFile( "WEB-INF/web.xml" );
+        }
+        else
+        {
+            webXmlFile = new File( webappDirectory, "WEB-INF/web.xml" );
+        }
         if ( webXmlFile.exists() )
         {
             warArchiver.setWebxml( webXmlFile );
@@ -239,6 +299,8 @@ public class WarMojo
 
         // create archive
         archiver.createArchive( getSession(), getProject(), getArchive() );
+        getPackagingMetrics().end();
+        writePackagingMetrics();
 
         // create the classes to be attached if necessary
         if ( isAttachClasses() )
@@ -253,7 +315,9 @@ public class WarMojo
             else
             {
                 ClassesPackager packager = new ClassesPackager();
-                final File classesDirectory = packager.getClassesDirectory( getWebappDirectory() );
+                // the classes are not copied to the webapp if it is not exploded
+                final File classesDirectory =
+                    skipExplodedWebapp ? getClassesDirectory() : packager.getClassesDirectory( webappDirectory );
                 if ( classesDirectory.exists() )
                 {
                     getLog().info( "Packaging classes" );
@@ -426,6 +490,36 @@ public class WarMojo
         this.classesClassifier = classesClassifier;
     }
 
+    public boolean isSkipExplodedWebapp()
+    {
+        return skipExplodedWebapp;
+    }
+
+    public void setSkipExplodedWebapp( boolean skipExplodedWebapp )
+    {
+        this.skipExplodedWebapp = skipExplodedWebapp;
+    }
+
+    public File getStagingDirectory()
+    {
+        return stagingDirectory;
+    }
+
+    public void setStagingDirectory( File stagingDirectory )
+    {
+        this.stagingDirectory = stagingDirectory;
+    }
+
+    public boolean isRecompressZippedFiles()
+    {
+        return recompressZippedFiles;
+    }
+
+    public void setRecompressZippedFiles( boolean recompressZippedFiles )
+    {
+        this.recompressZippedFiles = recompressZippedFiles;
+    }
+
     public boolean isFailOnMissingWebXml()
     {
         return failOnMissingWebXml;
@@ -26,6 +26,7 @@ import java.util.Iterator;
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.war.AbstractWarMojo;
+import org.apache.maven.plugin.war.util.DigestManifest;
 import org.apache.maven.plugin.war.util.MappingUtils;
 import org.apache.maven.plugin.war.util.PathSet;
 import org.apache.maven.plugin.war.util.WebappStructure;
@@ -147,13 +148,15 @@ public abstract class AbstractWarPackagingTask
             public void registered( String ownerId, String targetFilename )
                 throws IOException
             {
-                copyFile( context, file, targetFile, targetFilename, false );
+                context.getPackagingServices().getPackagingMetrics().recordCacheMiss();
+                submitCopy( context, file, targetFile, targetFilename, false );
             }
 
             public void alreadyRegistered( String ownerId, String targetFilename )
                 throws IOException
             {
-                copyFile( context, file, targetFile, targetFilename, true );
+                context.getPackagingServices().getPackagingMetrics().recordCacheHit();
+                submitCopy( context, file, targetFile, targetFilename, true );
             }
 
             public void refused( String ownerId, String targetFilename, String actualOwnerId )
@@ -168,7 +171,8 @@ public abstract class AbstractWarPackagingTask
             {
                 context.getLog().info( "File [" + targetFilename + "] belonged to overlay [" + deprecatedOwnerId
                     + "] so it will be overwritten." );
-                copyFile( context, file, targetFile, targetFilename, false );
+                context.getPackagingServices().getPackagingMetrics().recordCacheMiss();
+                submitCopy( context, file, targetFile, targetFilename, false );
             }
 
             public void supersededUnknownOwner( String ownerId, String targetFilename, String unknownOwnerId )
@@ -178,11 +182,56 @@ public abstract class AbstractWarPackagingTask
                     .warn( "File [" + targetFilename + "] belonged to overlay [" + unknownOwnerId
                         + "] which does not exist anymore in the current project. It is recommended to invoke "
                         + "clean if the dependencies of the project changed." );
-                copyFile( context, file, targetFile, targetFilename, false );
+                context.getPackagingServices().getPackagingMetrics().recordCacheMiss();
+                submitCopy( context, file, targetFile, targetFilename, false );
             }
         } );
     }
 
+    /**
+     * Hands the copy of the specified file over to the copy engine of the
+     * context.
+     *
+     * @param context        the packaging context
+     * @param source         an existing non-directory <code>File</code> to copy bytes from
+     * @param destination    a non-directory <code>File</code> to write bytes to (possibly overwriting)
+     * @param targetFilename the relative path of the file from the webapp root directory
+     * @param onlyIfModified if true, copy the file only if the source has changed, always copy otherwise
+     * @throws IOException if a previous operation of the copy engine failed
+     * @see #copyFile(WarPackagingContext, File, File, String, boolean)
+     */
+    private void submitCopy( final WarPackagingContext context, final File source, final File destination,
+                             final String targetFilename, final boolean onlyIfModified )
+        throws IOException
+    {
+        final String phase = context.getPackagingServices().getPackagingMetrics().getCurrentPhase();
+        try
+        {
+            context.getPackagingServices().getCopyEngine().submit( destination, new CopyEngine.Operation()
+            {
+                public void perform()
+                    throws IOException
+                {
+                    if ( copyFile( context, source, destination, targetFilename, onlyIfModified ) )
+                    {
+                        context.getPackagingServices().getPackagingMetrics().recordCopy( phase, source.length() );
+                    }
+                    else
+                    {
+                        context.getPackagingServices().getPackagingMetrics().recordSkip( phase );
+                    }
+                }
+            } );
+        }
+        catch ( MojoExecutionException e )
+        {
+            // only the filtered copies and the unpacks fail with this exception
+            final IOException ioe = new IOException( e.getMessage() );
+            ioe.initCause( e );
+            throw ioe;
+        }
+    }
+
     /**
      * Copy the specified file if the target location has not yet already been
      * used and filter its content with the configured filter properties.
@@ -194,7 +243,7 @@ public abstract class AbstractWarPackagingTask
      * @param context        the context to use
      * @param file           the file to copy
      * @param targetFilename the relative path according to the root of the webapp
-     * @return true if the file has been copied, false otherwise
+     * @return true if the file has been registered to be copied, false otherwise
      * @throws IOException            if an error occurred while copying
      * @throws MojoExecutionException if an error occurred while retrieving the filter properties
      */
@@ -206,10 +255,17 @@ public abstract class AbstractWarPackagingTask
         if ( context.getWebappStructure().registerFile( sourceId, targetFilename ) )
         {
             final File targetFile = new File( context.getWebappDirectory(), targetFilename );
+
+            // the filter and its wrappers are not known to be thread-safe, so the filtered copies stay on the
+            // build thread, once the operations already submitted for this file are done
+            context.getPackagingServices().getCopyEngine().waitFor( targetFile );
+
+            final long start = System.currentTimeMillis();
             try
             {
                 // fix for MWAR-36, ensures that the parent dir are created first
                 targetFile.getParentFile().mkdirs();
+                unlink( context, targetFile );
                 // TODO: add encoding support (null mean platform encoding)
                 context.getMavenFileFilter().copyFile( file, targetFile, true, context.getFilterWrappers(), null );
             }
@@ -217,6 +273,9 @@ public abstract class AbstractWarPackagingTask
             {
                 throw new MojoExecutionException( e.getMessage(), e );
             }
+            final PackagingMetrics metrics = context.getPackagingServices().getPackagingMetrics();
+            metrics.recordCopy( PackagingMetrics.FILTERING, targetFile.length() );
+            metrics.recordTime( PackagingMetrics.FILTERING, System.currentTimeMillis() - start );
             // Add the file to the protected list
             context.getLog().debug( " + " + targetFilename + " has been copied (filtered)." );
             return true;
@@ -269,6 +328,14 @@ public abstract class AbstractWarPackagingTask
      * is <tt>false</tt>, <code>destination</code> will be overwritten if it already exists. If the
      * flag is <tt>true</tt> destination will be overwritten if it's not up to date.
      * <p/>
+     * If the webapp is not exploded, the file is registered in the
+     * {@link ArchiveEntries} of the context instead of being copied.
+     * <p/>
+     * If the context has a {@link DigestManifest}, the content of the files is
+     * compared instead and <code>destination</code> is only overwritten if it
+     * doesn't have the content of <code>source</code> already, whatever the
+     * <code>onlyIfModified</code> flag.
+     * <p/>
      *
      * @param context        the packaging context
      * @param source         an existing non-directory <code>File</code> to copy bytes from
@@ -283,21 +350,87 @@ public abstract class AbstractWarPackagingTask
                                 boolean onlyIfModified )
         throws IOException
     {
-        if ( onlyIfModified && destination.lastModified() >= source.lastModified() )
+        final ArchiveEntries archiveEntries = context.getPackagingServices().getArchiveEntries();
+        if ( archiveEntries != null )
+        {
+            // replaces a file generated by a previous task
+            destination.delete();
+            archiveEntries.put( destination, source.getCanonicalFile() );
+            context.getLog().debug( " + " + targetFilename + " will be archived from its source." );
+            return true;
+        }
+
+        final DigestManifest digestManifest = context.getPackagingServices().getDigestManifest();
+        if ( digestManifest != null )
+        {
+            final String digest = DigestManifest.digest( source );
+            final boolean upToDate = digestManifest.isUpToDate( targetFilename, destination, digest );
+            if ( upToDate )
+            {
+                context.getLog().debug( " * " + targetFilename + " is unchanged." );
+            }
+            else
+            {
+                doCopyFile( context, source, destination, targetFilename );
+            }
+            digestManifest.record( targetFilename, destination.length(), digest );
+            return !upToDate;
+        }
+        else if ( onlyIfModified && destination.lastModified() >= source.lastModified() )
         {
             context.getLog().debug( " * " + targetFilename + " is up to date." );
             return false;
         }
         else
         {
-            FileUtils.copyFile( source.getCanonicalFile(), destination );
-            // preserve timestamp
-            destination.setLastModified( source.lastModified() );
-            context.getLog().debug( " + " + targetFilename + " has been copied." );
+            doCopyFile( context, source, destination, targetFilename );
             return true;
         }
     }
 
+    private void doCopyFile( WarPackagingContext context, File source, File destination, String targetFilename )
+        throws IOException
+    {
+        final OverlayCache overlayCache = context.getPackagingServices().getOverlayCache();
+        if ( overlayCache != null )
+        {
+            unlink( context, destination );
+            destination.getParentFile().mkdirs();
+            if ( overlayCache.link( source, destination ) )
+            {
+                context.getLog().debug( " + " + targetFilename + " has been linked." );
+                return;
+            }
+        }
+        FileUtils.copyFile( source.getCanonicalFile(), destination );
+        // preserve timestamp
+        destination.setLastModified( source.lastModified() );
+        context.getLog().debug( " + " + targetFilename + " has been copied." );
+    }
+
+    /**
+     * Prepares the specified file of the webapp directory to be written. The
+     * file is deleted if the overlays are unpacked to an {@link OverlayCache},
+     * since it may be a hard link to a file of the cache, which must not be
+     * modified. If the webapp is not exploded, the source registered for the
+     * file in the {@link ArchiveEntries} is removed, so that the written file
+     * is archived instead.
+     *
+     * @param context     the packaging context
+     * @param destination the file about to be written
+     */
+    protected void unlink( WarPackagingContext context, File destination )
+    {
+        if ( context.getPackagingServices().getOverlayCache() != null )
+        {
+            destination.delete();
+        }
+        if ( context.getPackagingServices().getArchiveEntries() != null )
+        {
+            context.getPackagingServices().getArchiveEntries().remove( destination );
+        }
+    }
+
     /**
      * Returns the file to copy. If the includes are <tt>null</tt> or empty, the
      * default includes are used.
@@ -0,0 +1,166 @@
+package org.apache.maven.plugin.war.packaging;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.plugin.war.util.PathSet;
+import org.codehaus.plexus.archiver.Archiver;
+import org.codehaus.plexus.archiver.ArchiverException;
+import org.codehaus.plexus.util.SelectorUtils;
+import org.codehaus.plexus.util.StringUtils;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The files of the webapp that are added to the archive straight from their
+ * source, rather than copied to the webapp directory first.
+ * <p/>
+ * When the webapp is not exploded, the packaging tasks register the plain
+ * copies here, that is the webapp sources, the resources, the classes, the
+ * libraries and the files of the overlays. The webapp directory then only
+ * holds the files generated by the packaging, such as the filtered ones, and
+ * a file written there replaces the registered one with the same path.
+ *
+ * @version $Id$
+ * @since 2.3
+ */
+public class ArchiveEntries
+{
+
+    private final File webappDirectory;
+
+    private final Map entries = new TreeMap();
+
+    /**
+     * Creates a new instance.
+     *
+     * @param webappDirectory the directory holding the generated files of the webapp
+     */
+    public ArchiveEntries( File webappDirectory )
+    {
+        this.webappDirectory = webappDirectory;
+    }
+
+    /**
+     * Registers the source of the specified file of the webapp.
+     *
+     * @param destination the file of the webapp directory
+     * @param source      the file to add to the archive at that path
+     */
+    public synchronized void put( File destination, File source )
+    {
+        entries.put( getPath( destination ), source );
+    }
+
+    /**
+     * Removes the specified file of the webapp, before it is written to the
+     * webapp directory.
+     *
+     * @param destination the file of the webapp directory
+     * @return the source that was registered for that file or <tt>null</tt>
+     */
+    public synchronized File remove( File destination )
+    {
+        return (File) entries.remove( getPath( destination ) );
+    }
+
+    /**
+     * Returns the file with the content of the specified path of the webapp,
+     * either its registered source or the file of the webapp directory.
+     *
+     * @param path the relative path from the webapp root directory
+     * @return the file, which may not exist
+     */
+    public synchronized File getFile( String path )
+    {
+        final File source = (File) entries.get( PathSet.normalizeFilePathStatic( path ) );
+        return source != null ? source : new File( webappDirectory, path );
+    }
+
+    /**
+     * Returns the number of registered files.
+     *
+     * @return the number of files to add from their source
+     */
+    public synchronized int size()
+    {
+        return entries.size();
+    }
+
+    /**
+     * Adds the registered files to the specified archiver, if they match the
+     * specified includes and excludes, in the order of their path.
+     *
+     * @param archiver the archiver
+     * @param includes the patterns of the paths to add
+     * @param excludes the patterns of the paths not to add
+     * @throws ArchiverException if a file could not be added
+     */
+    public synchronized void addTo( Archiver archiver, String[] includes, String[] excludes )
+        throws ArchiverException
+    {
+        for ( Iterator it = entries.entrySet().iterator(); it.hasNext(); )
+        {
+            final Map.Entry entry = (Map.Entry) it.next();
+            final String path = (String) entry.getKey();
+            if ( matches( path, includes ) && !matches( path, excludes ) )
+            {
+                archiver.addFile( (File) entry.getValue(), path );
+            }
+        }
+    }
+
+    private String getPath( File destination )
+    {
+        final String base = webappDirectory.getPath();
+        final String path = destination.getPath();
+        if ( !path.startsWith( base + File.separator ) )
+        {
+            throw new IllegalArgumentException(
+                "File [" + destination + "] is not in the webapp directory [" + webappDirectory + "]" );
+        }
+        return PathSet.normalizeFilePathStatic( path.substring( base.length() ) );
+    }
+
+    /**
+     * Matches the path the same way the directory scanner of the archiver
+     * does, so that the includes and excludes of the webapp directory apply.
+     */
+    private static boolean matches( String path, String[] patterns )
+    {
+        final String filePath = path.replace( '/', File.separatorChar );
+        for ( int i = 0; i < patterns.length; i++ )
+        {
+            String pattern = StringUtils.replace( patterns[i].trim(), '/', File.separatorChar );
+            pattern = StringUtils.replace( pattern, '\\', File.separatorChar );
+            if ( pattern.endsWith( File.separator ) )
+            {
+                pattern += "**";
+            }
+            if ( SelectorUtils.matchPath( pattern, filePath, true ) )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+}
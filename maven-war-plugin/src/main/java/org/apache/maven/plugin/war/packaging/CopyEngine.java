@@ -0,0 +1,265 @@
+package org.apache.maven.plugin.war.packaging;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Performs the file operations of the packaging tasks, that is the copies
+ * and the unpacks, on a bounded pool of threads. The filtered copies stay on
+ * the build thread, as the file filter is not known to be thread-safe.
+ * <p/>
+ * The packaging tasks still decide which file goes where on the build
+ * thread, through the {@link org.apache.maven.plugin.war.util.WebappStructure},
+ * so the ownership of the files does not depend on the number of threads.
+ * Only the operations themselves are handed over to the engine. Operations
+ * on the same target are performed in the order they were submitted, so a
+ * file that is overwritten by a later task, such as a custom <tt>web.xml</tt>,
+ * ends up with the content of the last operation.
+ * <p/>
+ * With a single thread, the operations are performed right away on the
+ * build thread.
+ *
+ * @version $Id$
+ * @since 2.3
+ */
+public class CopyEngine
+{
+
+    private final ExecutorService executor;
+
+    /**
+     * The last operation submitted for each target that may not be done yet.
+     */
+    private final Map pending = new HashMap();
+
+    private final List submitted = new ArrayList();
+
+    /**
+     * The first failure of an operation, rethrown on the build thread.
+     */
+    private volatile Throwable failure;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param threads the number of threads to perform the operations with
+     */
+    public CopyEngine( int threads )
+    {
+        this.executor = threads > 1 ? Executors.newFixedThreadPool( threads ) : null;
+    }
+
+    /**
+     * Submits an operation that writes to the specified target, a file or an
+     * unpack directory. The operation is performed after any operation that
+     * was submitted for the same target before.
+     *
+     * @param target    the file or directory written by the operation
+     * @param operation the operation
+     * @throws IOException            if this or a previous operation failed with an IOException
+     * @throws MojoExecutionException if this or a previous operation failed otherwise
+     */
+    public void submit( File target, final Operation operation )
+        throws IOException, MojoExecutionException
+    {
+        if ( executor == null )
+        {
+            operation.perform();
+            return;
+        }
+
+        // a failure stops the packaging early
+        if ( failure != null )
+        {
+            rethrow( failure );
+        }
+
+        final Future previous;
+        synchronized ( pending )
+        {
+            previous = (Future) pending.get( target );
+        }
+
+        final Future future = executor.submit( new Callable()
+        {
+            public Object call()
+                throws Exception
+            {
+                try
+                {
+                    if ( previous != null )
+                    {
+                        previous.get();
+                    }
+                    operation.perform();
+                    return null;
+                }
+                catch ( Exception e )
+                {
+                    if ( failure == null )
+                    {
+                        failure = e;
+                    }
+                    throw e;
+                }
+            }
+        } );
+
+        synchronized ( pending )
+        {
+            pending.put( target, future );
+        }
+        submitted.add( future );
+    }
+
+    /**
+     * Waits until the operations submitted for the specified target are done.
+     *
+     * @param target the file or directory
+     * @throws IOException            if an operation failed with an IOException
+     * @throws MojoExecutionException if an operation failed otherwise
+     */
+    public void waitFor( File target )
+        throws IOException, MojoExecutionException
+    {
+        final Future future;
+        synchronized ( pending )
+        {
+            future = (Future) pending.get( target );
+        }
+        if ( future != null )
+        {
+            get( future );
+        }
+    }
+
+    /**
+     * Waits until all the submitted operations are done.
+     *
+     * @throws IOException            if an operation failed with an IOException
+     * @throws MojoExecutionException if an operation failed otherwise
+     */
+    public void await()
+        throws IOException, MojoExecutionException
+    {
+        try
+        {
+            for ( Iterator it = submitted.iterator(); it.hasNext(); )
+            {
+                get( (Future) it.next() );
+            }
+        }
+        finally
+        {
+            submitted.clear();
+            synchronized ( pending )
+            {
+                pending.clear();
+            }
+        }
+    }
+
+    /**
+     * Stops the threads of this engine. Operations that are not done yet
+     * are cancelled.
+     */
+    public void shutdown()
+    {
+        if ( executor != null )
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    private void get( Future future )
+        throws IOException, MojoExecutionException
+    {
+        try
+        {
+            future.get();
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException( "Interrupted while waiting for the file operations", e );
+        }
+        catch ( ExecutionException e )
+        {
+            rethrow( e.getCause() );
+        }
+    }
+
+    private void rethrow( Throwable cause )
+        throws IOException, MojoExecutionException
+    {
+        // an operation waiting for a failed previous one fails with the same cause
+        while ( cause instanceof ExecutionException )
+        {
+            cause = cause.getCause();
+        }
+        if ( cause instanceof IOException )
+        {
+            throw (IOException) cause;
+        }
+        if ( cause instanceof MojoExecutionException )
+        {
+            throw (MojoExecutionException) cause;
+        }
+        if ( cause instanceof RuntimeException )
+        {
+            throw (RuntimeException) cause;
+        }
+        if ( cause instanceof Error )
+        {
+            throw (Error) cause;
+        }
+        throw new MojoExecutionException( cause.getMessage(), cause );
+    }
+
+    /**
+     * A file operation.
+     */
+    public interface Operation
+    {
+
+        /**
+         * Performs the operation.
+         *
+         * @throws IOException            if an I/O error occurred
+         * @throws MojoExecutionException if the operation failed otherwise
+         */
+        void perform()
+            throws IOException, MojoExecutionException;
+    }
+}
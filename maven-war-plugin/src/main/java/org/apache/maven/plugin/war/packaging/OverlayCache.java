@@ -0,0 +1,222 @@
+package org.apache.maven.plugin.war.packaging;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.plugin.war.util.DigestManifest;
+import org.codehaus.plexus.util.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * A directory holding the unpacked overlays, keyed by the SHA-1 digest of
+ * the overlay archives. The directory can be shared by the modules of a
+ * build and by consecutive builds, since an overlay with a given content is
+ * only unpacked once.
+ * <p/>
+ * An overlay is unpacked to a temporary directory which is then renamed, so
+ * a directory named after a digest always holds a complete unpack, even if
+ * several builds unpack the same overlay at the same time.
+ * <p/>
+ * The files of the cache can be hard linked into the webapp directory instead
+ * of being copied, if the runtime (Java 7 or later) and the file system
+ * support it. A file of the webapp directory that may be a link is always
+ * deleted before it is written, so the cache is not modified through it.
+ *
+ * @version $Id$
+ * @since 2.3
+ */
+public class OverlayCache
+{
+
+    private final File directory;
+
+    private final String directoryPath;
+
+    private volatile boolean links;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param directory the directory of the cache
+     * @param links     whether the files of the cache should be hard linked into the webapp directory
+     * @throws IOException if the directory could not be created
+     */
+    public OverlayCache( File directory, boolean links )
+        throws IOException
+    {
+        if ( !directory.isDirectory() && !directory.mkdirs() )
+        {
+            throw new IOException( "Could not create overlay cache [" + directory.getAbsolutePath() + "]" );
+        }
+        this.directory = directory.getCanonicalFile();
+        this.directoryPath = this.directory.getPath() + File.separator;
+        this.links = links && LinkSupport.AVAILABLE;
+    }
+
+    /**
+     * Returns the directory holding the unpacked content of the specified
+     * archive. The directory does not exist if the archive was never
+     * unpacked.
+     *
+     * @param archive the overlay archive
+     * @return the directory of the unpacked archive in the cache
+     * @throws IOException if the archive could not be read
+     */
+    public File getDirectory( File archive )
+        throws IOException
+    {
+        return new File( directory, DigestManifest.digest( archive ) );
+    }
+
+    /**
+     * Creates an empty temporary directory to unpack an archive to, before
+     * it is moved to its directory with {@link #commit(File, File)}.
+     *
+     * @param target the directory of the unpacked archive in the cache
+     * @return the temporary directory
+     * @throws IOException if the directory could not be created
+     */
+    public File createTemporaryDirectory( File target )
+        throws IOException
+    {
+        final File temporary = File.createTempFile( target.getName() + "-", ".tmp", directory );
+        if ( !temporary.delete() || !temporary.mkdir() )
+        {
+            throw new IOException( "Could not create directory [" + temporary.getAbsolutePath() + "]" );
+        }
+        return temporary;
+    }
+
+    /**
+     * Moves a complete unpack to its directory in the cache. If another build
+     * committed the same archive in the meantime, its directory is kept and
+     * the temporary directory is deleted.
+     *
+     * @param temporary the temporary directory the archive was unpacked to
+     * @param target    the directory of the unpacked archive in the cache
+     * @throws IOException if the unpack could not be moved
+     */
+    public void commit( File temporary, File target )
+        throws IOException
+    {
+        if ( !temporary.renameTo( target ) )
+        {
+            if ( !target.isDirectory() )
+            {
+                throw new IOException( "Could not rename [" + temporary.getAbsolutePath() + "] to ["
+                    + target.getAbsolutePath() + "]" );
+            }
+            FileUtils.deleteDirectory( temporary );
+        }
+    }
+
+    /**
+     * Hard links the specified file of the cache to the destination. Returns
+     * <tt>false</tt> if the source is not a file of the cache, if links are
+     * disabled or if the link could not be created, in which case the file
+     * should be copied. Links are disabled for the rest of the build after a
+     * failure, such as the webapp directory being on another file system.
+     *
+     * @param source      the file to link to
+     * @param destination the link to create, which must not exist
+     * @return true if the link was created
+     */
+    public boolean link( File source, File destination )
+    {
+        if ( !links || !isCached( source ) )
+        {
+            return false;
+        }
+        try
+        {
+            LinkSupport.createLink( destination, source );
+            return true;
+        }
+        catch ( Exception e )
+        {
+            links = false;
+            return false;
+        }
+    }
+
+    /**
+     * Specify if the specified file is in the cache.
+     *
+     * @param file the file
+     * @return true if the file is in the directory of the cache
+     */
+    public boolean isCached( File file )
+    {
+        return file.getAbsolutePath().startsWith( directoryPath );
+    }
+
+    /**
+     * Creates the hard links with <tt>java.nio.file.Files</tt> when it is
+     * available, as the plugin still runs on Java 5.
+     */
+    private static class LinkSupport
+    {
+
+        private static final boolean AVAILABLE;
+
+        private static Method toPath;
+
+        private static Method createLink;
+
+        static
+        {
+            boolean available;
+            try
+            {
+                final Class pathClass = Class.forName( "java.nio.file.Path" );
+                toPath = File.class.getMethod( "toPath", new Class[0] );
+                createLink = Class.forName( "java.nio.file.Files" ).getMethod( "createLink",
+                                                                                new Class[]{ pathClass, pathClass } );
+                available = true;
+            }
+            catch ( Exception e )
+            {
+                available = false;
+            }
+            AVAILABLE = available;
+        }
+
+        static void createLink( File link, File existing )
+            throws Exception
+        {
+            try
+            {
+                createLink.invoke( null, new Object[]{ toPath.invoke( link, new Object[0] ),
+                    toPath.invoke( existing, new Object[0] ) } );
+            }
+            catch ( InvocationTargetException e )
+            {
+                if ( e.getCause() instanceof Exception )
+                {
+                    throw (Exception) e.getCause();
+                }
+                throw e;
+            }
+        }
+    }
+}
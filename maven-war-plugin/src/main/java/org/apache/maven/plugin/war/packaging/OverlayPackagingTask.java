@@ -39,6 +39,7 @@ public class OverlayPackagingTask
 {
     private final Overlay overlay;
 
+    private File unpackDirectory;
 
     public OverlayPackagingTask( Overlay overlay, Overlay currentProjectOverlay )
     {
@@ -71,6 +72,7 @@ public class OverlayPackagingTask
 
                 // Step1: Extract if necessary
                 final File tmpDir = unpackOverlay( context, overlay );
+                context.getPackagingServices().getCopyEngine().waitFor( tmpDir );
 
                 // Step2: setup
                 final PathSet includes = getFilesToIncludes( tmpDir, overlay.getIncludes(), overlay.getExcludes() );
@@ -100,7 +102,26 @@ public class OverlayPackagingTask
     }
 
     /**
-     * Unpacks the specified overlay.
+     * Starts to unpack the overlay with the copy engine of the context, so
+     * that the overlays of the project are unpacked at the same time. The
+     * packaging of the overlay then waits for its unpack to be done.
+     *
+     * @param context the packaging context
+     * @throws MojoExecutionException if an error occurred while unpacking the overlay
+     */
+    public void submitUnpack( WarPackagingContext context )
+        throws MojoExecutionException
+    {
+        if ( !overlay.shouldSkip() )
+        {
+            unpackOverlay( context, overlay );
+        }
+    }
+
+    /**
+     * Unpacks the specified overlay with the copy engine of the context. Use
+     * {@link CopyEngine#waitFor(File)} with the returned directory to wait for
+     * the unpack to be done.
      * <p/>
      * Makes sure to skip the unpack process if the overlay has
      * already been unpacked.
@@ -110,24 +131,93 @@ public class OverlayPackagingTask
      * @return the directory containing the unpacked overlay
      * @throws MojoExecutionException if an error occurred while unpacking the overlay
      */
-    protected File unpackOverlay( WarPackagingContext context, Overlay overlay )
+    protected File unpackOverlay( final WarPackagingContext context, final Overlay overlay )
         throws MojoExecutionException
     {
+        if ( unpackDirectory != null )
+        {
+            // already submitted
+            return unpackDirectory;
+        }
+
+        if ( context.getPackagingServices().getOverlayCache() != null )
+        {
+            unpackDirectory = unpackOverlayToCache( context, overlay );
+            return unpackDirectory;
+        }
+
         final File tmpDir = getOverlayTempDirectory( context, overlay );
 
         // TODO: not sure it's good, we should reuse the markers of the dependency plugin
         if ( FileUtils.sizeOfDirectory( tmpDir ) == 0
             || overlay.getArtifact().getFile().lastModified() > tmpDir.lastModified() )
         {
-            doUnpack( context, overlay.getArtifact().getFile(), tmpDir );
+            try
+            {
+                context.getPackagingServices().getCopyEngine().submit( tmpDir, new CopyEngine.Operation()
+                {
+                    public void perform()
+                        throws MojoExecutionException
+                    {
+                        doUnpack( context, overlay.getArtifact().getFile(), tmpDir );
+                    }
+                } );
+            }
+            catch ( IOException e )
+            {
+                throw new MojoExecutionException( "Failed to unpack overlay [" + overlay + "]", e );
+            }
         }
         else
         {
             context.getLog().debug( "Overlay [" + overlay + "] was already unpacked" );
         }
+        unpackDirectory = tmpDir;
         return tmpDir;
     }
 
+    /**
+     * Unpacks the specified overlay to the overlay cache of the context, unless
+     * an overlay with the same content was unpacked there before.
+     *
+     * @param context the packaging context
+     * @param overlay the overlay
+     * @return the directory of the unpacked overlay in the cache
+     * @throws MojoExecutionException if an error occurred while unpacking the overlay
+     */
+    private File unpackOverlayToCache( final WarPackagingContext context, final Overlay overlay )
+        throws MojoExecutionException
+    {
+        final OverlayCache overlayCache = context.getPackagingServices().getOverlayCache();
+        final File archive = overlay.getArtifact().getFile();
+        try
+        {
+            final File cacheDir = overlayCache.getDirectory( archive );
+            if ( cacheDir.isDirectory() )
+            {
+                context.getLog().debug( "Overlay [" + overlay + "] was already unpacked to [" + cacheDir + "]" );
+            }
+            else
+            {
+                context.getPackagingServices().getCopyEngine().submit( cacheDir, new CopyEngine.Operation()
+                {
+                    public void perform()
+                        throws IOException, MojoExecutionException
+                    {
+                        final File tmpDir = overlayCache.createTemporaryDirectory( cacheDir );
+                        doUnpack( context, archive, tmpDir );
+                        overlayCache.commit( tmpDir, cacheDir );
+                    }
+                } );
+            }
+            return cacheDir;
+        }
+        catch ( IOException e )
+        {
+            throw new MojoExecutionException( "Failed to unpack overlay [" + overlay + "]", e );
+        }
+    }
+
     /**
      * Returns the directory to use to unpack the specified overlay.
      *
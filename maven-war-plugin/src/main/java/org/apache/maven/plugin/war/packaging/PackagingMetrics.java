@@ -0,0 +1,253 @@
+package org.apache.maven.plugin.war.packaging;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.codehaus.plexus.util.IOUtil;
+import org.codehaus.plexus.util.WriterFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Collects the time spent in each phase of the packaging of the webapp, the
+ * files and bytes copied by each phase and the hits of the webapp structure
+ * cache, and writes them as a JSON report.
+ * <p/>
+ * The build thread moves from one phase to the next with {@link #enter(String)},
+ * which gives the wall time of each phase. The copies are recorded against the
+ * phase that submitted them, even if the copy engine performs them later. The
+ * filtered copies are recorded in the <tt>filtering</tt> phase, whose time is
+ * the sum of the time of the filtered copies.
+ *
+ * @version $Id$
+ * @since 2.3
+ */
+public class PackagingMetrics
+{
+
+    /**
+     * The phase of the filtered copies.
+     */
+    public static final String FILTERING = "filtering";
+
+    private final Map phases = new LinkedHashMap();
+
+    private String currentPhase;
+
+    private long phaseStart;
+
+    private int cacheHits;
+
+    private int cacheMisses;
+
+    /**
+     * Ends the current phase, if any, and starts the specified one.
+     *
+     * @param phase the name of the phase
+     */
+    public synchronized void enter( String phase )
+    {
+        end();
+        getPhase( phase );
+        currentPhase = phase;
+        phaseStart = System.currentTimeMillis();
+    }
+
+    /**
+     * Ends the current phase, if any.
+     */
+    public synchronized void end()
+    {
+        if ( currentPhase != null )
+        {
+            getPhase( currentPhase ).time += System.currentTimeMillis() - phaseStart;
+            currentPhase = null;
+        }
+    }
+
+    /**
+     * Returns the current phase.
+     *
+     * @return the name of the current phase or <tt>null</tt>
+     */
+    public synchronized String getCurrentPhase()
+    {
+        return currentPhase;
+    }
+
+    /**
+     * Records a file copied by the specified phase.
+     *
+     * @param phase the name of the phase
+     * @param bytes the size of the file
+     */
+    public synchronized void recordCopy( String phase, long bytes )
+    {
+        final Phase metrics = getPhase( phase );
+        metrics.files++;
+        metrics.bytes += bytes;
+    }
+
+    /**
+     * Records a file that the specified phase did not copy since it was up
+     * to date.
+     *
+     * @param phase the name of the phase
+     */
+    public synchronized void recordSkip( String phase )
+    {
+        getPhase( phase ).skipped++;
+    }
+
+    /**
+     * Adds time to the specified phase, for the phases that are not entered
+     * by the build thread.
+     *
+     * @param phase  the name of the phase
+     * @param millis the time to add
+     */
+    public synchronized void recordTime( String phase, long millis )
+    {
+        getPhase( phase ).time += millis;
+    }
+
+    /**
+     * Records a path that had the same owner in the webapp structure cache.
+     */
+    public synchronized void recordCacheHit()
+    {
+        cacheHits++;
+    }
+
+    /**
+     * Records a path that was unknown to the webapp structure cache or had
+     * another owner.
+     */
+    public synchronized void recordCacheMiss()
+    {
+        cacheMisses++;
+    }
+
+    /**
+     * Returns the metrics as a JSON object.
+     *
+     * @return the JSON report
+     */
+    public synchronized String toJson()
+    {
+        final StringBuffer json = new StringBuffer();
+        json.append( "{\n  \"phases\": {" );
+        for ( Iterator it = phases.entrySet().iterator(); it.hasNext(); )
+        {
+            final Map.Entry entry = (Map.Entry) it.next();
+            final Phase phase = (Phase) entry.getValue();
+            json.append( "\n    " );
+            appendString( json, (String) entry.getKey() );
+            json.append( ": { \"timeMillis\": " ).append( phase.time );
+            json.append( ", \"files\": " ).append( phase.files );
+            json.append( ", \"bytes\": " ).append( phase.bytes );
+            json.append( ", \"skipped\": " ).append( phase.skipped ).append( " }" );
+            if ( it.hasNext() )
+            {
+                json.append( ',' );
+            }
+        }
+        json.append( "\n  },\n  \"webappStructureCache\": { \"hits\": " ).append( cacheHits );
+        json.append( ", \"misses\": " ).append( cacheMisses ).append( " }\n}\n" );
+        return json.toString();
+    }
+
+    /**
+     * Writes the JSON report to the specified file.
+     *
+     * @param file the report file
+     * @throws IOException if the report could not be written
+     */
+    public void write( File file )
+        throws IOException
+    {
+        file.getParentFile().mkdirs();
+        Writer writer = null;
+        try
+        {
+            writer = WriterFactory.newWriter( file, WriterFactory.UTF_8 );
+            writer.write( toJson() );
+        }
+        finally
+        {
+            IOUtil.close( writer );
+        }
+    }
+
+    private Phase getPhase( String name )
+    {
+        if ( name == null )
+        {
+            // a copy submitted outside of any phase
+            name = "other";
+        }
+        Phase phase = (Phase) phases.get( name );
+        if ( phase == null )
+        {
+            phase = new Phase();
+            phases.put( name, phase );
+        }
+        return phase;
+    }
+
+    private static void appendString( StringBuffer json, String value )
+    {
+        json.append( '"' );
+        for ( int i = 0; i < value.length(); i++ )
+        {
+            final char c = value.charAt( i );
+            if ( c == '"' || c == '\\' )
+            {
+                json.append( '\\' ).append( c );
+            }
+            else if ( c < 0x20 )
+            {
+                final String hex = Integer.toHexString( c );
+                json.append( "\\u" ).append( "0000".substring( hex.length() ) ).append( hex );
+            }
+            else
+            {
+                json.append( c );
+            }
+        }
+        json.append( '"' );
+    }
+
+    private static class Phase
+    {
+
+        private long time;
+
+        private int files;
+
+        private long bytes;
+
+        private int skipped;
+    }
+}
@@ -195,4 +195,12 @@ public interface WarPackagingContext
      * @since 2.2
      */
     MavenSession getSession();
+
+    /**
+     * Returns the copy engine, the caches and the metrics of the packaging.
+     *
+     * @return the packaging services
+     * @since 2.3
+     */
+    WarPackagingServices getPackagingServices();
 }
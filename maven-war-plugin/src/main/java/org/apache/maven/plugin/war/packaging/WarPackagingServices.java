@@ -0,0 +1,118 @@
+package org.apache.maven.plugin.war.packaging;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.plugin.war.util.DigestManifest;
+
+/**
+ * The collaborators of the packaging tasks that are created for each packaging
+ * of the webapp: the copy engine, the caches and the metrics.
+ *
+ * @version $Id$
+ * @since 2.3
+ */
+public class WarPackagingServices
+{
+
+    private final CopyEngine copyEngine;
+
+    private final DigestManifest digestManifest;
+
+    private final OverlayCache overlayCache;
+
+    private final ArchiveEntries archiveEntries;
+
+    private final PackagingMetrics packagingMetrics;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param copyEngine       the engine performing the copies
+     * @param digestManifest   the digests of the previous build, may be <tt>null</tt>
+     * @param overlayCache     the cache to unpack the overlays to, may be <tt>null</tt>
+     * @param archiveEntries   the files to add to the archive straight from their source, may be <tt>null</tt>
+     * @param packagingMetrics the metrics of the packaging
+     */
+    public WarPackagingServices( CopyEngine copyEngine, DigestManifest digestManifest, OverlayCache overlayCache,
+                                 ArchiveEntries archiveEntries, PackagingMetrics packagingMetrics )
+    {
+        this.copyEngine = copyEngine;
+        this.digestManifest = digestManifest;
+        this.overlayCache = overlayCache;
+        this.archiveEntries = archiveEntries;
+        this.packagingMetrics = packagingMetrics;
+    }
+
+    /**
+     * Returns the engine performing the copies and the unpacks of the
+     * packaging tasks.
+     *
+     * @return the copy engine
+     */
+    public CopyEngine getCopyEngine()
+    {
+        return copyEngine;
+    }
+
+    /**
+     * Returns the digests of the files copied by the previous build, if the
+     * content of the files should be compared to decide whether they need to
+     * be copied. Returns <tt>null</tt> if timestamps should be compared.
+     *
+     * @return the digest manifest or <tt>null</tt>
+     */
+    public DigestManifest getDigestManifest()
+    {
+        return digestManifest;
+    }
+
+    /**
+     * Returns the cache to unpack the overlays to, or <tt>null</tt> if the
+     * overlays should be unpacked to the overlays work directory.
+     *
+     * @return the overlay cache or <tt>null</tt>
+     */
+    public OverlayCache getOverlayCache()
+    {
+        return overlayCache;
+    }
+
+    /**
+     * Returns the files to add to the archive straight from their source, if
+     * the webapp is not exploded. Returns <tt>null</tt> if the files should be
+     * copied to the webapp directory.
+     *
+     * @return the archive entries or <tt>null</tt>
+     */
+    public ArchiveEntries getArchiveEntries()
+    {
+        return archiveEntries;
+    }
+
+    /**
+     * Returns the metrics of the packaging.
+     *
+     * @return the packaging metrics
+     */
+    public PackagingMetrics getPackagingMetrics()
+    {
+        return packagingMetrics;
+    }
+}
@@ -89,8 +89,11 @@ public class WarProjectPackagingTask
         File metainfDir = new File( context.getWebappDirectory(), META_INF_PATH );
         metainfDir.mkdirs();
 
+        final PackagingMetrics metrics = context.getPackagingServices().getPackagingMetrics();
+        metrics.enter( "webResources" );
         handleWebResources( context );
 
+        metrics.enter( "warSources" );
         handeWebAppSourceDirectory( context );
 
         // Debug mode: dump the path set for the current build
@@ -102,10 +105,13 @@ public class WarProjectPackagingTask
         }
         context.getLog().debug( "-- end of dump --" );
 
+        metrics.enter( "deploymentDescriptors" );
         handleDeploymentDescriptors( context, webinfDir, metainfDir );
 
+        metrics.enter( "classes" );
         handleClassesDirectory( context );
 
+        metrics.enter( "artifacts" );
         handleArtifacts( context );
     }
 
@@ -228,9 +234,11 @@ public class WarProjectPackagingTask
 
                 // Making sure that it won't get overlayed
                 context.getWebappStructure().registerFileForced( id, WEB_INF_PATH + "/web.xml" );
+                context.getPackagingServices().getCopyEngine().waitFor( new File( webinfDir, "web.xml" ) );
 
                 if ( context.isFilteringDeploymentDescriptors() )
                 {
+                    unlink( context, new File( webinfDir, "web.xml" ) );
                     context.getMavenFileFilter().copyFile( webXml, new File( webinfDir, "web.xml" ), true,
                                                            context.getFilterWrappers(), getEncoding( webXml ) );
                 }
@@ -247,6 +255,8 @@ public class WarProjectPackagingTask
                 if ( defaultWebXml.exists() && context.isFilteringDeploymentDescriptors() )
                 {
                     context.getWebappStructure().registerFile( id, WEB_INF_PATH + "/web.xml" );
+                    context.getPackagingServices().getCopyEngine().waitFor( new File( webinfDir, "web.xml" ) );
+                    unlink( context, new File( webinfDir, "web.xml" ) );
                     context.getMavenFileFilter().copyFile( defaultWebXml, new File( webinfDir, "web.xml" ), true,
                                                            context.getFilterWrappers(), getEncoding( defaultWebXml ) );
                 }
@@ -257,9 +267,11 @@ public class WarProjectPackagingTask
                 String xmlFileName = containerConfigXML.getName();
 
                 context.getWebappStructure().registerFileForced( id, META_INF_PATH + "/" + xmlFileName );
+                context.getPackagingServices().getCopyEngine().waitFor( new File( metainfDir, xmlFileName ) );
 
                 if ( context.isFilteringDeploymentDescriptors() )
                 {
+                    unlink( context, new File( metainfDir, xmlFileName ) );
                     context.getMavenFileFilter().copyFile( containerConfigXML, new File( metainfDir, xmlFileName ),
                                                            true, context.getFilterWrappers(),
                                                            getEncoding( containerConfigXML ) );
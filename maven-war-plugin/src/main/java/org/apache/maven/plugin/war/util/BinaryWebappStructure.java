@@ -0,0 +1,556 @@
+package org.apache.maven.plugin.war.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Exclusion;
+import org.codehaus.plexus.util.IOUtil;
+import org.codehaus.plexus.util.Os;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A {@link WebappStructure} read from the binary cache written by
+ * {@link WebappStructureSerializer#toBinary(WebappStructure, File)}.
+ * <p/>
+ * The file is memory-mapped and paths are looked up in place: the path table
+ * is sorted so that {@link #getOwner(String)} is a binary search that does not
+ * create any string besides the one it is given. The owners are read when the
+ * file is opened, the dependencies when they are first asked for and the path
+ * sets only if a caller wants a whole owner or the full structure.
+ * <p/>
+ * The format is:
+ * <pre>
+ * int     magic, int version
+ * int     owner count, followed by the owner ids
+ * int     path count
+ * int[]   offset of each path record, sorted by the UTF-8 bytes of the path
+ * int     length of the path records, followed by the records themselves:
+ *         int owner index, int length, the UTF-8 bytes of the path
+ * int     dependency count, followed by the dependency records
+ * </pre>
+ * <p/>
+ * This structure is meant to be used as the cache of another structure, which
+ * only reads it. It can still be modified like any other structure: the first
+ * modification loads all the paths, after which it behaves as an ordinary
+ * {@link WebappStructure}.
+ *
+ * @version $Id$
+ */
+class BinaryWebappStructure
+    extends WebappStructure
+{
+
+    /**
+     * The first bytes of a binary cache file, "WSC" followed by a zero byte.
+     */
+    static final int MAGIC = 0x57534300;
+
+    static final int VERSION = 1;
+
+    private final ByteBuffer buffer;
+
+    private final String[] owners;
+
+    private final int pathCount;
+
+    private final int offsets;
+
+    private final int paths;
+
+    private final int dependencies;
+
+    private List dependenciesInfo;
+
+    private PathSet fullStructure;
+
+    private final Map structures = new HashMap();
+
+    /**
+     * Whether the paths were loaded in the parent structure, which then holds
+     * the content of this structure.
+     */
+    private boolean loaded;
+
+    private BinaryWebappStructure( ByteBuffer buffer )
+        throws IOException
+    {
+        super( null );
+        this.buffer = buffer;
+
+        if ( buffer.getInt() != MAGIC )
+        {
+            throw new IOException( "Not a webapp structure cache" );
+        }
+        final int version = buffer.getInt();
+        if ( version != VERSION )
+        {
+            throw new IOException( "Unsupported webapp structure cache version [" + version + "]" );
+        }
+
+        owners = new String[buffer.getInt()];
+        for ( int i = 0; i < owners.length; i++ )
+        {
+            owners[i] = readString( buffer );
+        }
+
+        pathCount = buffer.getInt();
+        offsets = buffer.position();
+        buffer.position( offsets + pathCount * 4 );
+        final int pathsLength = buffer.getInt();
+        paths = buffer.position();
+        dependencies = paths + pathsLength;
+    }
+
+    /**
+     * Opens the specified binary cache file.
+     *
+     * @param file the file containing the webapp structure
+     * @return the webapp structure
+     * @throws IOException if the file could not be read or is not a binary cache
+     */
+    static BinaryWebappStructure open( File file )
+        throws IOException
+    {
+        FileInputStream in = new FileInputStream( file );
+        try
+        {
+            final FileChannel channel = in.getChannel();
+            final ByteBuffer buffer;
+            if ( Os.isFamily( Os.FAMILY_WINDOWS ) )
+            {
+                // A mapped file can't be replaced on Windows until the mapping is garbage
+                // collected, and the cache is saved again at the end of the build
+                buffer = ByteBuffer.allocate( (int) channel.size() );
+                while ( buffer.hasRemaining() && channel.read( buffer ) != -1 )
+                {
+                    // keep reading
+                }
+                buffer.flip();
+            }
+            else
+            {
+                buffer = channel.map( FileChannel.MapMode.READ_ONLY, 0, channel.size() );
+            }
+            return new BinaryWebappStructure( buffer );
+        }
+        catch ( RuntimeException e )
+        {
+            // a truncated file shows up as a BufferUnderflowException or an IndexOutOfBoundsException
+            final IOException ioe = new IOException( "Corrupt webapp structure cache [" + file + "]" );
+            ioe.initCause( e );
+            throw ioe;
+        }
+        finally
+        {
+            IOUtil.close( in );
+        }
+    }
+
+    public synchronized boolean isRegistered( String path )
+    {
+        if ( loaded )
+        {
+            return super.isRegistered( path );
+        }
+        return indexOf( path ) >= 0;
+    }
+
+    public synchronized String getOwner( String path )
+    {
+        if ( loaded )
+        {
+            return super.getOwner( path );
+        }
+        final int index = indexOf( path );
+        if ( index < 0 )
+        {
+            return null;
+        }
+        return owners[buffer.getInt( record( index ) )];
+    }
+
+    public synchronized Set getOwners()
+    {
+        if ( loaded )
+        {
+            return super.getOwners();
+        }
+        final Set result = new LinkedHashSet();
+        Collections.addAll( result, owners );
+        return Collections.unmodifiableSet( result );
+    }
+
+    /**
+     * Returns all the paths of the cache. The returned set is built on first
+     * use and is not backed by the cache.
+     *
+     * @return all registered path
+     */
+    public synchronized PathSet getFullStructure()
+    {
+        if ( loaded )
+        {
+            return super.getFullStructure();
+        }
+        if ( fullStructure == null )
+        {
+            fullStructure = new PathSet();
+            for ( int i = 0; i < pathCount; i++ )
+            {
+                fullStructure.add( readPath( record( i ) ) );
+            }
+        }
+        return fullStructure;
+    }
+
+    /**
+     * Returns the paths of the cache under the specified directory. Since the
+     * path table is sorted, these paths are next to each other and found with
+     * a binary search.
+     *
+     * @param directory the relative path of a directory from the webapp root directory
+     * @return the registered paths under that directory
+     */
+    public synchronized PathSet getFullStructure( String directory )
+    {
+        if ( loaded )
+        {
+            return super.getFullStructure( directory );
+        }
+        String prefix = PathSet.normalizeFilePathStatic( directory );
+        if ( prefix.length() > 0 && !prefix.endsWith( "/" ) )
+        {
+            prefix = prefix + "/";
+        }
+        final byte[] key = toBytes( prefix );
+
+        final PathSet result = new PathSet();
+        for ( int i = lowerBound( key ); i < pathCount; i++ )
+        {
+            final int record = record( i );
+            final int length = buffer.getInt( record + 4 );
+            if ( length < key.length || compare( record + 8, key.length, key ) != 0 )
+            {
+                break;
+            }
+            result.add( readPath( record ) );
+        }
+        return result;
+    }
+
+    /**
+     * Returns the paths registered for the specified owner. The returned set
+     * is built on first use and is not backed by the cache.
+     *
+     * @param id the owner
+     * @return the list of files registered for that owner
+     */
+    public synchronized PathSet getStructure( String id )
+    {
+        if ( loaded )
+        {
+            return super.getStructure( id );
+        }
+        PathSet pathSet = (PathSet) structures.get( id );
+        if ( pathSet == null )
+        {
+            pathSet = new PathSet();
+            for ( int owner = 0; owner < owners.length; owner++ )
+            {
+                if ( owners[owner].equals( id ) )
+                {
+                    for ( int i = 0; i < pathCount; i++ )
+                    {
+                        final int record = record( i );
+                        if ( buffer.getInt( record ) == owner )
+                        {
+                            pathSet.add( readPath( record ) );
+                        }
+                    }
+                }
+            }
+            structures.put( id, pathSet );
+        }
+        return pathSet;
+    }
+
+    public synchronized List getDependenciesInfo()
+    {
+        if ( dependenciesInfo == null )
+        {
+            final ByteBuffer in = buffer.duplicate();
+            in.position( dependencies );
+
+            final int count = in.getInt();
+            final List result = new ArrayList( count );
+            for ( int i = 0; i < count; i++ )
+            {
+                result.add( readDependencyInfo( in ) );
+            }
+            dependenciesInfo = result;
+        }
+        return dependenciesInfo;
+    }
+
+    public synchronized boolean registerFile( String id, String path )
+    {
+        load();
+        return super.registerFile( id, path );
+    }
+
+    public synchronized boolean registerFileForced( String id, String path )
+    {
+        load();
+        return super.registerFileForced( id, path );
+    }
+
+    public synchronized void registerFile( String id, String path, RegistrationCallback callback )
+        throws IOException
+    {
+        load();
+        super.registerFile( id, path, callback );
+    }
+
+    public void registerTargetFileName( Artifact artifact, String targetFileName )
+    {
+        final Iterator it = getDependenciesInfo().iterator();
+        while ( it.hasNext() )
+        {
+            final DependencyInfo dependencyInfo = (DependencyInfo) it.next();
+            if ( WarUtils.isRelated( artifact, dependencyInfo.getDependency() ) )
+            {
+                dependencyInfo.setTargetFileName( targetFileName );
+            }
+        }
+    }
+
+    // Private helpers
+
+    /**
+     * Registers all the paths of the cache in the parent structure, so that
+     * it can be modified.
+     */
+    private void load()
+    {
+        if ( loaded )
+        {
+            return;
+        }
+        // from now on the parent structure answers, the registrations below included
+        loaded = true;
+        for ( int owner = 0; owner < owners.length; owner++ )
+        {
+            super.getStructure( owners[owner] );
+        }
+        for ( int i = 0; i < pathCount; i++ )
+        {
+            final int record = record( i );
+            super.registerFile( owners[buffer.getInt( record )], readPath( record ) );
+        }
+        fullStructure = null;
+        structures.clear();
+    }
+
+    /**
+     * Returns the position of the specified path in the path table, or a
+     * negative value if the path is not registered.
+     */
+    private int indexOf( String path )
+    {
+        final byte[] key = toBytes( PathSet.normalizeFilePathStatic( path ) );
+
+        int low = 0;
+        int high = pathCount - 1;
+        while ( low <= high )
+        {
+            final int middle = ( low + high ) >>> 1;
+            final int record = record( middle );
+            final int result = compare( record + 8, buffer.getInt( record + 4 ), key );
+            if ( result < 0 )
+            {
+                low = middle + 1;
+            }
+            else if ( result > 0 )
+            {
+                high = middle - 1;
+            }
+            else
+            {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the position of the first path of the path table that is not
+     * lower than the specified key.
+     */
+    private int lowerBound( byte[] key )
+    {
+        int low = 0;
+        int high = pathCount;
+        while ( low < high )
+        {
+            final int middle = ( low + high ) >>> 1;
+            final int record = record( middle );
+            if ( compare( record + 8, buffer.getInt( record + 4 ), key ) < 0 )
+            {
+                low = middle + 1;
+            }
+            else
+            {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int record( int index )
+    {
+        return paths + buffer.getInt( offsets + index * 4 );
+    }
+
+    /**
+     * Compares the bytes of the buffer at the specified position with the key
+     * the same way {@link #compare(byte[], byte[])} does.
+     */
+    private int compare( int position, int length, byte[] key )
+    {
+        final int common = Math.min( length, key.length );
+        for ( int i = 0; i < common; i++ )
+        {
+            final int result = ( buffer.get( position + i ) & 0xff ) - ( key[i] & 0xff );
+            if ( result != 0 )
+            {
+                return result;
+            }
+        }
+        return length - key.length;
+    }
+
+    private String readPath( int record )
+    {
+        final byte[] bytes = new byte[buffer.getInt( record + 4 )];
+        final ByteBuffer in = buffer.duplicate();
+        in.position( record + 8 );
+        in.get( bytes );
+        return toString( bytes );
+    }
+
+    private static DependencyInfo readDependencyInfo( ByteBuffer in )
+    {
+        final Dependency dependency = new Dependency();
+        dependency.setGroupId( readString( in ) );
+        dependency.setArtifactId( readString( in ) );
+        dependency.setVersion( readString( in ) );
+        dependency.setType( readString( in ) );
+        dependency.setClassifier( readString( in ) );
+        dependency.setScope( readString( in ) );
+        dependency.setSystemPath( readString( in ) );
+        dependency.setOptional( in.get() != 0 );
+
+        final int exclusions = in.getInt();
+        for ( int i = 0; i < exclusions; i++ )
+        {
+            final Exclusion exclusion = new Exclusion();
+            exclusion.setGroupId( readString( in ) );
+            exclusion.setArtifactId( readString( in ) );
+            dependency.addExclusion( exclusion );
+        }
+
+        final DependencyInfo dependencyInfo = new DependencyInfo( dependency );
+        dependencyInfo.setTargetFileName( readString( in ) );
+        return dependencyInfo;
+    }
+
+    /**
+     * Reads a string written by {@link WebappStructureSerializer}: its length,
+     * <tt>-1</tt> for <tt>null</tt>, followed by its UTF-8 bytes.
+     */
+    private static String readString( ByteBuffer in )
+    {
+        final int length = in.getInt();
+        if ( length < 0 )
+        {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        in.get( bytes );
+        return toString( bytes );
+    }
+
+    /**
+     * Compares two UTF-8 encoded paths byte per byte, which is the order of
+     * the path table.
+     */
+    static int compare( byte[] first, byte[] second )
+    {
+        final int common = Math.min( first.length, second.length );
+        for ( int i = 0; i < common; i++ )
+        {
+            final int result = ( first[i] & 0xff ) - ( second[i] & 0xff );
+            if ( result != 0 )
+            {
+                return result;
+            }
+        }
+        return first.length - second.length;
+    }
+
+    static byte[] toBytes( String str )
+    {
+        try
+        {
+            return str.getBytes( "UTF-8" );
+        }
+        catch ( UnsupportedEncodingException e )
+        {
+            throw new IllegalStateException( "UTF-8 is not supported" );
+        }
+    }
+
+    private static String toString( byte[] bytes )
+    {
+        try
+        {
+            return new String( bytes, "UTF-8" );
+        }
+        catch ( UnsupportedEncodingException e )
+        {
+            throw new IllegalStateException( "UTF-8 is not supported" );
+        }
+    }
+}
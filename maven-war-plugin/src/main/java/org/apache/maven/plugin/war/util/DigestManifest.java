@@ -0,0 +1,245 @@
+package org.apache.maven.plugin.war.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.codehaus.plexus.util.IOUtil;
+import org.codehaus.plexus.util.ReaderFactory;
+import org.codehaus.plexus.util.WriterFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Records the size and the SHA-1 digest of the files copied to the webapp
+ * directory, so that a file is only copied again if its content changed.
+ * <p/>
+ * Unlike timestamps, the digests survive a fresh checkout of the sources or
+ * the restore of a build cache. A file that is not copied keeps its
+ * timestamp, which lets the archiver tell that the webapp did not change.
+ * <p/>
+ * The manifest is a text file with one line per path of the webapp: the
+ * size, the digest and the path, separated by a space. Only the paths that
+ * were packaged by the last build are saved.
+ *
+ * @version $Id$
+ * @since 2.3
+ */
+public class DigestManifest
+{
+
+    private static final int BUFFER_SIZE = 65536;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Map previous;
+
+    private final Map current = new TreeMap();
+
+    private DigestManifest( Map previous )
+    {
+        this.previous = previous;
+    }
+
+    /**
+     * Reads the manifest saved by a previous build. Returns an empty manifest
+     * if the file does not exist.
+     *
+     * @param file the manifest file
+     * @return the manifest
+     * @throws IOException if the manifest could not be read
+     */
+    public static DigestManifest load( File file )
+        throws IOException
+    {
+        final Map entries = new HashMap();
+        if ( file.exists() )
+        {
+            BufferedReader reader = null;
+            try
+            {
+                reader = new BufferedReader( ReaderFactory.newReader( file, ReaderFactory.UTF_8 ) );
+                for ( String line = reader.readLine(); line != null; line = reader.readLine() )
+                {
+                    final int sizeEnd = line.indexOf( ' ' );
+                    final int digestEnd = sizeEnd < 0 ? -1 : line.indexOf( ' ', sizeEnd + 1 );
+                    if ( digestEnd < 0 )
+                    {
+                        // not written by this class, ignore it
+                        continue;
+                    }
+                    try
+                    {
+                        final long size = Long.parseLong( line.substring( 0, sizeEnd ) );
+                        entries.put( line.substring( digestEnd + 1 ),
+                                     new Entry( size, line.substring( sizeEnd + 1, digestEnd ) ) );
+                    }
+                    catch ( NumberFormatException e )
+                    {
+                        // same as above
+                    }
+                }
+            }
+            finally
+            {
+                IOUtil.close( reader );
+            }
+        }
+        return new DigestManifest( entries );
+    }
+
+    /**
+     * Saves the paths recorded by this build.
+     *
+     * @param file the manifest file
+     * @throws IOException if the manifest could not be saved
+     */
+    public synchronized void save( File file )
+        throws IOException
+    {
+        if ( !file.getParentFile().exists() && !file.getParentFile().mkdirs() )
+        {
+            throw new IOException( "Could not create parent [" + file.getParentFile().getAbsolutePath() + "]" );
+        }
+
+        PrintWriter writer = null;
+        try
+        {
+            writer = new PrintWriter( WriterFactory.newWriter( file, WriterFactory.UTF_8 ) );
+            for ( Iterator it = current.entrySet().iterator(); it.hasNext(); )
+            {
+                final Map.Entry mapEntry = (Map.Entry) it.next();
+                final Entry entry = (Entry) mapEntry.getValue();
+                writer.print( entry.size );
+                writer.print( ' ' );
+                writer.print( entry.digest );
+                writer.print( ' ' );
+                writer.print( mapEntry.getKey() );
+                writer.print( '\n' );
+            }
+            writer.close();
+            if ( writer.checkError() )
+            {
+                throw new IOException( "Could not write [" + file.getAbsolutePath() + "]" );
+            }
+        }
+        finally
+        {
+            IOUtil.close( writer );
+        }
+    }
+
+    /**
+     * Specify if the specified target file already has the content with the
+     * given digest, that is if the previous build copied a file with this
+     * digest to the same path and the target file still has its size.
+     *
+     * @param path        the relative path from the webapp root directory
+     * @param destination the file at that path in the webapp directory
+     * @param digest      the digest of the file to copy
+     * @return true if the file does not need to be copied
+     */
+    public synchronized boolean isUpToDate( String path, File destination, String digest )
+    {
+        final Entry entry = (Entry) previous.get( PathSet.normalizeFilePathStatic( path ) );
+        return entry != null && entry.digest.equals( digest ) && destination.isFile()
+            && destination.length() == entry.size;
+    }
+
+    /**
+     * Records the file at the specified path of the webapp.
+     *
+     * @param path   the relative path from the webapp root directory
+     * @param size   the size of the file
+     * @param digest the digest of the file
+     */
+    public synchronized void record( String path, long size, String digest )
+    {
+        current.put( PathSet.normalizeFilePathStatic( path ), new Entry( size, digest ) );
+    }
+
+    /**
+     * Computes the digest of the specified file.
+     *
+     * @param file the file
+     * @return the hexadecimal SHA-1 digest of the content of the file
+     * @throws IOException if the file could not be read
+     */
+    public static String digest( File file )
+        throws IOException
+    {
+        final MessageDigest messageDigest;
+        try
+        {
+            messageDigest = MessageDigest.getInstance( "SHA-1" );
+        }
+        catch ( NoSuchAlgorithmException e )
+        {
+            throw new IllegalStateException( "SHA-1 is not supported" );
+        }
+
+        InputStream in = null;
+        try
+        {
+            in = new FileInputStream( file );
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            for ( int n = in.read( buffer ); n != -1; n = in.read( buffer ) )
+            {
+                messageDigest.update( buffer, 0, n );
+            }
+        }
+        finally
+        {
+            IOUtil.close( in );
+        }
+
+        final byte[] bytes = messageDigest.digest();
+        final char[] chars = new char[bytes.length * 2];
+        for ( int i = 0; i < bytes.length; i++ )
+        {
+            chars[i * 2] = HEX[( bytes[i] >> 4 ) & 0xf];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xf];
+        }
+        return new String( chars );
+    }
+
+    private static class Entry
+    {
+
+        private final long size;
+
+        private final String digest;
+
+        Entry( long size, String digest )
+        {
+            this.size = size;
+            this.digest = digest;
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package org.apache.maven.plugin.war.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Maps the paths of a webapp to their owner.
+ * <p/>
+ * The paths are normalized like in a {@link PathSet} and stored in a trie of
+ * path segments, so the lookup of a path costs a hash lookup per segment
+ * whatever the number of owners, and the paths under a directory are found
+ * without going through the other paths. The segments are shared by all the
+ * paths of the index, so the thousands of paths under <tt>WEB-INF/classes</tt>
+ * don't each hold a copy of their parent directories.
+ *
+ * @version $Id$
+ * @since 2.3
+ */
+public class PathIndex
+{
+
+    private final Node root = new Node();
+
+    /**
+     * The segments of the index, to share the equal ones.
+     */
+    private final Map segments = new HashMap();
+
+    private int size;
+
+    /**
+     * Registers the specified path for the specified owner.
+     *
+     * @param path  the relative path from the webapp root directory
+     * @param owner the owner of the path
+     * @return the previous owner of the path or <tt>null</tt>
+     */
+    public String put( String path, String owner )
+    {
+        if ( owner == null )
+        {
+            throw new NullPointerException( "owner could not be null." );
+        }
+        final String normalizedPath = PathSet.normalizeFilePathStatic( path );
+        Node node = root;
+        int start = 0;
+        for ( int end = normalizedPath.indexOf( '/' ); ; end = normalizedPath.indexOf( '/', start ) )
+        {
+            final String segment = normalizedPath.substring( start, end < 0 ? normalizedPath.length() : end );
+            node = node.getOrCreateChild( intern( segment ) );
+            if ( end < 0 )
+            {
+                break;
+            }
+            start = end + 1;
+        }
+        final String previous = node.owner;
+        node.owner = owner;
+        if ( previous == null )
+        {
+            size++;
+        }
+        return previous;
+    }
+
+    /**
+     * Returns the owner of the specified path.
+     *
+     * @param path the relative path from the webapp root directory
+     * @return the owner or <tt>null</tt> if the path is not registered
+     */
+    public String get( String path )
+    {
+        final Node node = find( PathSet.normalizeFilePathStatic( path ) );
+        return node == null ? null : node.owner;
+    }
+
+    /**
+     * Removes the specified path.
+     *
+     * @param path the relative path from the webapp root directory
+     * @return the owner of the path or <tt>null</tt> if it was not registered
+     */
+    public String remove( String path )
+    {
+        final Node node = find( PathSet.normalizeFilePathStatic( path ) );
+        if ( node == null || node.owner == null )
+        {
+            return null;
+        }
+        final String previous = node.owner;
+        node.owner = null;
+        size--;
+        return previous;
+    }
+
+    /**
+     * Returns the number of paths of the index.
+     *
+     * @return the number of registered paths
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Returns the paths registered under the specified directory, or all the
+     * paths if the directory is empty.
+     *
+     * @param directory the relative path of a directory from the webapp root directory
+     * @return the paths under that directory
+     */
+    public PathSet getPaths( String directory )
+    {
+        final PathSet result = new PathSet();
+        String normalizedDirectory = PathSet.normalizeFilePathStatic( directory );
+        if ( normalizedDirectory.endsWith( "/" ) )
+        {
+            normalizedDirectory = normalizedDirectory.substring( 0, normalizedDirectory.length() - 1 );
+        }
+        if ( normalizedDirectory.length() == 0 )
+        {
+            collect( root, new StringBuffer(), result );
+        }
+        else
+        {
+            final Node node = find( normalizedDirectory );
+            if ( node != null )
+            {
+                collect( node, new StringBuffer( normalizedDirectory ).append( '/' ), result );
+            }
+        }
+        return result;
+    }
+
+    // Private helpers
+
+    private Node find( String normalizedPath )
+    {
+        Node node = root;
+        int start = 0;
+        for ( int end = normalizedPath.indexOf( '/' ); node != null; end = normalizedPath.indexOf( '/', start ) )
+        {
+            node = node.getChild( normalizedPath.substring( start, end < 0 ? normalizedPath.length() : end ) );
+            if ( end < 0 )
+            {
+                break;
+            }
+            start = end + 1;
+        }
+        return node;
+    }
+
+    private String intern( String segment )
+    {
+        final String existing = (String) segments.get( segment );
+        if ( existing != null )
+        {
+            return existing;
+        }
+        segments.put( segment, segment );
+        return segment;
+    }
+
+    private void collect( Node node, StringBuffer prefix, PathSet result )
+    {
+        if ( node.children == null )
+        {
+            return;
+        }
+        final int length = prefix.length();
+        for ( Iterator it = node.children.entrySet().iterator(); it.hasNext(); )
+        {
+            final Map.Entry entry = (Map.Entry) it.next();
+            final Node child = (Node) entry.getValue();
+            prefix.append( (String) entry.getKey() );
+            if ( child.owner != null )
+            {
+                result.add( prefix.toString() );
+            }
+            if ( child.children != null )
+            {
+                prefix.append( '/' );
+                collect( child, prefix, result );
+            }
+            prefix.setLength( length );
+        }
+    }
+
+    private static class Node
+    {
+
+        private Map children;
+
+        private String owner;
+
+        Node getChild( String segment )
+        {
+            return children == null ? null : (Node) children.get( segment );
+        }
+
+        Node getOrCreateChild( String segment )
+        {
+            if ( children == null )
+            {
+                children = new HashMap( 4 );
+            }
+            Node child = (Node) children.get( segment );
+            if ( child == null )
+            {
+                child = new Node();
+                children.put( segment, child );
+            }
+            return child;
+        }
+    }
+}
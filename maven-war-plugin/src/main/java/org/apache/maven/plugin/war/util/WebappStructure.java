@@ -50,7 +50,7 @@ public class WebappStructure
 
     private List dependenciesInfo;
 
-    private transient PathSet allFiles = new PathSet();
+    private transient PathIndex allFiles = new PathIndex();
 
     private transient WebappStructure cache;
 
@@ -106,6 +106,7 @@ public class WebappStructure
     public List getDependencies()
     {
         final List result = new ArrayList();
+        final List dependenciesInfo = getDependenciesInfo();
         if ( dependenciesInfo == null )
         {
             return result;
@@ -128,8 +129,7 @@ public class WebappStructure
      */
     public boolean isRegistered( String path )
     {
-        return getFullStructure().contains( path );
-
+        return allFiles.get( path ) != null;
     }
 
     /**
@@ -177,7 +177,7 @@ public class WebappStructure
         else
         {
             // Force the switch to the new owner
-            getStructure( getOwner( path ) ).remove( path );
+            getStructure( allFiles.put( path, id ) ).remove( path );
             getStructure( id ).add( path );
             return true;
         }
@@ -205,23 +205,24 @@ public class WebappStructure
         else
         {
             doRegister( id, path );
+            final String cachedOwner = cache.getOwner( path );
             // This is a new file
-            if ( cache.getOwner( path ) == null )
+            if ( cachedOwner == null )
             {
                 callback.registered( id, path );
 
             } // The file already belonged to this owner
-            else if ( cache.getOwner( path ).equals( id ) )
+            else if ( cachedOwner.equals( id ) )
             {
                 callback.alreadyRegistered( id, path );
             } // The file belongs to another owner and it's known currently
-            else if ( getOwners().contains( cache.getOwner( path ) ) )
+            else if ( getOwners().contains( cachedOwner ) )
             {
-                callback.superseded( id, path, cache.getOwner( path ) );
+                callback.superseded( id, path, cachedOwner );
             } // The file belongs to another owner and it's unknown
             else
             {
-                callback.supersededUnknownOwner( id, path, cache.getOwner( path ) );
+                callback.supersededUnknownOwner( id, path, cachedOwner );
             }
         }
     }
@@ -235,27 +236,7 @@ public class WebappStructure
      */
     public String getOwner( String path )
     {
-        if ( !isRegistered( path ) )
-        {
-            return null;
-        }
-        else
-        {
-            final Iterator it = registeredFiles.keySet().iterator();
-            while ( it.hasNext() )
-            {
-                final String owner = (String) it.next();
-                final PathSet structure = getStructure( owner );
-                if ( structure.contains( path ) )
-                {
-                    return owner;
-                }
-
-            }
-            throw new IllegalStateException(
-                "Should not happen, path [" + path + "] is flagged as being registered but was not found." );
-        }
-
+        return allFiles.get( path );
     }
 
     /**
@@ -275,13 +256,27 @@ public class WebappStructure
     }
 
     /**
-     * Returns all paths that have been registered so far.
+     * Returns all paths that have been registered so far. The returned set is
+     * not backed by this structure.
      *
      * @return all registered path
      */
     public PathSet getFullStructure()
     {
-        return allFiles;
+        return allFiles.getPaths( "" );
+    }
+
+    /**
+     * Returns the paths that have been registered so far under the specified
+     * directory. The returned set is not backed by this structure.
+     *
+     * @param directory the relative path of a directory from the webapp root directory
+     * @return the registered paths under that directory
+     * @since 2.3
+     */
+    public PathSet getFullStructure( String directory )
+    {
+        return allFiles.getPaths( directory );
     }
 
     /**
@@ -435,7 +430,7 @@ public class WebappStructure
 
     private void doRegister( String id, String path )
     {
-        getFullStructure().add( path );
+        allFiles.put( path, id );
         getStructure( id ).add( path );
     }
 
@@ -501,12 +496,17 @@ public class WebappStructure
     private Object readResolve()
     {
         // the full structure should be resolved so let's rebuild it
-        this.allFiles = new PathSet();
-        final Iterator it = registeredFiles.values().iterator();
+        this.allFiles = new PathIndex();
+        final Iterator it = registeredFiles.entrySet().iterator();
         while ( it.hasNext() )
         {
-            PathSet pathSet = (PathSet) it.next();
-            this.allFiles.addAll( pathSet );
+            final Map.Entry entry = (Map.Entry) it.next();
+            final String owner = (String) entry.getKey();
+            final Iterator paths = ( (PathSet) entry.getValue() ).iterator();
+            while ( paths.hasNext() )
+            {
+                this.allFiles.put( (String) paths.next(), owner );
+            }
         }
         return this;
     }
@@ -22,17 +22,34 @@ package org.apache.maven.plugin.war.util;
 import com.thoughtworks.xstream.XStream;
 import com.thoughtworks.xstream.io.xml.DomDriver;
 import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Exclusion;
 import org.codehaus.plexus.util.IOUtil;
 import org.codehaus.plexus.util.ReaderFactory;
 import org.codehaus.plexus.util.WriterFactory;
 
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Serializes {@link WebappStructure} back and forth.
+ * <p/>
+ * The structure is saved in a compact binary format that is read lazily
+ * through a memory-mapped file, see {@link #toBinary(WebappStructure, File)}.
+ * The XML format of previous versions can still be read.
  *
  * @author Stephane Nicoll
  * @version $Id$
@@ -61,6 +78,83 @@ public class WebappStructureSerializer
     }
 
 
+    /**
+     * Reads the {@link WebappStructure} from the specified file, whether it
+     * was saved in the binary or in the XML format.
+     *
+     * @param file the file containing the webapp structure
+     * @return the webapp structure
+     * @throws IOException if an error occurred while reading the structure
+     */
+    public WebappStructure read( File file )
+        throws IOException
+    {
+        if ( isBinary( file ) )
+        {
+            return fromBinary( file );
+        }
+        else
+        {
+            return fromXml( file );
+        }
+    }
+
+    /**
+     * Reads the {@link WebappStructure} from the specified binary file. The
+     * returned structure only reads the parts of the file that are actually
+     * used, until it is modified.
+     *
+     * @param file the file containing the webapp structure
+     * @return the webapp structure
+     * @throws IOException if an error occurred while reading the structure
+     */
+    public WebappStructure fromBinary( File file )
+        throws IOException
+    {
+        return BinaryWebappStructure.open( file );
+    }
+
+    /**
+     * Saves the {@link WebappStructure} to the specified file in the binary
+     * format.
+     * <p/>
+     * The structure is written to a temporary file first that then replaces
+     * the target file, as the target file may still be mapped by the cache
+     * of the current build.
+     *
+     * @param webappStructure the structure to save
+     * @param targetFile      the file to use to save the structure
+     * @throws IOException if an error occurred while saving the webapp structure
+     */
+    public void toBinary( WebappStructure webappStructure, File targetFile )
+        throws IOException
+    {
+        if ( !targetFile.getParentFile().exists() && !targetFile.getParentFile().mkdirs() )
+        {
+            throw new IOException( "Could not create parent [" + targetFile.getParentFile().getAbsolutePath() + "]" );
+        }
+
+        final File tempFile = new File( targetFile.getParentFile(), targetFile.getName() + ".tmp" );
+        DataOutputStream out = null;
+        try
+        {
+            out = new DataOutputStream( new BufferedOutputStream( new FileOutputStream( tempFile ) ) );
+            writeBinary( webappStructure, out );
+            out.close();
+            out = null;
+        }
+        finally
+        {
+            IOUtil.close( out );
+        }
+
+        if ( ( targetFile.exists() && !targetFile.delete() ) || !tempFile.renameTo( targetFile ) )
+        {
+            tempFile.delete();
+            throw new IOException( "Could not create file [" + targetFile.getAbsolutePath() + "]" );
+        }
+    }
+
     /**
      * Reads the {@link WebappStructure} from the specified file.
      *
@@ -115,4 +209,143 @@ public class WebappStructureSerializer
             IOUtil.close( writer );
         }
     }
+
+    private boolean isBinary( File file )
+        throws IOException
+    {
+        DataInputStream in = null;
+        try
+        {
+            in = new DataInputStream( new FileInputStream( file ) );
+            return file.length() >= 4 && in.readInt() == BinaryWebappStructure.MAGIC;
+        }
+        finally
+        {
+            IOUtil.close( in );
+        }
+    }
+
+    private void writeBinary( WebappStructure webappStructure, DataOutputStream out )
+        throws IOException
+    {
+        out.writeInt( BinaryWebappStructure.MAGIC );
+        out.writeInt( BinaryWebappStructure.VERSION );
+
+        // The owners are stored once, paths refer to them by index
+        final List owners = new ArrayList( webappStructure.getOwners() );
+        out.writeInt( owners.size() );
+        final Map paths = new HashMap();
+        for ( int i = 0; i < owners.size(); i++ )
+        {
+            final String owner = (String) owners.get( i );
+            writeString( out, owner );
+
+            final Iterator it = webappStructure.getStructure( owner ).iterator();
+            while ( it.hasNext() )
+            {
+                final String path = (String) it.next();
+                if ( !paths.containsKey( path ) )
+                {
+                    paths.put( path, new Integer( i ) );
+                }
+            }
+        }
+
+        final PathRecord[] records = new PathRecord[paths.size()];
+        int count = 0;
+        final Iterator it = paths.entrySet().iterator();
+        while ( it.hasNext() )
+        {
+            final Map.Entry entry = (Map.Entry) it.next();
+            records[count++] = new PathRecord( BinaryWebappStructure.toBytes( (String) entry.getKey() ),
+                                               ( (Integer) entry.getValue() ).intValue() );
+        }
+        Arrays.sort( records, new Comparator()
+        {
+            public int compare( Object first, Object second )
+            {
+                return BinaryWebappStructure.compare( ( (PathRecord) first ).path, ( (PathRecord) second ).path );
+            }
+        } );
+
+        out.writeInt( records.length );
+        int offset = 0;
+        for ( int i = 0; i < records.length; i++ )
+        {
+            out.writeInt( offset );
+            offset += 8 + records[i].path.length;
+        }
+        out.writeInt( offset );
+        for ( int i = 0; i < records.length; i++ )
+        {
+            out.writeInt( records[i].owner );
+            out.writeInt( records[i].path.length );
+            out.write( records[i].path );
+        }
+
+        final List dependenciesInfo = webappStructure.getDependenciesInfo();
+        out.writeInt( dependenciesInfo.size() );
+        final Iterator depIt = dependenciesInfo.iterator();
+        while ( depIt.hasNext() )
+        {
+            final DependencyInfo dependencyInfo = (DependencyInfo) depIt.next();
+            final Dependency dependency = dependencyInfo.getDependency();
+            writeString( out, dependency.getGroupId() );
+            writeString( out, dependency.getArtifactId() );
+            writeString( out, dependency.getVersion() );
+            writeString( out, dependency.getType() );
+            writeString( out, dependency.getClassifier() );
+            writeString( out, dependency.getScope() );
+            writeString( out, dependency.getSystemPath() );
+            out.writeBoolean( dependency.isOptional() );
+
+            final List exclusions = dependency.getExclusions();
+            if ( exclusions == null )
+            {
+                out.writeInt( 0 );
+            }
+            else
+            {
+                out.writeInt( exclusions.size() );
+                final Iterator exclusionIt = exclusions.iterator();
+                while ( exclusionIt.hasNext() )
+                {
+                    final Exclusion exclusion = (Exclusion) exclusionIt.next();
+                    writeString( out, exclusion.getGroupId() );
+                    writeString( out, exclusion.getArtifactId() );
+                }
+            }
+
+            writeString( out, dependencyInfo.getTargetFileName() );
+        }
+    }
+
+    private void writeString( DataOutputStream out, String str )
+        throws IOException
+    {
+        if ( str == null )
+        {
+            out.writeInt( -1 );
+        }
+        else
+        {
+            final byte[] bytes = BinaryWebappStructure.toBytes( str );
+            out.writeInt( bytes.length );
+            out.write( bytes );
+        }
+    }
+
+    private static class PathRecord
+    {
+
+        private final byte[] path;
+
+        private final int owner;
+
+        PathRecord( byte[] path, int owner )
+        {
+            this.path = path;
+            this.owner = owner;
+        }
+    }
 }
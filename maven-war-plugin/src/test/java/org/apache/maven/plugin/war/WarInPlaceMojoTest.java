@@ -54,6 +54,13 @@ public class WarInPlaceMojoTest
         // see setUp
     }
 
+    public void testOverlayCacheFilesAreNeverLinked()
+        throws Exception
+    {
+        mojo.setOverlayCacheLinks( true );
+        assertFalse( mojo.isOverlayCacheLinks() );
+    }
+
     /**
      * @throws Exception
      */
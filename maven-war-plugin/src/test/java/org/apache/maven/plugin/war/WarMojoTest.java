@@ -93,6 +93,42 @@ public class WarMojoTest
                                            new String[]{null, mojo.getWebXml().toString(), null, null, null, null} );
     }
 
+    public void testSimpleWarSkipExplodedWebapp()
+        throws Exception
+    {
+        String testId = "SimpleWarSkipExplodedWebapp";
+        MavenProject4CopyConstructor project = new MavenProject4CopyConstructor();
+        String outputDir = getTestDirectory().getAbsolutePath() + "/" + testId + "-output";
+        File webAppDirectory = new File( getTestDirectory(), testId );
+        File stagingDirectory = new File( getTestDirectory(), testId + "-staging" );
+        WarArtifact4CCStub warArtifact = new WarArtifact4CCStub( getBasedir() );
+        String warName = "simple";
+        File webAppSource = createWebAppSource( testId );
+        File classesDir = createClassesDir( testId, true );
+        File xmlSource = createXMLConfigDir( testId, new String[]{"web.xml"} );
+
+        project.setArtifact( warArtifact );
+        this.configureMojo( mojo, new LinkedList(), classesDir, webAppSource, webAppDirectory, project );
+        setVariableValueToObject( mojo, "outputDirectory", outputDir );
+        setVariableValueToObject( mojo, "warName", warName );
+        mojo.setWebXml( new File( xmlSource, "web.xml" ) );
+        mojo.setSkipExplodedWebapp( true );
+        mojo.setStagingDirectory( stagingDirectory );
+
+        mojo.execute();
+
+        //validate jar file
+        File expectedJarFile = new File( outputDir, "simple.war" );
+        assertJarContent( expectedJarFile, new String[]{"META-INF/MANIFEST.MF", "WEB-INF/web.xml", "pansit.jsp",
+            "org/web/app/last-exile.jsp", "META-INF/maven/org.apache.maven.test/maven-test-plugin/pom.xml",
+            "META-INF/maven/org.apache.maven.test/maven-test-plugin/pom.properties"},
+                                           new String[]{null, mojo.getWebXml().toString(), null, null, null, null} );
+        assertFalse( "webapp sources should not have been copied",
+                     new File( webAppDirectory, "pansit.jsp" ).exists() );
+        assertFalse( "webapp sources should not have been copied",
+                     new File( stagingDirectory, "pansit.jsp" ).exists() );
+    }
+
     public void testSimpleWarPackagingExcludeWithIncludesRegEx()
         throws Exception
     {
@@ -170,6 +170,43 @@ public class WarOverlaysTest
      *
      * @throws Exception if any error occurs
      */
+    public void testDefaultOverlaysWithPackagingThreads()
+        throws Exception
+    {
+        // setup test data
+        final String testId = "default-overlays-threads";
+
+        // Add an overlay
+        final ArtifactStub overlay = buildWarOverlayStub( "overlay-one" );
+        final ArtifactStub overlay2 = buildWarOverlayStub( "overlay-two" );
+
+        final File webAppDirectory = setUpMojo( testId, new ArtifactStub[]{overlay, overlay2} );
+        final List assertedFiles = new ArrayList();
+        try
+        {
+            mojo.setPackagingThreads( 4 );
+            mojo.execute();
+            assertedFiles.addAll( assertDefaultContent( webAppDirectory ) );
+            assertedFiles.addAll( assertWebXml( webAppDirectory ) );
+            assertedFiles.addAll( assertCustomContent( webAppDirectory,
+                                                       new String[]{"index.jsp", "login.jsp", "admin.jsp"},
+                                                       "overlay file not found" ) );
+
+            // the owners do not depend on the number of threads
+            assertOverlayedFile( webAppDirectory, "overlay-one", "index.jsp" );
+            assertOverlayedFile( webAppDirectory, "overlay-one", "login.jsp" );
+            assertOverlayedFile( webAppDirectory, "overlay-two", "admin.jsp" );
+
+            // Ok now check that there is no more files/directories
+            final FileFilter filter = new FileFilterImpl( webAppDirectory, new String[]{MANIFEST_PATH} );
+            assertWebAppContent( webAppDirectory, assertedFiles, filter );
+        }
+        finally
+        {
+            cleanDirectory( webAppDirectory );
+        }
+    }
+
     public void testScenarioOneWithDefaulSettings()
         throws Exception
     {
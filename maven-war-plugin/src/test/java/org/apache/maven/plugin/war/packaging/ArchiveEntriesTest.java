@@ -0,0 +1,70 @@
+package org.apache.maven.plugin.war.packaging;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+
+import java.io.File;
+
+/**
+ * Tests {@link ArchiveEntries}.
+ */
+public class ArchiveEntriesTest
+    extends TestCase
+{
+
+    private final File webappDirectory = new File( "target/test-dir/staging" );
+
+    public void testPutAndRemove()
+    {
+        final ArchiveEntries entries = new ArchiveEntries( webappDirectory );
+        final File source = new File( "src/main/webapp/index.jsp" );
+
+        entries.put( new File( webappDirectory, "index.jsp" ), source );
+        entries.put( new File( webappDirectory, "WEB-INF/lib/a.jar" ), new File( "a.jar" ) );
+        assertEquals( 2, entries.size() );
+        assertEquals( source, entries.getFile( "index.jsp" ) );
+        assertEquals( source, entries.getFile( "/index.jsp" ) );
+
+        assertEquals( source, entries.remove( new File( webappDirectory, "index.jsp" ) ) );
+        assertNull( entries.remove( new File( webappDirectory, "index.jsp" ) ) );
+        assertEquals( 1, entries.size() );
+    }
+
+    public void testGeneratedFile()
+    {
+        final ArchiveEntries entries = new ArchiveEntries( webappDirectory );
+        assertEquals( new File( webappDirectory, "WEB-INF/web.xml" ), entries.getFile( "WEB-INF/web.xml" ) );
+    }
+
+    public void testFileOutsideOfWebappDirectory()
+    {
+        final ArchiveEntries entries = new ArchiveEntries( webappDirectory );
+        try
+        {
+            entries.put( new File( "target/other/index.jsp" ), new File( "index.jsp" ) );
+            fail( "Should have failed to register a file outside of the webapp directory" );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            // expected
+        }
+    }
+}
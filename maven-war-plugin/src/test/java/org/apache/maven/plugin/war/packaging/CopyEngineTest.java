@@ -0,0 +1,163 @@
+package org.apache.maven.plugin.war.packaging;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.apache.maven.plugin.MojoExecutionException;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests {@link CopyEngine}.
+ */
+public class CopyEngineTest
+    extends TestCase
+{
+
+    public void testSingleThreadPerformsRightAway()
+        throws Exception
+    {
+        final CopyEngine engine = new CopyEngine( 1 );
+        final List performed = new ArrayList();
+
+        engine.submit( new File( "a" ), new RecordingOperation( performed, "a" ) );
+        assertEquals( Collections.singletonList( "a" ), performed );
+
+        engine.await();
+        engine.shutdown();
+    }
+
+    public void testSameTargetInSubmissionOrder()
+        throws Exception
+    {
+        final CopyEngine engine = new CopyEngine( 4 );
+        final List performed = Collections.synchronizedList( new ArrayList() );
+        try
+        {
+            final File target = new File( "WEB-INF/web.xml" );
+            for ( int i = 0; i < 50; i++ )
+            {
+                engine.submit( new File( "file" + i ), new RecordingOperation( new ArrayList(), "other" ) );
+                engine.submit( target, new RecordingOperation( performed, Integer.toString( i ) ) );
+            }
+            engine.waitFor( target );
+
+            assertEquals( 50, performed.size() );
+            for ( int i = 0; i < 50; i++ )
+            {
+                assertEquals( Integer.toString( i ), performed.get( i ) );
+            }
+            engine.await();
+        }
+        finally
+        {
+            engine.shutdown();
+        }
+    }
+
+    public void testFailureIsRethrown()
+        throws Exception
+    {
+        final CopyEngine engine = new CopyEngine( 2 );
+        try
+        {
+            engine.submit( new File( "a" ), new CopyEngine.Operation()
+            {
+                public void perform()
+                    throws IOException
+                {
+                    throw new IOException( "disk full" );
+                }
+            } );
+            engine.await();
+            fail( "Should have failed with the exception of the operation" );
+        }
+        catch ( IOException e )
+        {
+            assertEquals( "disk full", e.getMessage() );
+        }
+        finally
+        {
+            engine.shutdown();
+        }
+    }
+
+    public void testFailureStopsFurtherSubmissions()
+        throws Exception
+    {
+        final CopyEngine engine = new CopyEngine( 2 );
+        try
+        {
+            final File target = new File( "a" );
+            engine.submit( target, new CopyEngine.Operation()
+            {
+                public void perform()
+                    throws MojoExecutionException
+                {
+                    throw new MojoExecutionException( "filtering failed" );
+                }
+            } );
+            try
+            {
+                engine.waitFor( target );
+                fail( "Should have failed with the exception of the operation" );
+            }
+            catch ( MojoExecutionException e )
+            {
+                assertEquals( "filtering failed", e.getMessage() );
+            }
+
+            engine.submit( new File( "b" ), new RecordingOperation( new ArrayList(), "b" ) );
+            fail( "Should have failed with the exception of the previous operation" );
+        }
+        catch ( MojoExecutionException e )
+        {
+            assertEquals( "filtering failed", e.getMessage() );
+        }
+        finally
+        {
+            engine.shutdown();
+        }
+    }
+
+    private static class RecordingOperation
+        implements CopyEngine.Operation
+    {
+
+        private final List performed;
+
+        private final String name;
+
+        RecordingOperation( List performed, String name )
+        {
+            this.performed = performed;
+            this.name = name;
+        }
+
+        public void perform()
+        {
+            performed.add( name );
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package org.apache.maven.plugin.war.packaging;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.codehaus.plexus.util.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Tests {@link OverlayCache}.
+ */
+public class OverlayCacheTest
+    extends TestCase
+{
+
+    private File directory;
+
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+        directory = File.createTempFile( "overlay-cache", "" );
+        directory.delete();
+        directory.mkdirs();
+    }
+
+    protected void tearDown()
+        throws Exception
+    {
+        FileUtils.deleteDirectory( directory );
+        super.tearDown();
+    }
+
+    public void testDirectoryIsKeyedByContent()
+        throws IOException
+    {
+        final OverlayCache cache = new OverlayCache( new File( directory, "cache" ), true );
+        final File first = createFile( "first/overlay.war", "content" );
+        final File second = createFile( "second/overlay.war", "content" );
+        final File other = createFile( "other/overlay.war", "other content" );
+
+        assertEquals( cache.getDirectory( first ), cache.getDirectory( second ) );
+        assertFalse( cache.getDirectory( first ).equals( cache.getDirectory( other ) ) );
+        assertFalse( cache.getDirectory( first ).exists() );
+    }
+
+    public void testCommit()
+        throws IOException
+    {
+        final OverlayCache cache = new OverlayCache( new File( directory, "cache" ), true );
+        final File target = cache.getDirectory( createFile( "overlay.war", "content" ) );
+
+        final File tmpDir = cache.createTemporaryDirectory( target );
+        FileUtils.fileWrite( new File( tmpDir, "index.jsp" ).getAbsolutePath(), "hello" );
+        cache.commit( tmpDir, target );
+
+        assertFalse( tmpDir.exists() );
+        assertTrue( new File( target, "index.jsp" ).isFile() );
+    }
+
+    public void testConcurrentCommitKeepsFirstUnpack()
+        throws IOException
+    {
+        final OverlayCache cache = new OverlayCache( new File( directory, "cache" ), true );
+        final File target = cache.getDirectory( createFile( "overlay.war", "content" ) );
+
+        final File firstDir = cache.createTemporaryDirectory( target );
+        final File secondDir = cache.createTemporaryDirectory( target );
+        FileUtils.fileWrite( new File( firstDir, "index.jsp" ).getAbsolutePath(), "first" );
+        FileUtils.fileWrite( new File( secondDir, "index.jsp" ).getAbsolutePath(), "second" );
+        cache.commit( firstDir, target );
+        cache.commit( secondDir, target );
+
+        assertFalse( secondDir.exists() );
+        assertEquals( "first", FileUtils.fileRead( new File( target, "index.jsp" ) ) );
+    }
+
+    public void testLinkOnlyCachedFiles()
+        throws IOException
+    {
+        final OverlayCache cache = new OverlayCache( new File( directory, "cache" ), true );
+        final File target = cache.getDirectory( createFile( "overlay.war", "content" ) );
+        target.mkdirs();
+        final File cached = new File( target, "index.jsp" );
+        FileUtils.fileWrite( cached.getAbsolutePath(), "hello" );
+        final File notCached = createFile( "src/index.jsp", "hello" );
+
+        assertTrue( cache.isCached( cached ) );
+        assertFalse( cache.isCached( notCached ) );
+        assertFalse( cache.link( notCached, new File( directory, "webapp/other.jsp" ) ) );
+
+        final File webapp = new File( directory, "webapp" );
+        webapp.mkdirs();
+        final File linked = new File( webapp, "index.jsp" );
+        if ( cache.link( cached, linked ) )
+        {
+            assertEquals( "hello", FileUtils.fileRead( linked ) );
+        }
+        else
+        {
+            // no hard links on this runtime or file system
+            assertFalse( linked.exists() );
+        }
+    }
+
+    public void testLinksDisabled()
+        throws IOException
+    {
+        final OverlayCache cache = new OverlayCache( new File( directory, "cache" ), false );
+        final File target = cache.getDirectory( createFile( "overlay.war", "content" ) );
+        target.mkdirs();
+        final File cached = new File( target, "index.jsp" );
+        FileUtils.fileWrite( cached.getAbsolutePath(), "hello" );
+
+        assertFalse( cache.link( cached, new File( directory, "index.jsp" ) ) );
+    }
+
+    private File createFile( String name, String content )
+        throws IOException
+    {
+        final File file = new File( directory, name );
+        file.getParentFile().mkdirs();
+        FileUtils.fileWrite( file.getAbsolutePath(), content );
+        return file;
+    }
+}
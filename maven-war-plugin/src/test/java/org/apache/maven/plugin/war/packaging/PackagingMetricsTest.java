@@ -0,0 +1,90 @@
+package org.apache.maven.plugin.war.packaging;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.codehaus.plexus.util.FileUtils;
+
+import java.io.File;
+
+/**
+ * Tests {@link PackagingMetrics}.
+ */
+public class PackagingMetricsTest
+    extends TestCase
+{
+
+    public void testPhases()
+    {
+        final PackagingMetrics metrics = new PackagingMetrics();
+        assertNull( metrics.getCurrentPhase() );
+
+        metrics.enter( "webResources" );
+        assertEquals( "webResources", metrics.getCurrentPhase() );
+        metrics.recordCopy( "webResources", 100 );
+        metrics.recordCopy( "webResources", 20 );
+        metrics.enter( "overlays" );
+        metrics.recordSkip( "overlays" );
+        metrics.recordCopy( PackagingMetrics.FILTERING, 5 );
+        metrics.recordTime( PackagingMetrics.FILTERING, 7 );
+        metrics.end();
+        assertNull( metrics.getCurrentPhase() );
+
+        final String json = metrics.toJson();
+        assertTrue( json, json.indexOf( "\"webResources\": { \"timeMillis\": " ) > 0 );
+        assertTrue( json, json.indexOf( "\"files\": 2, \"bytes\": 120, \"skipped\": 0 }" ) > 0 );
+        assertTrue( json, json.indexOf( "\"files\": 0, \"bytes\": 0, \"skipped\": 1 }" ) > 0 );
+        assertTrue( json, json.indexOf(
+            "\"filtering\": { \"timeMillis\": 7, \"files\": 1, \"bytes\": 5, \"skipped\": 0 }" ) > 0 );
+        assertTrue( json.indexOf( "webResources" ) < json.indexOf( "overlays" ) );
+    }
+
+    public void testCacheAndReport()
+        throws Exception
+    {
+        final PackagingMetrics metrics = new PackagingMetrics();
+        metrics.recordCacheHit();
+        metrics.recordCacheHit();
+        metrics.recordCacheMiss();
+        metrics.recordCopy( null, 1 );
+
+        final File directory = File.createTempFile( "metrics", "" );
+        directory.delete();
+        final File report = new File( directory, "metrics.json" );
+        try
+        {
+            metrics.write( report );
+            final String json = FileUtils.fileRead( report, "UTF-8" );
+            assertTrue( json, json.indexOf( "\"webappStructureCache\": { \"hits\": 2, \"misses\": 1 }" ) > 0 );
+            assertTrue( json, json.indexOf( "\"other\": { \"timeMillis\": 0, \"files\": 1" ) > 0 );
+        }
+        finally
+        {
+            FileUtils.deleteDirectory( directory );
+        }
+    }
+
+    public void testPhaseNamesAreEscaped()
+    {
+        final PackagingMetrics metrics = new PackagingMetrics();
+        metrics.recordSkip( "a\"b\\c\n" );
+        assertTrue( metrics.toJson().indexOf( "\"a\\\"b\\\\c\\u000a\"" ) > 0 );
+    }
+}
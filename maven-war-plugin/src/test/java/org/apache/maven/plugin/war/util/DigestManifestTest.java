@@ -0,0 +1,137 @@
+package org.apache.maven.plugin.war.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.codehaus.plexus.util.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Tests {@link DigestManifest}.
+ */
+public class DigestManifestTest
+    extends TestCase
+{
+
+    private File directory;
+
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+        directory = File.createTempFile( "digests", "" );
+        directory.delete();
+        directory.mkdirs();
+    }
+
+    protected void tearDown()
+        throws Exception
+    {
+        FileUtils.deleteDirectory( directory );
+        super.tearDown();
+    }
+
+    public void testDigest()
+        throws IOException
+    {
+        final File file = createFile( "a.txt", "abc" );
+        assertEquals( "a9993e364706816aba3e25717850c26c9cd0d89d", DigestManifest.digest( file ) );
+    }
+
+    public void testMissingManifest()
+        throws IOException
+    {
+        final DigestManifest manifest = DigestManifest.load( new File( directory, "missing.txt" ) );
+        final File file = createFile( "index.jsp", "hello" );
+        assertFalse( manifest.isUpToDate( "index.jsp", file, DigestManifest.digest( file ) ) );
+    }
+
+    public void testRoundTrip()
+        throws IOException
+    {
+        final File manifestFile = new File( directory, "work/webapp-digests.txt" );
+        final File file = createFile( "index.jsp", "hello" );
+        final String digest = DigestManifest.digest( file );
+
+        final DigestManifest manifest = DigestManifest.load( manifestFile );
+        manifest.record( "WEB-INF\\classes/index.jsp", file.length(), digest );
+        manifest.save( manifestFile );
+
+        final DigestManifest loaded = DigestManifest.load( manifestFile );
+        assertTrue( loaded.isUpToDate( "WEB-INF/classes/index.jsp", file, digest ) );
+        assertFalse( loaded.isUpToDate( "index.jsp", file, digest ) );
+    }
+
+    public void testChangedContent()
+        throws IOException
+    {
+        final File manifestFile = new File( directory, "webapp-digests.txt" );
+        final File file = createFile( "index.jsp", "hello" );
+
+        final DigestManifest manifest = DigestManifest.load( manifestFile );
+        manifest.record( "index.jsp", file.length(), DigestManifest.digest( file ) );
+        manifest.save( manifestFile );
+
+        final DigestManifest loaded = DigestManifest.load( manifestFile );
+        final File changed = createFile( "other.jsp", "world" );
+        assertFalse( loaded.isUpToDate( "index.jsp", file, DigestManifest.digest( changed ) ) );
+
+        // the target file was modified after the previous build
+        final String digest = DigestManifest.digest( file );
+        FileUtils.fileWrite( file.getAbsolutePath(), "hello again" );
+        assertFalse( loaded.isUpToDate( "index.jsp", file, digest ) );
+
+        // the target file was deleted
+        file.delete();
+        assertFalse( loaded.isUpToDate( "index.jsp", file, digest ) );
+    }
+
+    public void testOnlyRecordedPathsAreSaved()
+        throws IOException
+    {
+        final File manifestFile = new File( directory, "webapp-digests.txt" );
+        final File file = createFile( "index.jsp", "hello" );
+        final String digest = DigestManifest.digest( file );
+
+        final DigestManifest first = DigestManifest.load( manifestFile );
+        first.record( "index.jsp", file.length(), digest );
+        first.record( "removed.jsp", file.length(), digest );
+        first.save( manifestFile );
+
+        final DigestManifest second = DigestManifest.load( manifestFile );
+        assertTrue( second.isUpToDate( "removed.jsp", file, digest ) );
+        second.record( "index.jsp", file.length(), digest );
+        second.save( manifestFile );
+
+        final DigestManifest third = DigestManifest.load( manifestFile );
+        assertTrue( third.isUpToDate( "index.jsp", file, digest ) );
+        assertFalse( third.isUpToDate( "removed.jsp", file, digest ) );
+    }
+
+    private File createFile( String name, String content )
+        throws IOException
+    {
+        final File file = new File( directory, name );
+        FileUtils.fileWrite( file.getAbsolutePath(), content );
+        return file;
+    }
+}
@@ -0,0 +1,106 @@
+package org.apache.maven.plugin.war.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+
+/**
+ * Tests {@link PathIndex}.
+ */
+public class PathIndexTest
+    extends TestCase
+{
+
+    public void testPutAndGet()
+    {
+        final PathIndex index = new PathIndex();
+        assertNull( index.put( "WEB-INF/web.xml", "currentBuild" ) );
+        assertNull( index.put( "WEB-INF/lib/a.jar", "overlay1" ) );
+
+        assertEquals( "currentBuild", index.get( "WEB-INF/web.xml" ) );
+        assertEquals( "currentBuild", index.get( "/WEB-INF\\web.xml" ) );
+        assertEquals( "overlay1", index.get( "WEB-INF/lib/a.jar" ) );
+        assertNull( index.get( "WEB-INF" ) );
+        assertNull( index.get( "WEB-INF/lib" ) );
+        assertNull( index.get( "WEB-INF/lib/b.jar" ) );
+        assertNull( index.get( "WEB-INF/web.xml/foo" ) );
+        assertEquals( 2, index.size() );
+    }
+
+    public void testPutReplacesOwner()
+    {
+        final PathIndex index = new PathIndex();
+        index.put( "index.jsp", "overlay1" );
+        assertEquals( "overlay1", index.put( "index.jsp", "currentBuild" ) );
+        assertEquals( "currentBuild", index.get( "index.jsp" ) );
+        assertEquals( 1, index.size() );
+    }
+
+    public void testRemove()
+    {
+        final PathIndex index = new PathIndex();
+        index.put( "WEB-INF/lib/a.jar", "overlay1" );
+        assertNull( index.remove( "WEB-INF/lib" ) );
+        assertEquals( "overlay1", index.remove( "WEB-INF/lib/a.jar" ) );
+        assertNull( index.get( "WEB-INF/lib/a.jar" ) );
+        assertEquals( 0, index.size() );
+        assertEquals( 0, index.getPaths( "" ).size() );
+    }
+
+    public void testFileAndDirectoryWithSameName()
+    {
+        final PathIndex index = new PathIndex();
+        index.put( "docs", "overlay1" );
+        index.put( "docs/index.html", "overlay2" );
+        index.put( "docs/", "overlay3" );
+
+        assertEquals( "overlay1", index.get( "docs" ) );
+        assertEquals( "overlay2", index.get( "docs/index.html" ) );
+        assertEquals( "overlay3", index.get( "docs/" ) );
+
+        final PathSet paths = index.getPaths( "docs" );
+        assertEquals( 2, paths.size() );
+        assertTrue( paths.contains( "docs/index.html" ) );
+        assertTrue( paths.contains( "docs/" ) );
+        assertEquals( 3, index.getPaths( "" ).size() );
+    }
+
+    public void testGetPaths()
+    {
+        final PathIndex index = new PathIndex();
+        index.put( "index.jsp", "currentBuild" );
+        index.put( "WEB-INF/web.xml", "currentBuild" );
+        index.put( "WEB-INF/classes/org/test/A.class", "currentBuild" );
+        index.put( "WEB-INF/classes/org/test/B.class", "overlay1" );
+        index.put( "WEB-INF/classes/org/testing/C.class", "overlay1" );
+
+        final PathSet test = index.getPaths( "WEB-INF/classes/org/test" );
+        assertEquals( 2, test.size() );
+        assertTrue( test.contains( "WEB-INF/classes/org/test/A.class" ) );
+        assertTrue( test.contains( "WEB-INF/classes/org/test/B.class" ) );
+
+        assertEquals( 4, index.getPaths( "WEB-INF" ).size() );
+        assertEquals( 4, index.getPaths( "/WEB-INF/" ).size() );
+        assertEquals( 5, index.getPaths( "" ).size() );
+        assertEquals( 0, index.getPaths( "WEB-INF/classes/org/tes" ).size() );
+        assertEquals( 0, index.getPaths( "index.jsp" ).size() );
+        assertEquals( 0, index.getPaths( "META-INF" ).size() );
+    }
+}
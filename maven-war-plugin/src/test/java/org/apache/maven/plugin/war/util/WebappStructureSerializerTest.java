@@ -0,0 +1,205 @@
+package org.apache.maven.plugin.war.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Exclusion;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests the binary format of {@link WebappStructureSerializer}.
+ */
+public class WebappStructureSerializerTest
+    extends TestCase
+{
+
+    private final WebappStructureSerializer serializer = new WebappStructureSerializer();
+
+    private File cacheFile;
+
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+        cacheFile = File.createTempFile( "webapp-cache", ".bin" );
+    }
+
+    protected void tearDown()
+        throws Exception
+    {
+        cacheFile.delete();
+        super.tearDown();
+    }
+
+    public void testOwnersRoundTrip()
+        throws IOException
+    {
+        final WebappStructure structure = new WebappStructure( new ArrayList() );
+        structure.registerFile( "currentBuild", "WEB-INF/web.xml" );
+        structure.registerFile( "currentBuild", "index.jsp" );
+        structure.registerFile( "org.test:overlay", "images/logo.png" );
+        structure.registerFile( "org.test:overlay", "WEB-INF/lib/caf\u00e9.jar" );
+        structure.registerFileForced( "org.test:overlay", "index.jsp" );
+
+        serializer.toBinary( structure, cacheFile );
+        final WebappStructure cache = serializer.read( cacheFile );
+
+        assertEquals( "currentBuild", cache.getOwner( "WEB-INF/web.xml" ) );
+        assertEquals( "currentBuild", cache.getOwner( "/WEB-INF\\web.xml" ) );
+        assertEquals( "org.test:overlay", cache.getOwner( "index.jsp" ) );
+        assertEquals( "org.test:overlay", cache.getOwner( "images/logo.png" ) );
+        assertEquals( "org.test:overlay", cache.getOwner( "WEB-INF/lib/caf\u00e9.jar" ) );
+        assertNull( cache.getOwner( "images" ) );
+        assertNull( cache.getOwner( "WEB-INF/web.xml.bak" ) );
+        assertFalse( cache.isRegistered( "unknown.jsp" ) );
+        assertTrue( cache.isRegistered( "images/logo.png" ) );
+
+        assertEquals( 2, cache.getOwners().size() );
+        assertEquals( 4, cache.getFullStructure().size() );
+        assertEquals( 1, cache.getStructure( "currentBuild" ).size() );
+        assertTrue( cache.getStructure( "currentBuild" ).contains( "WEB-INF/web.xml" ) );
+        assertEquals( 3, cache.getStructure( "org.test:overlay" ).size() );
+        assertEquals( 0, cache.getStructure( "unknown" ).size() );
+
+        assertEquals( 2, cache.getFullStructure( "WEB-INF" ).size() );
+        assertTrue( cache.getFullStructure( "WEB-INF/lib/" ).contains( "WEB-INF/lib/caf\u00e9.jar" ) );
+        assertEquals( 1, cache.getFullStructure( "images" ).size() );
+        assertEquals( 0, cache.getFullStructure( "image" ).size() );
+        assertEquals( 4, cache.getFullStructure( "" ).size() );
+    }
+
+    public void testDependenciesRoundTrip()
+        throws IOException
+    {
+        final Dependency dependency = createDependency( "org.test", "lib", "1.0" );
+        dependency.setOptional( true );
+        final Exclusion exclusion = new Exclusion();
+        exclusion.setGroupId( "org.excluded" );
+        exclusion.setArtifactId( "excluded" );
+        dependency.addExclusion( exclusion );
+
+        final List dependencies = new ArrayList();
+        dependencies.add( dependency );
+        dependencies.add( createDependency( "org.test", "other", "2.0" ) );
+
+        final WebappStructure structure = new WebappStructure( dependencies );
+        ( (DependencyInfo) structure.getDependenciesInfo().get( 0 ) ).setTargetFileName( "lib-1.0.jar" );
+
+        serializer.toBinary( structure, cacheFile );
+        final WebappStructure cache = serializer.read( cacheFile );
+
+        final List dependenciesInfo = cache.getDependenciesInfo();
+        assertEquals( 2, dependenciesInfo.size() );
+
+        final DependencyInfo first = (DependencyInfo) dependenciesInfo.get( 0 );
+        assertEquals( "lib-1.0.jar", first.getTargetFileName() );
+        assertEquals( "org.test", first.getDependency().getGroupId() );
+        assertEquals( "lib", first.getDependency().getArtifactId() );
+        assertEquals( "1.0", first.getDependency().getVersion() );
+        assertEquals( "jar", first.getDependency().getType() );
+        assertEquals( "compile", first.getDependency().getScope() );
+        assertNull( first.getDependency().getClassifier() );
+        assertTrue( first.getDependency().isOptional() );
+        assertEquals( 1, first.getDependency().getExclusions().size() );
+        assertEquals( "excluded", ( (Exclusion) first.getDependency().getExclusions().get( 0 ) ).getArtifactId() );
+
+        final DependencyInfo second = (DependencyInfo) dependenciesInfo.get( 1 );
+        assertNull( second.getTargetFileName() );
+        assertFalse( second.getDependency().isOptional() );
+
+        final WebappStructure webappStructure = new WebappStructure( dependencies, cache );
+        assertEquals( "lib-1.0.jar", webappStructure.getCachedTargetFileName( dependency ) );
+    }
+
+    public void testCacheCanBeModified()
+        throws IOException
+    {
+        final WebappStructure structure = new WebappStructure( new ArrayList() );
+        structure.registerFile( "currentBuild", "index.jsp" );
+        structure.registerFile( "org.test:overlay", "WEB-INF/web.xml" );
+        serializer.toBinary( structure, cacheFile );
+        final WebappStructure cache = serializer.read( cacheFile );
+
+        assertTrue( cache.registerFile( "currentBuild", "login.jsp" ) );
+        assertFalse( cache.registerFile( "org.test:overlay", "index.jsp" ) );
+        assertTrue( cache.registerFileForced( "org.test:overlay", "index.jsp" ) );
+
+        assertEquals( "org.test:overlay", cache.getOwner( "index.jsp" ) );
+        assertEquals( "currentBuild", cache.getOwner( "login.jsp" ) );
+        assertEquals( 3, cache.getFullStructure().size() );
+        assertEquals( 1, cache.getStructure( "currentBuild" ).size() );
+        assertEquals( 2, cache.getStructure( "org.test:overlay" ).size() );
+    }
+
+    public void testOverwriteCache()
+        throws IOException
+    {
+        final WebappStructure structure = new WebappStructure( new ArrayList() );
+        structure.registerFile( "currentBuild", "index.jsp" );
+        serializer.toBinary( structure, cacheFile );
+        final WebappStructure cache = serializer.read( cacheFile );
+
+        final WebappStructure newStructure = new WebappStructure( new ArrayList(), cache );
+        newStructure.registerFile( "org.test:overlay", "index.jsp" );
+        serializer.toBinary( newStructure, cacheFile );
+
+        assertEquals( "currentBuild", cache.getOwner( "index.jsp" ) );
+        assertEquals( "org.test:overlay", serializer.read( cacheFile ).getOwner( "index.jsp" ) );
+    }
+
+    public void testCorruptCache()
+        throws IOException
+    {
+        final WebappStructure structure = new WebappStructure( new ArrayList() );
+        structure.registerFile( "currentBuild", "index.jsp" );
+        serializer.toBinary( structure, cacheFile );
+
+        final FileOutputStream out = new FileOutputStream( cacheFile, true );
+        out.getChannel().truncate( 14 );
+        out.close();
+
+        try
+        {
+            serializer.read( cacheFile );
+            fail( "Should have failed to read a truncated cache" );
+        }
+        catch ( IOException e )
+        {
+            // expected
+        }
+    }
+
+    private Dependency createDependency( String groupId, String artifactId, String version )
+    {
+        final Dependency dependency = new Dependency();
+        dependency.setGroupId( groupId );
+        dependency.setArtifactId( artifactId );
+        dependency.setVersion( version );
+        dependency.setType( "jar" );
+        dependency.setScope( "compile" );
+        return dependency;
+    }
+}
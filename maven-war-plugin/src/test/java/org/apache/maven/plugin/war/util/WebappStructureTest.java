@@ -254,6 +254,27 @@ public class WebappStructureTest
         assertTrue("owner replacement should have returned true",
                    structure.registerFileForced( "currentBuild", path ));
         assertEquals("currentBuild", structure.getOwner( path ));
+        assertFalse( structure.getStructure( "overlay1" ).contains( path ) );
+        assertTrue( structure.getStructure( "currentBuild" ).contains( path ) );
+    }
+
+    public void testRegisteredPathsUnderDirectory()
+    {
+        final WebappStructure structure = new WebappStructure( new ArrayList() );
+        structure.registerFile( "currentBuild", "WEB-INF/web.xml" );
+        structure.registerFile( "currentBuild", "WEB-INF/lib/a.jar" );
+        structure.registerFile( "overlay1", "WEB-INF/lib/b.jar" );
+        structure.registerFile( "overlay1", "WEB-INF/library.txt" );
+        structure.registerFile( "overlay1", "index.jsp" );
+
+        final PathSet lib = structure.getFullStructure( "WEB-INF/lib" );
+        assertEquals( 2, lib.size() );
+        assertTrue( lib.contains( "WEB-INF/lib/a.jar" ) );
+        assertTrue( lib.contains( "WEB-INF/lib/b.jar" ) );
+        assertEquals( lib.size(), structure.getFullStructure( "/WEB-INF\\lib/" ).size() );
+        assertEquals( 4, structure.getFullStructure( "WEB-INF" ).size() );
+        assertEquals( 5, structure.getFullStructure().size() );
+        assertEquals( 0, structure.getFullStructure( "META-INF" ).size() );
     }
 
 